@@ -598,7 +598,8 @@ public class DefaultNodeManager implements NodeManager {
     // just build a network context.
     NetworkContext updatedContext;
     if (scontext != null) {
-      updatedContext = ContextBuilder.buildContext(Configs.mergeNetworks(Contexts.<NetworkContext>deserialize(new JsonObject(scontext)).config(), network), cluster);
+      NetworkContext currentContext = Contexts.<NetworkContext>deserialize(new JsonObject(scontext));
+      updatedContext = ContextBuilder.buildContext(Configs.mergeNetworks(currentContext.config(), network), cluster, currentContext);
     } else {
       updatedContext = ContextBuilder.buildContext(network, cluster);
     }
@@ -922,7 +923,7 @@ public class DefaultNodeManager implements NodeManager {
         // Otherwise, we simply update the existing configuration and allow the
         // network's manager to handle deployment and undeployment of components.
         NetworkConfig updatedConfig = Configs.unmergeNetworks(tempContext.config(), network);
-        final NetworkContext context = ContextBuilder.buildContext(updatedConfig, cluster);
+        final NetworkContext context = ContextBuilder.buildContext(updatedConfig, cluster, tempContext);
 
         // If the new configuration has no components then undeploy the entire network.
         if (context.components().isEmpty()) {
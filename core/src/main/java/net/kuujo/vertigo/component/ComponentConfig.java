@@ -86,6 +86,14 @@ public interface ComponentConfig<T extends ComponentConfig<T>> extends Config<T>
    */
   public static final String COMPONENT_GROUP = "group";
 
+  /**
+   * <code>replayMemory</code> is a number indicating the maximum number of bytes of
+   * direct memory each component instance may use to store unacknowledged messages for
+   * connections configured with direct replay storage. Defaults to <code>67108864</code>
+   * (64 MB). If <code>0</code> then direct memory use is unbounded.
+   */
+  public static final String COMPONENT_REPLAY_MEMORY = "replayMemory";
+
   /**
    * <code>hooks</code> is an array defining component hooks. Each element in the array
    * must be an object containing a <code>hook</code> field which indicates the hook
@@ -195,6 +203,24 @@ public interface ComponentConfig<T extends ComponentConfig<T>> extends Config<T>
    */
   String getGroup();
 
+  /**
+   * Sets the maximum direct memory each instance may use for message replay.<p>
+   *
+   * This budget is shared by all output connections of an instance that are
+   * configured with direct replay storage.
+   *
+   * @param bytes The maximum number of bytes of direct memory per instance.
+   * @return The component configuration.
+   */
+  T setReplayMemory(long bytes);
+
+  /**
+   * Returns the maximum direct memory each instance may use for message replay.
+   *
+   * @return The maximum number of bytes of direct memory per instance.
+   */
+  long getReplayMemory();
+
   /**
    * Adds a hook to the component.
    *
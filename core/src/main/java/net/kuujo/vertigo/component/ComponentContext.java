@@ -132,6 +132,13 @@ public interface ComponentContext<T extends ComponentContext<T>> extends Context
    */
   String group();
 
+  /**
+   * Returns the maximum direct memory each instance may use for message replay.
+   *
+   * @return The maximum number of bytes of direct memory per instance.
+   */
+  long replayMemory();
+
   /**
    * Returns a list of component hooks.
    *
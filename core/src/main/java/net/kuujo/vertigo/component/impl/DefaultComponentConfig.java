@@ -35,11 +35,13 @@ import org.vertx.java.core.json.JsonObject;
  */
 public abstract class DefaultComponentConfig<T extends ComponentConfig<T>> implements ComponentConfig<T> {
   private static final int DEFAULT_NUM_INSTANCES = 1;
+  private static final long DEFAULT_REPLAY_MEMORY = 1024 * 1024 * 64;
 
   private String name;
   private Map<String, Object> config;
   private int instances = DEFAULT_NUM_INSTANCES;
   private String group;
+  private long replayMemory = DEFAULT_REPLAY_MEMORY;
   private List<ComponentHook> hooks = new ArrayList<>();
 
   @Override
@@ -93,6 +95,21 @@ public abstract class DefaultComponentConfig<T extends ComponentConfig<T>> imple
     return group;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public T setReplayMemory(long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("replay memory must be a positive number");
+    }
+    this.replayMemory = bytes;
+    return (T) this;
+  }
+
+  @Override
+  public long getReplayMemory() {
+    return replayMemory;
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public T addHook(ComponentHook hook) {
@@ -56,6 +56,7 @@ public abstract class DefaultComponentContext<T extends ComponentContext<T>> ext
   protected String name;
   protected String status;
   protected String group;
+  protected long replayMemory;
   protected Map<String, Object> config;
   protected List<DefaultInstanceContext> instances = new ArrayList<>();
   protected List<ComponentHook> hooks = new ArrayList<>();
@@ -143,6 +144,11 @@ public abstract class DefaultComponentContext<T extends ComponentContext<T>> ext
     return group;
   }
 
+  @Override
+  public long replayMemory() {
+    return replayMemory;
+  }
+
   @Override
   public List<ComponentHook> hooks() {
     return hooks;
@@ -105,6 +105,7 @@ public class DefaultModuleContext extends DefaultComponentContext<ModuleContext>
             .setConfig(context.config())
             .setInstances(context.instances())
             .setGroup(context.group())
+            .setReplayMemory(context.replayMemory())
             .setModule(context.module())
             .setHooks(context.hooks());
       }
@@ -176,6 +177,17 @@ public class DefaultModuleContext extends DefaultComponentContext<ModuleContext>
       return this;
     }
 
+    /**
+     * Sets the maximum direct memory each instance may use for message replay.
+     *
+     * @param bytes The maximum number of bytes of direct memory per instance.
+     * @return The context builder.
+     */
+    public Builder setReplayMemory(long bytes) {
+      context.replayMemory = bytes;
+      return this;
+    }
+
     /**
      * Sets the component instance contexts.
      *
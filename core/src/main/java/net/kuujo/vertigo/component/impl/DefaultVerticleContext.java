@@ -116,6 +116,7 @@ public class DefaultVerticleContext extends DefaultComponentContext<VerticleCont
             .setConfig(context.config())
             .setInstances(context.instances())
             .setGroup(context.group())
+            .setReplayMemory(context.replayMemory())
             .setMain(context.main())
             .setWorker(context.isWorker())
             .setMultiThreaded(context.isMultiThreaded())
@@ -214,6 +215,17 @@ public class DefaultVerticleContext extends DefaultComponentContext<VerticleCont
       return this;
     }
 
+    /**
+     * Sets the maximum direct memory each instance may use for message replay.
+     *
+     * @param bytes The maximum number of bytes of direct memory per instance.
+     * @return The context builder.
+     */
+    public Builder setReplayMemory(long bytes) {
+      context.replayMemory = bytes;
+      return this;
+    }
+
     /**
      * Sets the component instance contexts.
      *
@@ -17,8 +17,10 @@ package net.kuujo.vertigo.impl;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import net.kuujo.vertigo.component.ComponentConfig;
@@ -31,6 +33,7 @@ import net.kuujo.vertigo.component.impl.DefaultModuleContext;
 import net.kuujo.vertigo.component.impl.DefaultVerticleContext;
 import net.kuujo.vertigo.hook.IOHook;
 import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.connection.OutputConnectionContext;
 import net.kuujo.vertigo.io.connection.impl.DefaultConnectionContext;
 import net.kuujo.vertigo.io.connection.impl.DefaultInputConnectionContext;
 import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnectionContext;
@@ -38,6 +41,7 @@ import net.kuujo.vertigo.io.impl.DefaultInputContext;
 import net.kuujo.vertigo.io.impl.DefaultOutputContext;
 import net.kuujo.vertigo.io.port.InputPortContext;
 import net.kuujo.vertigo.io.port.OutputPortContext;
+import net.kuujo.vertigo.io.stream.OutputStreamContext;
 import net.kuujo.vertigo.io.port.impl.DefaultInputPortContext;
 import net.kuujo.vertigo.io.port.impl.DefaultOutputPortContext;
 import net.kuujo.vertigo.io.stream.impl.DefaultOutputStreamContext;
@@ -63,6 +67,26 @@ public final class ContextBuilder {
    * @throws MalformedNetworkException If the network is malformed.
    */
   public static NetworkContext buildContext(NetworkConfig network, String cluster) {
+    return buildContext(network, cluster, null);
+  }
+
+  /**
+   * Builds a network context from a network definition, preserving the
+   * multiplexed channel IDs of the currently running network.<p>
+   *
+   * Connections that already exist in the current context keep their channel
+   * IDs, and no ID that's in use in the current context is assigned to a new
+   * connection, so connections that keep running while the network is updated
+   * are never confused with new connections on the same channel.
+   *
+   * @param network The network definition.
+   * @param cluster The cluster to which the network belongs.
+   * @param current The context of the running network, or <code>null</code> if
+   *        the network is not running.
+   * @return A new network context.
+   * @throws MalformedNetworkException If the network is malformed.
+   */
+  public static NetworkContext buildContext(NetworkConfig network, String cluster, NetworkContext current) {
     DefaultNetworkContext.Builder context = DefaultNetworkContext.Builder.newBuilder();
 
     // Set basic network configuration options.
@@ -87,6 +111,7 @@ public final class ContextBuilder {
         module.setModule(((ModuleConfig) component).getModule());
         module.setConfig(component.getConfig());
         module.setGroup(component.getGroup());
+        module.setReplayMemory(component.getReplayMemory());
         module.setHooks(component.getHooks());
 
         // Set up module instances.
@@ -115,6 +140,7 @@ public final class ContextBuilder {
         verticle.setMultiThreaded(((VerticleConfig) component).isMultiThreaded());
         verticle.setConfig(component.getConfig());
         verticle.setGroup(component.getGroup());
+        verticle.setReplayMemory(component.getReplayMemory());
         verticle.setHooks(component.getHooks());
 
         // Set up module instances.
@@ -142,7 +168,16 @@ public final class ContextBuilder {
     // connection only listens on a single event bus address for messages from a
     // single instance of the source component. This simplifies back pressure and
     // resolving ordering issues in many-to-many component relationships.
+    Map<String, Set<Integer>> channels = new HashMap<>();
+    Map<String, Integer> channelIds = new HashMap<>();
+    if (current != null) {
+      reserveChannelIds(current, channels, channelIds);
+    }
     for (ConnectionConfig connection : network.getConnections()) {
+      // Codecs registered on the connection override codecs registered on the network.
+      Map<String, String> codecs = new HashMap<>(network.getCodecs());
+      codecs.putAll(connection.getCodecs());
+
       ComponentContext<?> source = components.get(connection.getSource().getComponent());
       ComponentContext<?> target = components.get(connection.getTarget().getComponent());
 
@@ -202,6 +237,31 @@ public final class ContextBuilder {
             DefaultInputConnectionContext.Builder inConnection = DefaultInputConnectionContext.Builder.newBuilder();
             String address = String.format("out:%s@%s.%s.%s[%d]->in:%s@%s.%s.%s[%d]", connection.getSource().getPort(), cluster, network.getName(), source.name(), sourceInstance.number(), connection.getTarget().getPort(), cluster, network.getName(), target.name(), targetInstance.number());
             inConnection.setAddress(address);
+
+            // Multiplexed connections share a channel with all other multiplexed
+            // connections between the same source and target instances. Connections
+            // are identified on the channel by an ID derived from their address. If
+            // the ID is already taken on the channel then the next free ID is used,
+            // and connections in the running network keep the ID they already have.
+            String channel = null;
+            int channelId = 0;
+            if (connection.isMultiplex()) {
+              channel = String.format("mux:%s->%s", sourceInstance.address(), targetInstance.address());
+              Set<Integer> ids = channels.get(channel);
+              if (ids == null) {
+                ids = new HashSet<>();
+                channels.put(channel, ids);
+              }
+              Integer id = channelIds.get(address);
+              if (id == null) {
+                id = address.hashCode();
+                while (ids.contains(id)) {
+                  id++;
+                }
+                ids.add(id);
+              }
+              channelId = id;
+            }
             inConnection.setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
                 .setComponent(connection.getSource().getComponent())
                 .setPort(connection.getSource().getPort())
@@ -210,6 +270,17 @@ public final class ContextBuilder {
                 .setComponent(connection.getTarget().getComponent())
                 .setPort(connection.getTarget().getPort())
                 .setInstance(targetInstance.number()).build());
+            inConnection.setFormat(connection.getFormat());
+            inConnection.setCreditWindow(connection.getCreditWindow());
+            inConnection.setReorderWindow(connection.getReorderWindow());
+            inConnection.setDedupWindow(connection.getDedupWindow());
+            inConnection.setAckPolicy(connection.getAckPolicy());
+            inConnection.setLocalDelivery(connection.isLocalDelivery());
+            inConnection.setTransport(connection.getTransport());
+            inConnection.setDeliveryMode(connection.getDeliveryMode());
+            inConnection.setChannel(channel);
+            inConnection.setChannelId(channelId);
+            inConnection.setCodecs(codecs);
 
             // Add input level hooks to the input.
             inConnection.setHooks(connection.getTarget().getHooks());
@@ -233,6 +304,25 @@ public final class ContextBuilder {
             outConnection.setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
                 .setComponent(connection.getTarget().getComponent())
                 .setPort(connection.getTarget().getPort()).build());
+            outConnection.setFormat(connection.getFormat());
+            outConnection.setCreditWindow(connection.getCreditWindow());
+            outConnection.setCoalesceSize(connection.getCoalesceSize());
+            outConnection.setCoalesceDelay(connection.getCoalesceDelay());
+            outConnection.setReplayStorage(connection.getReplayStorage());
+            outConnection.setReplayMemory(connection.getReplayMemory());
+            outConnection.setSpillDirectory(connection.getSpillDirectory());
+            outConnection.setLocalDelivery(connection.isLocalDelivery());
+            outConnection.setCopyPolicy(connection.getCopyPolicy());
+            outConnection.setTransport(connection.getTransport());
+            outConnection.setCompression(connection.getCompression());
+            outConnection.setCompressionThreshold(connection.getCompressionThreshold());
+            outConnection.setDeliveryMode(connection.getDeliveryMode());
+            outConnection.setLazyOpen(connection.isLazyOpen());
+            outConnection.setPreOpenBuffer(connection.getPreOpenBuffer());
+            outConnection.setChannel(channel);
+            outConnection.setChannelId(channelId);
+            outConnection.setCodecs(codecs);
+            outConnection.setSerializationMode(connection.getSerializationMode());
 
             // Add output level hooks to the output.
             outConnection.setHooks(connection.getSource().getHooks());
@@ -255,4 +345,29 @@ public final class ContextBuilder {
     return context.build();
   }
 
+  /**
+   * Reserves the multiplexed channel IDs in use by a network context.
+   */
+  private static void reserveChannelIds(NetworkContext context, Map<String, Set<Integer>> channels, Map<String, Integer> channelIds) {
+    for (ComponentContext<?> component : context.components()) {
+      for (InstanceContext instance : component.instances()) {
+        for (OutputPortContext port : instance.output().ports()) {
+          for (OutputStreamContext stream : port.streams()) {
+            for (OutputConnectionContext connection : stream.connections()) {
+              if (connection.channel() != null) {
+                Set<Integer> ids = channels.get(connection.channel());
+                if (ids == null) {
+                  ids = new HashSet<>();
+                  channels.put(connection.channel(), ids);
+                }
+                ids.add(connection.channelId());
+                channelIds.put(connection.address(), connection.channelId());
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
 }
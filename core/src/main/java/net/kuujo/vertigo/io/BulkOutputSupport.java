@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io;
+
+import java.util.Collection;
+
+/**
+ * Support for sending messages in bulk.<p>
+ *
+ * Sending messages in bulk selects target connections for all messages
+ * at once and hands each connection its share of the messages in a single
+ * chunk. Messages are sent in iteration order, so messages sent to the
+ * same connection are received in the same order as if they'd been sent
+ * one at a time.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <T> The type to which the support belongs.
+ */
+public interface BulkOutputSupport<T extends BulkOutputSupport<T>> {
+
+  /**
+   * Sends a collection of messages.
+   *
+   * @param messages The messages to send.
+   * @return The called object.
+   */
+  T sendAll(Collection<?> messages);
+
+  /**
+   * Sends an array of messages.
+   *
+   * @param messages The messages to send.
+   * @return The called object.
+   */
+  T sendAll(Object[] messages);
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io;
+
+/**
+ * Message received by a lazy message handler.<p>
+ *
+ * A lazy message keeps the encoded form in which it was received and only
+ * decodes the value when {@link #value()} is first called. Lazy messages
+ * can be sent on any output just like their values. When the encoded form
+ * can be written directly by the output connection it is sent without being
+ * decoded and encoded again, so components that forward most messages
+ * unchanged avoid the cost of deserializing and serializing them.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface LazyMessage {
+
+  /**
+   * Returns the message value, decoding it if necessary.
+   *
+   * @return The message value.
+   */
+  <T> T value();
+
+  /**
+   * Indicates whether the message value has been decoded.
+   *
+   * @return Indicates whether the message value has been decoded.
+   */
+  boolean isDecoded();
+
+}
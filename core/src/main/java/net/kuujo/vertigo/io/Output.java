@@ -84,7 +84,10 @@ public interface Output<T extends Output<T>> extends OutputGroupSupport<T> {
   T drainHandler(Handler<Void> handler);
 
   /**
-   * Sends a message on the output.
+   * Sends a message on the output.<p>
+   *
+   * A {@link LazyMessage} is sent in the encoded form in which it was
+   * received whenever the target connection can read that form.
    *
    * @param message The message to send.
    * @return The output.
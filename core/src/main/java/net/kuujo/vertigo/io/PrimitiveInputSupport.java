@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io;
+
+/**
+ * Support for handling primitive messages.<p>
+ *
+ * Primitive handlers receive messages of their exact type without
+ * boxing them. Primitive values sent on binary connections are read
+ * directly from the message frame. Messages that don't match a
+ * registered primitive handler are passed to the message handler.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <T> The type to which the support belongs.
+ */
+public interface PrimitiveInputSupport<T extends PrimitiveInputSupport<T>> {
+
+  /**
+   * Registers a handler for <code>int</code> messages.
+   *
+   * @param handler An <code>int</code> message handler.
+   * @return The called object.
+   */
+  T intHandler(IntHandler handler);
+
+  /**
+   * Registers a handler for <code>long</code> messages.
+   *
+   * @param handler A <code>long</code> message handler.
+   * @return The called object.
+   */
+  T longHandler(LongHandler handler);
+
+  /**
+   * Registers a handler for <code>float</code> messages.
+   *
+   * @param handler A <code>float</code> message handler.
+   * @return The called object.
+   */
+  T floatHandler(FloatHandler handler);
+
+  /**
+   * Registers a handler for <code>double</code> messages.
+   *
+   * @param handler A <code>double</code> message handler.
+   * @return The called object.
+   */
+  T doubleHandler(DoubleHandler handler);
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io;
+
+/**
+ * Support for sending primitive messages.<p>
+ *
+ * Primitive messages sent on binary connections are encoded directly
+ * into the message frame without boxing them. On other connections
+ * primitive messages are sent as their boxed types.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <T> The type to which the support belongs.
+ */
+public interface PrimitiveOutputSupport<T extends PrimitiveOutputSupport<T>> {
+
+  /**
+   * Sends a <code>byte</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(byte message);
+
+  /**
+   * Sends a <code>short</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(short message);
+
+  /**
+   * Sends a <code>char</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(char message);
+
+  /**
+   * Sends a <code>int</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(int message);
+
+  /**
+   * Sends a <code>long</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(long message);
+
+  /**
+   * Sends a <code>float</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(float message);
+
+  /**
+   * Sends a <code>double</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(double message);
+
+  /**
+   * Sends a <code>boolean</code> message.
+   *
+   * @param message The message to send.
+   * @return The called object.
+   */
+  T send(boolean message);
+
+}
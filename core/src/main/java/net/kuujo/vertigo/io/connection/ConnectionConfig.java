@@ -16,6 +16,7 @@
 package net.kuujo.vertigo.io.connection;
 
 import java.util.List;
+import java.util.Map;
 
 import net.kuujo.vertigo.Config;
 import net.kuujo.vertigo.hook.IOHook;
@@ -23,6 +24,7 @@ import net.kuujo.vertigo.hook.InputHook;
 import net.kuujo.vertigo.hook.OutputHook;
 import net.kuujo.vertigo.io.connection.impl.DefaultConnectionConfig;
 import net.kuujo.vertigo.io.selector.Selector;
+import net.kuujo.vertigo.util.serialization.MessageCodec;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -73,6 +75,150 @@ public interface ConnectionConfig extends Config<ConnectionConfig> {
    */
   public static final String CONNECTION_SELECTOR = "selector";
 
+  /**
+   * <code>format</code> is a string indicating the format in which messages are framed
+   * on the connection, either <code>json</code> or <code>binary</code>. Defaults to
+   * <code>json</code>. The <code>binary</code> format sends each message as a single
+   * buffer with a compact header rather than as a JSON envelope.
+   */
+  public static final String CONNECTION_FORMAT = "format";
+
+  /**
+   * <code>coalesceSize</code> is a number indicating the maximum number of messages
+   * to pack into a single event bus frame. Defaults to <code>0</code>, meaning messages
+   * are not coalesced and each message is sent individually.
+   */
+  public static final String CONNECTION_COALESCE_SIZE = "coalesceSize";
+
+  /**
+   * <code>coalesceDelay</code> is a number indicating the maximum time in milliseconds
+   * for which a coalesced frame may linger before it's sent, even if it has not reached
+   * the <code>coalesceSize</code>. Defaults to <code>1</code>. If the delay is <code>0</code>
+   * then frames are sent once the current event loop tick completes.
+   */
+  public static final String CONNECTION_COALESCE_DELAY = "coalesceDelay";
+
+  /**
+   * <code>replayStorage</code> is a string indicating where unacknowledged messages are
+   * stored until they're acked, either <code>heap</code> or <code>direct</code>. Defaults
+   * to <code>heap</code>. The <code>direct</code> storage stores serialized messages in
+   * pooled direct memory slabs outside of the Java heap.
+   */
+  public static final String CONNECTION_REPLAY_STORAGE = "replayStorage";
+
+  /**
+   * <code>replayMemory</code> is a number indicating the maximum number of bytes of direct
+   * memory the connection may use to store unacknowledged messages. This applies only to
+   * <code>direct</code> replay storage. Defaults to <code>0</code>, meaning the connection
+   * is limited only by the component instance's replay memory.
+   */
+  public static final String CONNECTION_REPLAY_MEMORY = "replayMemory";
+
+  /**
+   * <code>spillDirectory</code> is a string indicating a local directory to which
+   * messages are spilled when the connection's send queue is full. If no directory
+   * is provided then messages are not spilled to disk.
+   */
+  public static final String CONNECTION_SPILL_DIRECTORY = "spillDirectory";
+
+  /**
+   * <code>creditWindow</code> is a number indicating the number of message credits the
+   * target grants the source for credit based flow control. Defaults to <code>0</code>,
+   * meaning credit based flow control is disabled.
+   */
+  public static final String CONNECTION_CREDIT_WINDOW = "creditWindow";
+
+  /**
+   * <code>reorderWindow</code> is a number indicating the number of out of order messages
+   * the target holds while waiting for missing messages to be resent. Defaults to
+   * <code>0</code>, meaning out of order messages cause all following messages to be resent.
+   */
+  public static final String CONNECTION_REORDER_WINDOW = "reorderWindow";
+
+  /**
+   * <code>dedupWindow</code> is a number indicating the number of recently handled message
+   * IDs the target remembers in order to suppress redelivered messages. Defaults to
+   * <code>0</code>, meaning redelivered messages are not suppressed.
+   */
+  public static final String CONNECTION_DEDUP_WINDOW = "dedupWindow";
+
+  /**
+   * <code>ackPolicy</code> is a string indicating how often the target acks messages,
+   * either <code>adaptive</code> or <code>fixed</code>. Defaults to <code>adaptive</code>.
+   */
+  public static final String CONNECTION_ACK_POLICY = "ackPolicy";
+
+  /**
+   * <code>localDelivery</code> is a boolean indicating whether messages are handed directly
+   * to targets deployed in the same Vert.x instance rather than sent over the event bus.
+   * Defaults to <code>false</code>.
+   */
+  public static final String CONNECTION_LOCAL_DELIVERY = "localDelivery";
+
+  /**
+   * <code>copyPolicy</code> is a string indicating how mutable messages are handed to local
+   * targets, either <code>copy</code> or <code>reference</code>. Defaults to <code>copy</code>.
+   */
+  public static final String CONNECTION_COPY_POLICY = "copyPolicy";
+
+  /**
+   * <code>transport</code> is a string indicating the transport over which messages are
+   * sent, either <code>eventbus</code> or <code>tcp</code>. Defaults to <code>eventbus</code>.
+   */
+  public static final String CONNECTION_TRANSPORT = "transport";
+
+  /**
+   * <code>compression</code> is a string indicating how frames are compressed before
+   * they're sent, either <code>none</code> or <code>deflate</code>. Defaults to <code>none</code>.
+   */
+  public static final String CONNECTION_COMPRESSION = "compression";
+
+  /**
+   * <code>compressionThreshold</code> is a number indicating the minimum size in bytes
+   * of a frame to be compressed. Defaults to <code>1024</code>.
+   */
+  public static final String CONNECTION_COMPRESSION_THRESHOLD = "compressionThreshold";
+
+  /**
+   * <code>deliveryMode</code> is a string indicating the delivery guarantee of the
+   * connection, either <code>at-least-once</code> or <code>at-most-once</code>. Defaults
+   * to <code>at-least-once</code>.
+   */
+  public static final String CONNECTION_DELIVERY_MODE = "deliveryMode";
+
+  /**
+   * <code>lazyOpen</code> is a boolean indicating whether the source opens the connection
+   * in the background rather than waiting for it to open on start. Defaults to <code>false</code>.
+   */
+  public static final String CONNECTION_LAZY_OPEN = "lazyOpen";
+
+  /**
+   * <code>preOpenBuffer</code> is a number indicating the maximum number of messages held
+   * by a lazily opened connection until it opens. Defaults to <code>100</code>.
+   */
+  public static final String CONNECTION_PRE_OPEN_BUFFER = "preOpenBuffer";
+
+  /**
+   * <code>multiplex</code> is a boolean indicating whether the connection shares a single
+   * event bus address pair with all other connections between the same component instances.
+   * Defaults to <code>false</code>.
+   */
+  public static final String CONNECTION_MULTIPLEX = "multiplex";
+
+  /**
+   * <code>codecs</code> is an object mapping message type class names to the
+   * class names of the {@link MessageCodec} with which to encode them. Codecs
+   * registered on the connection override codecs registered on the network.
+   */
+  public static final String CONNECTION_CODECS = "codecs";
+
+  /**
+   * <code>serializationMode</code> is a string indicating how messages without a codec
+   * are serialized, either <code>standard</code> or <code>session</code>. Defaults to
+   * <code>standard</code>.
+   */
+  public static final String CONNECTION_SERIALIZATION_MODE = "serializationMode";
+
   /**
    * Returns the connection source.
    *
@@ -160,6 +306,721 @@ public interface ConnectionConfig extends Config<ConnectionConfig> {
    */
   ConnectionConfig customSelect(Selector selector);
 
+  /**
+   * Sets the connection message format.
+   *
+   * @param format The format in which to frame messages on the connection.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setFormat(Format format);
+
+  /**
+   * Returns the connection message format.
+   *
+   * @return The format in which messages are framed on the connection.
+   */
+  Format getFormat();
+
+  /**
+   * Sets the maximum number of messages to coalesce into a single frame.<p>
+   *
+   * When coalescing is enabled, messages sent on the connection are packed
+   * into a single event bus frame which is sent once either the coalesce size
+   * or the coalesce delay is reached. The receiving side of the connection
+   * unpacks the frame and handles each message in order. Coalescing can
+   * significantly increase throughput for small messages.
+   *
+   * @param size The maximum number of messages per frame. A size of <code>0</code>
+   *        or <code>1</code> disables coalescing.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setCoalesceSize(int size);
+
+  /**
+   * Returns the maximum number of messages to coalesce into a single frame.
+   *
+   * @return The maximum number of messages per frame.
+   */
+  int getCoalesceSize();
+
+  /**
+   * Sets the maximum time for which a coalesced frame may linger before it's sent.
+   *
+   * @param delay The maximum frame delay in milliseconds.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setCoalesceDelay(long delay);
+
+  /**
+   * Returns the maximum time for which a coalesced frame may linger before it's sent.
+   *
+   * @return The maximum frame delay in milliseconds.
+   */
+  long getCoalesceDelay();
+
+  /**
+   * Sets the storage for unacknowledged messages.<p>
+   *
+   * By default, messages are held on the heap until they're acknowledged by
+   * the other side of the connection. With <code>DIRECT</code> storage the
+   * serialized messages are instead copied into pooled direct memory slabs,
+   * keeping the heap small when target components fall behind. If the
+   * connection or instance direct memory budget is exhausted then messages
+   * are held on the heap until direct memory is freed by acks.
+   *
+   * @param storage The replay storage.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setReplayStorage(Storage storage);
+
+  /**
+   * Returns the storage for unacknowledged messages.
+   *
+   * @return The replay storage.
+   */
+  Storage getReplayStorage();
+
+  /**
+   * Sets the maximum direct memory the connection may use for message replay.
+   *
+   * @param bytes The maximum number of bytes of direct memory. If <code>0</code>
+   *        then the connection is limited only by the instance replay memory.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setReplayMemory(long bytes);
+
+  /**
+   * Returns the maximum direct memory the connection may use for message replay.
+   *
+   * @return The maximum number of bytes of direct memory.
+   */
+  long getReplayMemory();
+
+  /**
+   * Sets the directory to which messages are spilled when the send queue is full.<p>
+   *
+   * Normally, once an output connection's send queue is full the connection
+   * indicates to the producer that it should stop sending messages until the
+   * queue is drained. When a spill directory is set, further messages are
+   * instead appended to memory mapped segment files in the directory and the
+   * connection never reports that its queue is full. Spilled messages are read
+   * back from disk and sent in order as the target acks messages, and each
+   * segment file is deleted once all of its messages have been sent.
+   *
+   * @param directory The local spill directory, or <code>null</code> to disable spilling.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setSpillDirectory(String directory);
+
+  /**
+   * Returns the directory to which messages are spilled when the send queue is full.
+   *
+   * @return The local spill directory, or <code>null</code> if spilling is disabled.
+   */
+  String getSpillDirectory();
+
+  /**
+   * Sets the credit window for credit based flow control.<p>
+   *
+   * When credit based flow control is enabled, the target side of the connection
+   * grants the source permission to send messages up to a given message ID. As the
+   * target processes messages it extends the grant to allow the source to send up
+   * to <code>window</code> messages ahead of the last message processed. The source
+   * holds any messages beyond the current grant in its send queue until more credit
+   * is granted, so the rate at which the target processes messages paces the source.
+   *
+   * @param window The number of message credits. A window of <code>0</code> disables
+   *        credit based flow control.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setCreditWindow(int window);
+
+  /**
+   * Returns the credit window for credit based flow control.
+   *
+   * @return The number of message credits.
+   */
+  int getCreditWindow();
+
+  /**
+   * Sets the reorder window for selective retransmission.<p>
+   *
+   * By default, when the target side of the connection receives a message out of
+   * order it discards the message and asks the source to resend all messages from
+   * the last message received in order. When a reorder window is set, the target
+   * instead holds messages that arrive up to <code>window</code> messages ahead of
+   * the last message received in order and asks the source to resend only the
+   * ranges of messages that are missing. Held messages are handled in order once
+   * the missing messages arrive.
+   *
+   * @param window The maximum number of messages to hold. A window of <code>0</code>
+   *        disables selective retransmission.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setReorderWindow(int window);
+
+  /**
+   * Returns the reorder window for selective retransmission.
+   *
+   * @return The maximum number of messages to hold.
+   */
+  int getReorderWindow();
+
+  /**
+   * Sets the deduplication window for redelivered messages.<p>
+   *
+   * Messages are resent whenever the source can't be sure the target received
+   * them, for instance when an ack is lost before the source replays its
+   * unacked messages. The target may then receive messages it has already
+   * handled. When a deduplication window is set, the target remembers the IDs
+   * of the last <code>window</code> messages it handled and silently drops
+   * any message it has already handled rather than passing it to handlers
+   * again. The window is kept when the target's connection is reopened, so
+   * messages replayed by the same source after a reconnect are also suppressed.
+   * The number of suppressed messages is available from the input connection.
+   *
+   * @param window The number of message IDs to remember. A window of <code>0</code>
+   *        disables deduplication.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setDedupWindow(int window);
+
+  /**
+   * Returns the deduplication window for redelivered messages.
+   *
+   * @return The number of message IDs to remember.
+   */
+  int getDedupWindow();
+
+  /**
+   * Sets the policy by which the target acks messages.<p>
+   *
+   * The target side of the connection periodically acks the messages it has
+   * received, allowing the source to remove them from its send queue. With the
+   * <code>ADAPTIVE</code> policy the target adapts how often it acks to the
+   * observed message rate, the round trip time to the source, and the size of
+   * the source's send queue. Messages are acked promptly at low rates, keeping
+   * the source's send queue small, and acked in larger batches at high rates,
+   * reducing ack traffic. The <code>FIXED</code> policy acks every 1000 messages
+   * and at least once per second.
+   *
+   * @param policy The ack policy.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setAckPolicy(AckPolicy policy);
+
+  /**
+   * Returns the policy by which the target acks messages.
+   *
+   * @return The ack policy.
+   */
+  AckPolicy getAckPolicy();
+
+  /**
+   * Sets whether messages are delivered directly to local targets.<p>
+   *
+   * When local delivery is enabled and the target instance is deployed in the
+   * same Vert.x instance as the source, the connection detects this when it's
+   * opened and hands messages directly to the target through an in memory queue
+   * which is drained on the target's context. Messages are neither serialized
+   * nor sent over the event bus. Immutable values are passed by reference, and
+   * mutable values are handled according to the connection's copy policy. Local
+   * delivery is not used if the connection spills messages to disk, or if the
+   * target was loaded by a class loader that can't see the source's classes, such
+   * as when the source is deployed as a separate module.
+   *
+   * @param enabled Whether to enable local delivery.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setLocalDelivery(boolean enabled);
+
+  /**
+   * Returns whether messages are delivered directly to local targets.
+   *
+   * @return Whether local delivery is enabled.
+   */
+  boolean isLocalDelivery();
+
+  /**
+   * Sets the policy by which mutable messages are handed to local targets.<p>
+   *
+   * With the <code>COPY</code> policy mutable values such as <code>JsonObject</code>,
+   * <code>Buffer</code> and <code>byte[]</code> are copied when they're sent, so
+   * the source may modify a message after sending it. With the <code>REFERENCE</code>
+   * policy all values are passed by reference, which avoids the copy but requires
+   * that neither side modifies a message once it's been sent.
+   *
+   * @param policy The copy policy.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setCopyPolicy(CopyPolicy policy);
+
+  /**
+   * Returns the policy by which mutable messages are handed to local targets.
+   *
+   * @return The copy policy.
+   */
+  CopyPolicy getCopyPolicy();
+
+  /**
+   * Sets the transport over which messages are sent.<p>
+   *
+   * By default messages are sent over the Vert.x event bus. With the <code>TCP</code>
+   * transport each target instance listens on a TCP server and each source instance
+   * keeps a single persistent socket to each target instance, over which all
+   * of its connections to that instance are multiplexed. Messages then bypass
+   * event bus address resolution and clustered routing entirely. Connection
+   * handshakes and acks are still sent over the event bus, and the connection
+   * falls back to the event bus if the socket can't be opened.
+   *
+   * @param transport The connection transport.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setTransport(Transport transport);
+
+  /**
+   * Returns the transport over which messages are sent.
+   *
+   * @return The connection transport.
+   */
+  Transport getTransport();
+
+  /**
+   * Sets the compression applied to frames before they're sent.<p>
+   *
+   * Compression is applied to each frame sent to the other side of the
+   * connection rather than to each message, so when coalescing is enabled
+   * a whole frame of messages is compressed at once. Frames smaller than the
+   * compression threshold and frames that don't shrink when compressed are sent
+   * uncompressed. Compression is not applied to messages delivered locally.
+   *
+   * @param compression The frame compression.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setCompression(Compression compression);
+
+  /**
+   * Returns the compression applied to frames before they're sent.
+   *
+   * @return The frame compression.
+   */
+  Compression getCompression();
+
+  /**
+   * Sets the minimum size of a frame to be compressed.
+   *
+   * @param threshold The minimum frame size in bytes.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setCompressionThreshold(int threshold);
+
+  /**
+   * Returns the minimum size of a frame to be compressed.
+   *
+   * @return The minimum frame size in bytes.
+   */
+  int getCompressionThreshold();
+
+  /**
+   * Sets the connection delivery mode.<p>
+   *
+   * By default connections guarantee that messages are delivered in order at
+   * least once. Each message is held by the source until it's acked and is
+   * resent if it's lost. With the <code>AT_MOST_ONCE</code> mode messages are
+   * sent once and never stored, acked or resent, and the target handles them
+   * without checking for gaps. Lost messages are not detected, and messages
+   * sent while the target has paused the connection are dropped. Pausing the
+   * target still marks the connection as full, so sources that respect
+   * <code>sendQueueFull()</code> continue to apply backpressure. This is
+   * intended for streams such as metrics where occasional loss is acceptable.
+   * Credit based flow control and the reorder window are not used in this mode.
+   *
+   * @param mode The delivery mode.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setDeliveryMode(DeliveryMode mode);
+
+  /**
+   * Returns the connection delivery mode.
+   *
+   * @return The delivery mode.
+   */
+  DeliveryMode getDeliveryMode();
+
+  /**
+   * Sets whether the connection is opened lazily.<p>
+   *
+   * By default a component doesn't start until all of its output connections
+   * have been opened, which can take a while for components with a large
+   * fan-out. When lazy opening is enabled the connection is opened in the
+   * background and the component starts without waiting for it. Messages sent
+   * on the connection before it opens are held in a bounded pre-open buffer
+   * and sent once the connection opens. The connection reports its send queue
+   * as full while the pre-open buffer is full. With the <code>AT_MOST_ONCE</code>
+   * delivery mode messages aren't buffered, so the connection reports its send
+   * queue as full until it opens.
+   *
+   * @param enabled Whether to open the connection lazily.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setLazyOpen(boolean enabled);
+
+  /**
+   * Returns whether the connection is opened lazily.
+   *
+   * @return Whether the connection is opened lazily.
+   */
+  boolean isLazyOpen();
+
+  /**
+   * Sets the maximum number of messages held by a lazily opened connection
+   * until it opens.
+   *
+   * @param size The pre-open buffer size.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setPreOpenBuffer(int size);
+
+  /**
+   * Returns the maximum number of messages held by a lazily opened connection
+   * until it opens.
+   *
+   * @return The pre-open buffer size.
+   */
+  int getPreOpenBuffer();
+
+  /**
+   * Sets whether the connection is multiplexed.<p>
+   *
+   * By default each connection between a source instance and a target instance
+   * registers its own pair of event bus handlers. When multiplexing is enabled
+   * all multiplexed connections between the same pair of instances share a
+   * single event bus address on each side, and each message carries a small
+   * connection ID which is used to dispatch it to its connection. This reduces
+   * the number of event bus registrations for networks with many ports and
+   * instances. Connection IDs are derived from the connection address and are
+   * unique for each pair of instances. A connection keeps its ID for as long as
+   * the network is running, even when other connections are added or removed.
+   *
+   * @param enabled Whether to multiplex the connection.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setMultiplex(boolean enabled);
+
+  /**
+   * Returns whether the connection is multiplexed.
+   *
+   * @return Whether the connection is multiplexed.
+   */
+  boolean isMultiplex();
+
+  /**
+   * Registers a message codec on the connection.<p>
+   *
+   * By default message values that aren't supported by the event bus are sent
+   * using Java serialization, which is slow and produces large messages. When a
+   * codec is registered for a type, values of exactly that type are encoded by
+   * the codec instead, and the codec ID is sent with the message so the other
+   * side of the connection can decode it with the same codec. Both sides of the
+   * connection must be able to load the type and codec classes. Codecs registered
+   * on the connection override codecs registered on the network.
+   *
+   * @param type The message type.
+   * @param codec The codec with which to encode messages of the type.
+   * @return The connection configuration.
+   */
+  @SuppressWarnings("rawtypes")
+  ConnectionConfig addCodec(Class<?> type, Class<? extends MessageCodec> codec);
+
+  /**
+   * Removes a message codec from the connection.
+   *
+   * @param type The message type.
+   * @return The connection configuration.
+   */
+  ConnectionConfig removeCodec(Class<?> type);
+
+  /**
+   * Returns the message codecs registered on the connection.
+   *
+   * @return A map of message type class names to codec class names.
+   */
+  Map<String, String> getCodecs();
+
+  /**
+   * Sets the mode in which messages without a codec are serialized.<p>
+   *
+   * Messages that aren't event bus types and have no registered codec are sent
+   * using Java serialization. With the <code>STANDARD</code> mode every message
+   * carries the full class descriptors of the serialized object graph. With the
+   * <code>SESSION</code> mode the full descriptor of each class is only sent the
+   * first time the class is sent on the connection, and subsequent messages
+   * reference it by a small ID. This produces much smaller messages which are
+   * faster to decode. Since the target keeps the sender's descriptors, classes
+   * are matched by field name just as with standard serialization. Connections
+   * with the <code>AT_MOST_ONCE</code> delivery mode always use the
+   * <code>STANDARD</code> mode since a lost message may define a descriptor.
+   *
+   * @param mode The serialization mode.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setSerializationMode(SerializationMode mode);
+
+  /**
+   * Returns the mode in which messages without a codec are serialized.
+   *
+   * @return The serialization mode.
+   */
+  SerializationMode getSerializationMode();
+
+  /**
+   * Connection message format.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum Format {
+    JSON("json"),
+    BINARY("binary");
+
+    private final String name;
+
+    private Format(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the format name.
+     *
+     * @return The format name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Connection replay storage.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum Storage {
+    HEAP("heap"),
+    DIRECT("direct");
+
+    private final String name;
+
+    private Storage(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the storage name.
+     *
+     * @return The storage name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Connection ack policy.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum AckPolicy {
+    ADAPTIVE("adaptive"),
+    FIXED("fixed");
+
+    private final String name;
+
+    private AckPolicy(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the policy name.
+     *
+     * @return The policy name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Local delivery copy policy.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum CopyPolicy {
+    COPY("copy"),
+    REFERENCE("reference");
+
+    private final String name;
+
+    private CopyPolicy(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the policy name.
+     *
+     * @return The policy name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Connection transport.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum Transport {
+    EVENT_BUS("eventbus"),
+    TCP("tcp");
+
+    private final String name;
+
+    private Transport(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the transport name.
+     *
+     * @return The transport name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Frame compression.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum Compression {
+    NONE("none"),
+    DEFLATE("deflate");
+
+    private final String name;
+
+    private Compression(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the compression name.
+     *
+     * @return The compression name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Connection delivery mode.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum DeliveryMode {
+    AT_LEAST_ONCE("at-least-once"),
+    AT_MOST_ONCE("at-most-once");
+
+    private final String name;
+
+    private DeliveryMode(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the delivery mode name.
+     *
+     * @return The delivery mode name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
+  /**
+   * Connection serialization mode.
+   *
+   * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+   */
+  public static enum SerializationMode {
+    STANDARD("standard"),
+    SESSION("session");
+
+    private final String name;
+
+    private SerializationMode(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Returns the serialization mode name.
+     *
+     * @return The serialization mode name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+  }
+
   /**
    * Connection source.
    *
@@ -15,6 +15,8 @@
  */
 package net.kuujo.vertigo.io.connection;
 
+import java.util.Map;
+
 import net.kuujo.vertigo.Context;
 import net.kuujo.vertigo.io.connection.impl.DefaultConnectionContext;
 
@@ -43,6 +45,65 @@ public interface ConnectionContext<T extends ConnectionContext<T>> extends Conte
    */
   TargetContext target();
 
+  /**
+   * Returns the connection message format.
+   *
+   * @return The format in which messages are framed on the connection.
+   */
+  ConnectionConfig.Format format();
+
+  /**
+   * Returns the credit window for credit based flow control.
+   *
+   * @return The number of message credits. If <code>0</code> then credit
+   *         based flow control is disabled.
+   */
+  int creditWindow();
+
+  /**
+   * Returns whether messages are delivered directly to local targets.
+   *
+   * @return Whether local delivery is enabled.
+   */
+  boolean localDelivery();
+
+  /**
+   * Returns the transport over which messages are sent.
+   *
+   * @return The connection transport.
+   */
+  ConnectionConfig.Transport transport();
+
+  /**
+   * Returns the connection delivery mode.
+   *
+   * @return The delivery mode.
+   */
+  ConnectionConfig.DeliveryMode deliveryMode();
+
+  /**
+   * Returns the multiplexed channel over which the connection is carried.
+   *
+   * @return The channel address, or <code>null</code> if the connection
+   *         isn't multiplexed.
+   */
+  String channel();
+
+  /**
+   * Returns the ID of the connection on its multiplexed channel.
+   *
+   * @return The connection's channel ID. IDs are unique among the connections
+   *         carried over the same channel.
+   */
+  int channelId();
+
+  /**
+   * Returns the message codecs used by the connection.
+   *
+   * @return A map of message type class names to codec class names.
+   */
+  Map<String, String> codecs();
+
   /**
    * Connection endpoint context.
    *
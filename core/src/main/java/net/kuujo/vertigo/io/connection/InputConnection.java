@@ -15,7 +15,11 @@
  */
 package net.kuujo.vertigo.io.connection;
 
+import java.util.List;
+
 import net.kuujo.vertigo.io.Input;
+import net.kuujo.vertigo.io.LazyMessage;
+import net.kuujo.vertigo.io.PrimitiveInputSupport;
 import net.kuujo.vertigo.io.batch.InputBatch;
 import net.kuujo.vertigo.io.batch.InputBatchSupport;
 import net.kuujo.vertigo.io.group.InputGroupSupport;
@@ -40,7 +44,7 @@ import org.vertx.java.core.Handler;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public interface InputConnection extends Connection<InputConnection>, Input<InputConnection>, InputGroupSupport<InputConnection>, InputBatchSupport<InputConnection> {
+public interface InputConnection extends Connection<InputConnection>, Input<InputConnection>, InputGroupSupport<InputConnection>, InputBatchSupport<InputConnection>, PrimitiveInputSupport<InputConnection> {
 
   /**
    * Returns the input connection context.
@@ -57,4 +61,41 @@ public interface InputConnection extends Connection<InputConnection>, Input<Inpu
    */
   InputConnection batchHandler(Handler<InputBatch> handler);
 
+  /**
+   * Registers a lazy message handler on the connection.<p>
+   *
+   * Lazy messages keep the encoded form in which they were received and
+   * are only decoded when their value is accessed. Forwarding a lazy message
+   * that was never decoded avoids deserializing and serializing it again.
+   * The lazy message handler replaces any registered message handler.
+   *
+   * @param handler A lazy message handler.
+   * @return The input connection.
+   */
+  InputConnection lazyMessageHandler(Handler<LazyMessage> handler);
+
+  /**
+   * Registers a bulk message handler on the connection.<p>
+   *
+   * The bulk message handler receives lists of up to <code>maxSize</code>
+   * messages. Messages are collected until the list is full or until all
+   * messages that are currently available have been received, so a single
+   * frame of coalesced messages is delivered in one call. The bulk message
+   * handler replaces any registered message handler.
+   *
+   * @param maxSize The maximum number of messages to pass to the handler at once.
+   * @param handler A bulk message handler.
+   * @return The input connection.
+   */
+  <U> InputConnection bulkMessageHandler(int maxSize, Handler<List<U>> handler);
+
+  /**
+   * Returns the number of redelivered messages suppressed by the connection's
+   * deduplication window.
+   *
+   * @return The number of suppressed messages. If deduplication is disabled
+   *         then no messages are suppressed.
+   */
+  long duplicates();
+
 }
@@ -51,4 +51,25 @@ public interface InputConnectionContext extends ConnectionContext<InputConnectio
    */
   List<InputHook> hooks();
 
+  /**
+   * Returns the reorder window for selective retransmission.
+   *
+   * @return The maximum number of out of order messages to hold.
+   */
+  int reorderWindow();
+
+  /**
+   * Returns the deduplication window for redelivered messages.
+   *
+   * @return The number of recently handled message IDs to remember.
+   */
+  int dedupWindow();
+
+  /**
+   * Returns the policy by which the connection acks messages.
+   *
+   * @return The ack policy.
+   */
+  ConnectionConfig.AckPolicy ackPolicy();
+
 }
@@ -15,7 +15,9 @@
  */
 package net.kuujo.vertigo.io.connection;
 
+import net.kuujo.vertigo.io.BulkOutputSupport;
 import net.kuujo.vertigo.io.Output;
+import net.kuujo.vertigo.io.PrimitiveOutputSupport;
 import net.kuujo.vertigo.io.connection.impl.ConnectionOutputBatch;
 import net.kuujo.vertigo.io.group.OutputGroupSupport;
 
@@ -45,7 +47,7 @@ import org.vertx.java.core.Handler;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public interface OutputConnection extends Connection<OutputConnection>, Output<OutputConnection>, OutputGroupSupport<OutputConnection> {
+public interface OutputConnection extends Connection<OutputConnection>, Output<OutputConnection>, OutputGroupSupport<OutputConnection>, PrimitiveOutputSupport<OutputConnection>, BulkOutputSupport<OutputConnection> {
 
   /**
    * Returns the output connection context.
@@ -51,4 +51,83 @@ public interface OutputConnectionContext extends ConnectionContext<OutputConnect
    */
   List<OutputHook> hooks();
 
+  /**
+   * Returns the maximum number of messages to coalesce into a single frame.
+   *
+   * @return The maximum number of messages per frame. If less than <code>2</code>
+   *         then messages are not coalesced.
+   */
+  int coalesceSize();
+
+  /**
+   * Returns the maximum time for which a coalesced frame may linger before it's sent.
+   *
+   * @return The maximum frame delay in milliseconds.
+   */
+  long coalesceDelay();
+
+  /**
+   * Returns the storage for unacknowledged messages.
+   *
+   * @return The replay storage.
+   */
+  ConnectionConfig.Storage replayStorage();
+
+  /**
+   * Returns the maximum direct memory the connection may use for message replay.
+   *
+   * @return The maximum number of bytes of direct memory.
+   */
+  long replayMemory();
+
+  /**
+   * Returns the directory to which messages are spilled when the send queue is full.
+   *
+   * @return The local spill directory, or <code>null</code> if spilling is disabled.
+   */
+  String spillDirectory();
+
+  /**
+   * Returns the policy by which mutable messages are handed to local targets.
+   *
+   * @return The copy policy.
+   */
+  ConnectionConfig.CopyPolicy copyPolicy();
+
+  /**
+   * Returns the compression applied to frames before they're sent.
+   *
+   * @return The frame compression.
+   */
+  ConnectionConfig.Compression compression();
+
+  /**
+   * Returns the minimum size of a frame to be compressed.
+   *
+   * @return The minimum frame size in bytes.
+   */
+  int compressionThreshold();
+
+  /**
+   * Returns whether the connection is opened lazily.
+   *
+   * @return Whether the connection is opened lazily.
+   */
+  boolean lazyOpen();
+
+  /**
+   * Returns the maximum number of messages held by a lazily opened connection
+   * until it opens.
+   *
+   * @return The pre-open buffer size.
+   */
+  int preOpenBuffer();
+
+  /**
+   * Returns the mode in which messages without a codec are serialized.
+   *
+   * @return The serialization mode.
+   */
+  ConnectionConfig.SerializationMode serializationMode();
+
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
+
+/**
+ * Input connection ack cadence.<p>
+ *
+ * The cadence determines how many messages an input connection may receive
+ * and how long it may wait before acking them. With the adaptive policy the
+ * cadence tracks the rate at which messages are received and the round trip
+ * time to the other side of the connection. Acks are batched so that the
+ * messages in flight during a round trip plus the messages awaiting an ack
+ * fit within the sender's send queue, and are delayed no longer than a couple
+ * of round trips so that the sender can free acked messages promptly when
+ * the rate is low.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class AckCadence {
+  private static final int DEFAULT_WINDOW = 1000;
+  private static final long FIXED_ACK_SIZE = 1000;
+  private static final long FIXED_ACK_DELAY = 1000;
+  // Ack deadlines are only checked on each feedback timer tick, so a
+  // shorter delay would be rounded up to the tick anyway.
+  private static final long MIN_ACK_DELAY = FeedbackTimer.INTERVAL;
+  private static final long MAX_ACK_DELAY = 1000;
+  private static final double WEIGHT = 0.25;
+  private final ConnectionConfig.AckPolicy policy;
+  private int window = DEFAULT_WINDOW;
+  private double rate;
+  private double roundTrip = 1;
+  private long lastSampleTime;
+  private long lastSampleCount;
+
+  public AckCadence(ConnectionConfig.AckPolicy policy) {
+    this.policy = policy;
+  }
+
+  /**
+   * Returns the ack policy.
+   *
+   * @return The ack policy.
+   */
+  public ConnectionConfig.AckPolicy policy() {
+    return policy;
+  }
+
+  /**
+   * Sets the size of the sender's send queue.
+   *
+   * @param window The maximum number of unacked messages the sender will hold.
+   */
+  public void setWindow(int window) {
+    this.window = window > 0 ? window : DEFAULT_WINDOW;
+  }
+
+  /**
+   * Returns the size of the sender's send queue.
+   *
+   * @return The maximum number of unacked messages the sender will hold.
+   */
+  public int window() {
+    return window;
+  }
+
+  /**
+   * Samples the message rate.
+   *
+   * @param time The current time in milliseconds.
+   * @param count The total number of messages received.
+   */
+  public void sampleRate(long time, long count) {
+    if (lastSampleTime > 0 && time > lastSampleTime) {
+      double sample = (double) (count - lastSampleCount) / (time - lastSampleTime);
+      rate += (sample - rate) * WEIGHT;
+    }
+    lastSampleTime = time;
+    lastSampleCount = count;
+  }
+
+  /**
+   * Returns the smoothed message rate.
+   *
+   * @return The number of messages received per millisecond.
+   */
+  public double rate() {
+    return rate;
+  }
+
+  /**
+   * Samples the round trip time.
+   *
+   * @param time The round trip time in milliseconds.
+   */
+  public void sampleRoundTrip(double time) {
+    roundTrip += (time - roundTrip) * WEIGHT;
+  }
+
+  /**
+   * Returns the smoothed round trip time.
+   *
+   * @return The round trip time in milliseconds.
+   */
+  public double roundTrip() {
+    return roundTrip;
+  }
+
+  /**
+   * Returns the number of messages after which received messages should be acked.
+   *
+   * @return The number of messages to receive between acks.
+   */
+  public long ackSize() {
+    if (policy == ConnectionConfig.AckPolicy.FIXED) {
+      return FIXED_ACK_SIZE;
+    }
+    // The sender can keep sending while an ack is in flight, so leave room
+    // in its window for the messages sent during a round trip and ack half
+    // of the remaining window at a time.
+    double inFlight = rate * roundTrip;
+    long size = (long) ((window - inFlight) / 2);
+    return Math.max(1, Math.min(size, window / 2));
+  }
+
+  /**
+   * Returns the maximum time for which received messages may go unacked.
+   *
+   * @return The maximum ack delay in milliseconds.
+   */
+  public long ackDelay() {
+    if (policy == ConnectionConfig.AckPolicy.FIXED) {
+      return FIXED_ACK_DELAY;
+    }
+    long delay = (long) (roundTrip * 2);
+    return Math.max(MIN_ACK_DELAY, Math.min(delay, MAX_ACK_DELAY));
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.kuujo.vertigo.io.DoubleHandler;
+import net.kuujo.vertigo.io.FloatHandler;
+import net.kuujo.vertigo.io.IntHandler;
+import net.kuujo.vertigo.io.LongHandler;
+import net.kuujo.vertigo.io.impl.DefaultLazyMessage;
+import net.kuujo.vertigo.io.impl.InputDeserializer;
+
+import org.vertx.java.core.buffer.Buffer;
+
+/**
+ * Binary message decoder.<p>
+ *
+ * Reads frames written by the {@link BinaryMessageEncoder}. The decoder
+ * reads fields sequentially from the current frame and tracks interned
+ * group and batch IDs so that they can be resolved for subsequent frames.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class BinaryMessageDecoder {
+  private final InputDeserializer deserializer;
+  private final Map<Integer, String> interned = new HashMap<>();
+  private Buffer frame;
+  private int position;
+  private int end;
+
+  public BinaryMessageDecoder() {
+    this(new InputDeserializer());
+  }
+
+  public BinaryMessageDecoder(InputDeserializer deserializer) {
+    this.deserializer = deserializer;
+  }
+
+  /**
+   * Begins reading a frame.
+   *
+   * @param frame The frame to read.
+   * @return The frame opcode.
+   */
+  public byte readFrame(Buffer frame) {
+    return readFrame(frame, 0, frame.length());
+  }
+
+  /**
+   * Begins reading a frame from a region of a buffer.
+   *
+   * @param buffer The buffer containing the frame.
+   * @param start The start position of the frame.
+   * @param end The end position of the frame.
+   * @return The frame opcode.
+   */
+  public byte readFrame(Buffer buffer, int start, int end) {
+    this.frame = buffer;
+    this.position = start;
+    this.end = end;
+    return frame.getByte(position++);
+  }
+
+  /**
+   * Reads an unsigned variable length long from the current frame.
+   *
+   * @return The long value.
+   */
+  public long readVarLong() {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = frame.getByte(position++);
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * Reads a nullable length prefixed string from the current frame.
+   *
+   * @return The string value.
+   */
+  public String readString() {
+    int length = (int) readVarLong();
+    if (length == 0) {
+      return null;
+    }
+    String value = frame.getString(position, position + length - 1, "UTF-8");
+    position += length - 1;
+    return value;
+  }
+
+  /**
+   * Reads a newly interned group or batch ID from the current frame.
+   *
+   * @return The group or batch ID.
+   */
+  public String readIntern() {
+    int intern = (int) readVarLong();
+    String id = readString();
+    interned.put(intern, id);
+    return id;
+  }
+
+  /**
+   * Reads a reference to an interned group or batch ID from the current frame.
+   *
+   * @return The group or batch ID, or <code>null</code> if the ID is unknown.
+   */
+  public String readInterned() {
+    return interned.get((int) readVarLong());
+  }
+
+  /**
+   * Reads and releases a reference to an interned group or batch ID from the current frame.
+   *
+   * @return The group or batch ID, or <code>null</code> if the ID is unknown.
+   */
+  public String readReleased() {
+    return interned.remove((int) readVarLong());
+  }
+
+  /**
+   * Reads the message value from the remainder of the current frame.
+   *
+   * @return The message value.
+   */
+  public Object readValue() {
+    return deserializer.deserialize(frame, position, end);
+  }
+
+  /**
+   * Reads a primitive message value from the remainder of the current frame
+   * and passes it to the matching handler without boxing it.
+   *
+   * @param intHandler The <code>int</code> handler, or <code>null</code>.
+   * @param longHandler The <code>long</code> handler, or <code>null</code>.
+   * @param floatHandler The <code>float</code> handler, or <code>null</code>.
+   * @param doubleHandler The <code>double</code> handler, or <code>null</code>.
+   * @return Indicates whether the value was passed to a handler.
+   */
+  public boolean readPrimitive(IntHandler intHandler, LongHandler longHandler, FloatHandler floatHandler, DoubleHandler doubleHandler) {
+    return deserializer.deserialize(frame, position, intHandler, longHandler, floatHandler, doubleHandler);
+  }
+
+  /**
+   * Reads the message value from the remainder of the current frame as a
+   * lazy message which is only decoded when its value is accessed.
+   *
+   * @return The lazy message, or <code>null</code> if the value is <code>null</code>.
+   */
+  public DefaultLazyMessage readLazyValue() {
+    return DefaultLazyMessage.create(frame.getBuffer(position, end), deserializer);
+  }
+
+  /**
+   * Clears all interned IDs.
+   */
+  public void reset() {
+    interned.clear();
+  }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.kuujo.vertigo.io.impl.OutputSerializer;
+
+import org.vertx.java.core.buffer.Buffer;
+
+/**
+ * Binary message encoder.<p>
+ *
+ * Encodes each message as a single {@link Buffer} frame. Each frame begins
+ * with a one byte opcode followed by the variable length encoded message ID.
+ * Group and batch IDs are interned when the group or batch is started, so
+ * the full ID is only sent once and subsequent messages reference the group
+ * or batch by a small variable length integer. The remainder of the frame
+ * is the binary serialized message value.<p>
+ *
+ * Coalesced frames begin with the {@link #FRAME} opcode followed by each
+ * encoded message, each prefixed with its four byte length.<p>
+ *
+ * The {@link #COMPRESSED} opcode is reserved for frames compressed by the
+ * {@link FrameCompressor}, the {@link #MULTIPLEXED} opcode for frames
+ * sent over a {@link Multiplexer}, and the {@link #RAW} opcode for binary
+ * values sent by the {@link JsonMessageEncoder}.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class BinaryMessageEncoder implements FrameEncoder {
+  public static final byte MESSAGE = 1;
+  public static final byte GROUP_START = 2;
+  public static final byte GROUP_MESSAGE = 3;
+  public static final byte GROUP_END = 4;
+  public static final byte BATCH_START = 5;
+  public static final byte BATCH_MESSAGE = 6;
+  public static final byte BATCH_END = 7;
+  public static final byte FRAME = 8;
+  public static final byte COMPRESSED = 9;
+  public static final byte MULTIPLEXED = 10;
+  public static final byte RAW = 11;
+  private static final int DEFAULT_FRAME_SIZE = 64;
+  private final OutputSerializer serializer;
+  private final Map<String, Integer> interned = new HashMap<>();
+  private int currentIntern;
+
+  public BinaryMessageEncoder() {
+    this(new OutputSerializer());
+  }
+
+  public BinaryMessageEncoder(OutputSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  /**
+   * Appends an unsigned variable length long to the buffer.
+   */
+  static Buffer appendVarLong(Buffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    return buffer.appendByte((byte) value);
+  }
+
+  /**
+   * Appends a nullable length prefixed string to the buffer.
+   */
+  static Buffer appendString(Buffer buffer, String value) {
+    if (value == null) {
+      return appendVarLong(buffer, 0);
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    appendVarLong(buffer, bytes.length + 1);
+    return buffer.appendBytes(bytes);
+  }
+
+  /**
+   * Creates a new frame with the given opcode and message ID.
+   */
+  private Buffer createFrame(byte opcode, long id) {
+    return appendVarLong(new Buffer(DEFAULT_FRAME_SIZE).appendByte(opcode), id);
+  }
+
+  /**
+   * Interns a group or batch ID.
+   */
+  private int intern(String id) {
+    int intern = ++currentIntern;
+    interned.put(id, intern);
+    return intern;
+  }
+
+  /**
+   * Returns the interned ID for a group or batch ID, or 0 if the ID is unknown.
+   */
+  private int interned(String id) {
+    if (id == null) {
+      return 0;
+    }
+    Integer intern = interned.get(id);
+    return intern != null ? intern : 0;
+  }
+
+  /**
+   * Releases an interned group or batch ID.
+   */
+  private int release(String id) {
+    Integer intern = interned.remove(id);
+    return intern != null ? intern : 0;
+  }
+
+  @Override
+  public Buffer encodeMessage(long id, Object value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>byte</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, byte value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>short</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, short value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>char</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, char value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>int</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, int value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>long</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, long value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>float</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, float value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>double</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, double value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  /**
+   * Encodes a <code>boolean</code> message without boxing it.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  public Buffer encodeMessage(long id, boolean value) {
+    return serializer.serialize(value, createFrame(MESSAGE, id));
+  }
+
+  @Override
+  public Buffer encodeGroupStart(long id, String group, String name, String parent, Object args) {
+    Buffer frame = createFrame(GROUP_START, id);
+    appendVarLong(frame, intern(group));
+    appendString(frame, group);
+    appendString(frame, name);
+    appendVarLong(frame, interned(parent));
+    return serializer.serialize(args, frame);
+  }
+
+  @Override
+  public Buffer encodeGroupMessage(long id, String group, Object value) {
+    return serializer.serialize(value, appendVarLong(createFrame(GROUP_MESSAGE, id), interned(group)));
+  }
+
+  @Override
+  public Buffer encodeGroupEnd(long id, String group, Object args) {
+    return serializer.serialize(args, appendVarLong(createFrame(GROUP_END, id), release(group)));
+  }
+
+  @Override
+  public Buffer encodeBatchStart(long id, String batch, Object args) {
+    Buffer frame = createFrame(BATCH_START, id);
+    appendVarLong(frame, intern(batch));
+    appendString(frame, batch);
+    return serializer.serialize(args, frame);
+  }
+
+  @Override
+  public Buffer encodeBatchMessage(long id, String batch, Object value) {
+    return serializer.serialize(value, appendVarLong(createFrame(BATCH_MESSAGE, id), interned(batch)));
+  }
+
+  @Override
+  public Buffer encodeBatchEnd(long id, String batch, Object args) {
+    return serializer.serialize(args, appendVarLong(createFrame(BATCH_END, id), release(batch)));
+  }
+
+  @Override
+  public Buffer encodeFrame(List<Object> messages) {
+    int length = 1;
+    for (Object message : messages) {
+      length += ((Buffer) message).length() + 4;
+    }
+    Buffer frame = new Buffer(length).appendByte(FRAME);
+    for (Object message : messages) {
+      Buffer buffer = (Buffer) message;
+      frame.appendInt(buffer.length());
+      frame.appendBuffer(buffer);
+    }
+    return frame;
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Connection transport.<p>
+ *
+ * By default, connection messages are sent over the Vert.x event bus. A
+ * transport provides an alternative path for messages from output connections
+ * to input connections. Input connections listen on the transport, which
+ * provides an endpoint describing how to reach the input connection. The
+ * endpoint is returned to the output connection when it connects, and the
+ * output connection then opens a channel to the endpoint through which it
+ * sends messages.<p>
+ *
+ * Connection handshakes and feedback such as acks are always sent over the
+ * event bus, and input connections continue to accept messages over the event
+ * bus, so output connections fall back to the event bus whenever a channel
+ * can't be opened.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface ConnectionTransport {
+
+  /**
+   * Starts listening for messages to an input connection.
+   *
+   * @param address The input connection address.
+   * @param messageHandler A handler to be called with each message sent to the connection.
+   * @param doneHandler An asynchronous handler to be called with the endpoint of the connection.
+   */
+  void listen(String address, Handler<Object> messageHandler, Handler<AsyncResult<JsonObject>> doneHandler);
+
+  /**
+   * Stops listening for messages to an input connection.
+   *
+   * @param address The input connection address.
+   */
+  void unlisten(String address);
+
+  /**
+   * Opens a channel to an input connection.
+   *
+   * @param address The input connection address.
+   * @param endpoint The input connection endpoint.
+   * @param doneHandler An asynchronous handler to be called once the channel is open.
+   */
+  void connect(String address, JsonObject endpoint, Handler<AsyncResult<TransportChannel>> doneHandler);
+
+}
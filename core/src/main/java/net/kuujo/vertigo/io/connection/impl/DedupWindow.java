@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.shareddata.Shareable;
+
+/**
+ * Message deduplication window.<p>
+ *
+ * Remembers which of the most recent message IDs have been handled in a
+ * ring of bits indexed by message ID, so checking and recording an ID costs
+ * a few bit operations and the window never allocates once it's created.
+ * IDs older than the window can't be checked and are always considered new.<p>
+ *
+ * Windows are kept in the Vert.x instance's shared data under the input
+ * connection address so they survive when the connection is reopened, and
+ * are only removed once the connection is removed from the network. Each
+ * window is tied to the session of the output connection that sent the
+ * messages, and is cleared once a different session connects since a new
+ * session numbers its messages from the start.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DedupWindow implements Shareable {
+  private static final String WINDOWS_KEY = "__vertigo.dedup";
+  private final long[] bits;
+  private final int size;
+  private String session;
+  private long highest;
+  private long suppressed;
+
+  public DedupWindow(int size) {
+    this.bits = new long[(size + 63) / 64];
+    this.size = bits.length * 64;
+  }
+
+  /**
+   * Returns the window for an input connection, creating it if necessary.
+   *
+   * @param vertx The Vert.x instance.
+   * @param address The input connection address.
+   * @param size The minimum window size.
+   * @return The window for the input connection.
+   */
+  public static DedupWindow acquire(Vertx vertx, String address, int size) {
+    ConcurrentMap<String, DedupWindow> windows = vertx.sharedData().getMap(WINDOWS_KEY);
+    DedupWindow window = windows.get(address);
+    if (window == null || window.size < size) {
+      window = new DedupWindow(size);
+      windows.put(address, window);
+    }
+    return window;
+  }
+
+  /**
+   * Removes the window for an input connection that won't be reopened.
+   *
+   * @param vertx The Vert.x instance.
+   * @param address The input connection address.
+   */
+  public static void remove(Vertx vertx, String address) {
+    ConcurrentMap<String, DedupWindow> windows = vertx.sharedData().getMap(WINDOWS_KEY);
+    windows.remove(address);
+  }
+
+  /**
+   * Sets the session of the output connection, clearing the window if the
+   * session has changed.
+   *
+   * @param session The output connection session.
+   */
+  public void session(String session) {
+    if (session == null ? this.session != null : !session.equals(this.session)) {
+      this.session = session;
+      Arrays.fill(bits, 0);
+      highest = 0;
+    }
+  }
+
+  /**
+   * Records a handled message ID.
+   *
+   * @param id The message ID.
+   * @return Indicates whether the ID was new. If the ID has already been
+   *         handled then it's counted as suppressed.
+   */
+  public boolean add(long id) {
+    if (id > highest) {
+      // Clear the bits of IDs that are leaving the window as it advances.
+      if (id - highest >= size) {
+        Arrays.fill(bits, 0);
+      } else {
+        for (long i = highest + 1; i < id; i++) {
+          clear(i);
+        }
+      }
+      highest = id;
+      set(id);
+      return true;
+    } else if (highest - id >= size) {
+      return true;
+    } else if (isSet(id)) {
+      suppressed++;
+      return false;
+    } else {
+      set(id);
+      return true;
+    }
+  }
+
+  /**
+   * Returns the number of suppressed message IDs.
+   *
+   * @return The number of suppressed message IDs.
+   */
+  public long suppressed() {
+    return suppressed;
+  }
+
+  private boolean isSet(long id) {
+    int index = (int) (id % size);
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  private void set(long id) {
+    int index = (int) (id % size);
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  private void clear(long id) {
+    int index = (int) (id % size);
+    bits[index >>> 6] &= ~(1L << index);
+  }
+
+}
@@ -16,7 +16,9 @@
 package net.kuujo.vertigo.io.connection.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.kuujo.vertigo.hook.IOHook;
 import net.kuujo.vertigo.hook.InputHook;
@@ -31,6 +33,7 @@ import net.kuujo.vertigo.io.selector.RoundRobinSelector;
 import net.kuujo.vertigo.io.selector.Selector;
 import net.kuujo.vertigo.network.NetworkConfig;
 import net.kuujo.vertigo.util.Args;
+import net.kuujo.vertigo.util.serialization.MessageCodec;
 
 /**
  * Default connection configuration implementation.
@@ -40,11 +43,36 @@ import net.kuujo.vertigo.util.Args;
 public class DefaultConnectionConfig implements ConnectionConfig {
   private static final String DEFAULT_OUT_PORT = "out";
   private static final String DEFAULT_IN_PORT = "in";
+  private static final int DEFAULT_COALESCE_SIZE = 0;
+  private static final long DEFAULT_COALESCE_DELAY = 1;
+  private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+  private static final int DEFAULT_PRE_OPEN_BUFFER = 100;
 
   private Source source = new DefaultSource();
   private Target target = new DefaultTarget();
   private List<IOHook> hooks = new ArrayList<>();
   private Selector selector;
+  private String format = Format.JSON.getName();
+  private int coalesceSize = DEFAULT_COALESCE_SIZE;
+  private long coalesceDelay = DEFAULT_COALESCE_DELAY;
+  private String replayStorage = Storage.HEAP.getName();
+  private long replayMemory;
+  private String spillDirectory;
+  private int creditWindow;
+  private int reorderWindow;
+  private int dedupWindow;
+  private String ackPolicy = AckPolicy.ADAPTIVE.getName();
+  private boolean localDelivery;
+  private String copyPolicy = CopyPolicy.COPY.getName();
+  private String transport = Transport.EVENT_BUS.getName();
+  private String compression = Compression.NONE.getName();
+  private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+  private String deliveryMode = DeliveryMode.AT_LEAST_ONCE.getName();
+  private boolean lazyOpen;
+  private int preOpenBuffer = DEFAULT_PRE_OPEN_BUFFER;
+  private boolean multiplex;
+  private Map<String, String> codecs = new HashMap<>();
+  private String serializationMode = SerializationMode.STANDARD.getName();
 
   public DefaultConnectionConfig() {
     super();
@@ -152,6 +180,270 @@ public class DefaultConnectionConfig implements ConnectionConfig {
     return this;
   }
 
+  @Override
+  public ConnectionConfig setFormat(Format format) {
+    this.format = format != null ? format.getName() : Format.JSON.getName();
+    return this;
+  }
+
+  @Override
+  public Format getFormat() {
+    return parseFormat(format);
+  }
+
+  @Override
+  public ConnectionConfig setCoalesceSize(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("coalesce size must be a positive number");
+    }
+    this.coalesceSize = size;
+    return this;
+  }
+
+  @Override
+  public int getCoalesceSize() {
+    return coalesceSize;
+  }
+
+  @Override
+  public ConnectionConfig setCoalesceDelay(long delay) {
+    if (delay < 0) {
+      throw new IllegalArgumentException("coalesce delay must be a positive number");
+    }
+    this.coalesceDelay = delay;
+    return this;
+  }
+
+  @Override
+  public long getCoalesceDelay() {
+    return coalesceDelay;
+  }
+
+  @Override
+  public ConnectionConfig setReplayStorage(Storage storage) {
+    this.replayStorage = storage != null ? storage.getName() : Storage.HEAP.getName();
+    return this;
+  }
+
+  @Override
+  public Storage getReplayStorage() {
+    return parseStorage(replayStorage);
+  }
+
+  @Override
+  public ConnectionConfig setReplayMemory(long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("replay memory must be a positive number");
+    }
+    this.replayMemory = bytes;
+    return this;
+  }
+
+  @Override
+  public long getReplayMemory() {
+    return replayMemory;
+  }
+
+  @Override
+  public ConnectionConfig setSpillDirectory(String directory) {
+    this.spillDirectory = directory;
+    return this;
+  }
+
+  @Override
+  public String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  @Override
+  public ConnectionConfig setCreditWindow(int window) {
+    if (window < 0) {
+      throw new IllegalArgumentException("credit window must be a positive number");
+    }
+    this.creditWindow = window;
+    return this;
+  }
+
+  @Override
+  public int getCreditWindow() {
+    return creditWindow;
+  }
+
+  @Override
+  public ConnectionConfig setReorderWindow(int window) {
+    if (window < 0) {
+      throw new IllegalArgumentException("reorder window must be a positive number");
+    }
+    this.reorderWindow = window;
+    return this;
+  }
+
+  @Override
+  public int getReorderWindow() {
+    return reorderWindow;
+  }
+
+  @Override
+  public ConnectionConfig setDedupWindow(int window) {
+    if (window < 0) {
+      throw new IllegalArgumentException("dedup window must be a positive number");
+    }
+    this.dedupWindow = window;
+    return this;
+  }
+
+  @Override
+  public int getDedupWindow() {
+    return dedupWindow;
+  }
+
+  @Override
+  public ConnectionConfig setAckPolicy(AckPolicy policy) {
+    this.ackPolicy = policy != null ? policy.getName() : AckPolicy.ADAPTIVE.getName();
+    return this;
+  }
+
+  @Override
+  public AckPolicy getAckPolicy() {
+    return parseAckPolicy(ackPolicy);
+  }
+
+  @Override
+  public ConnectionConfig setLocalDelivery(boolean enabled) {
+    this.localDelivery = enabled;
+    return this;
+  }
+
+  @Override
+  public boolean isLocalDelivery() {
+    return localDelivery;
+  }
+
+  @Override
+  public ConnectionConfig setCopyPolicy(CopyPolicy policy) {
+    this.copyPolicy = policy != null ? policy.getName() : CopyPolicy.COPY.getName();
+    return this;
+  }
+
+  @Override
+  public CopyPolicy getCopyPolicy() {
+    return parseCopyPolicy(copyPolicy);
+  }
+
+  @Override
+  public ConnectionConfig setTransport(Transport transport) {
+    this.transport = transport != null ? transport.getName() : Transport.EVENT_BUS.getName();
+    return this;
+  }
+
+  @Override
+  public Transport getTransport() {
+    return parseTransport(transport);
+  }
+
+  @Override
+  public ConnectionConfig setCompression(Compression compression) {
+    this.compression = compression != null ? compression.getName() : Compression.NONE.getName();
+    return this;
+  }
+
+  @Override
+  public Compression getCompression() {
+    return parseCompression(compression);
+  }
+
+  @Override
+  public ConnectionConfig setCompressionThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("compression threshold must be a positive number");
+    }
+    this.compressionThreshold = threshold;
+    return this;
+  }
+
+  @Override
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  @Override
+  public ConnectionConfig setDeliveryMode(DeliveryMode mode) {
+    this.deliveryMode = mode != null ? mode.getName() : DeliveryMode.AT_LEAST_ONCE.getName();
+    return this;
+  }
+
+  @Override
+  public DeliveryMode getDeliveryMode() {
+    return parseDeliveryMode(deliveryMode);
+  }
+
+  @Override
+  public ConnectionConfig setLazyOpen(boolean enabled) {
+    this.lazyOpen = enabled;
+    return this;
+  }
+
+  @Override
+  public boolean isLazyOpen() {
+    return lazyOpen;
+  }
+
+  @Override
+  public ConnectionConfig setPreOpenBuffer(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("pre-open buffer must be a positive number");
+    }
+    this.preOpenBuffer = size;
+    return this;
+  }
+
+  @Override
+  public int getPreOpenBuffer() {
+    return preOpenBuffer;
+  }
+
+  @Override
+  public ConnectionConfig setMultiplex(boolean enabled) {
+    this.multiplex = enabled;
+    return this;
+  }
+
+  @Override
+  public boolean isMultiplex() {
+    return multiplex;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public ConnectionConfig addCodec(Class<?> type, Class<? extends MessageCodec> codec) {
+    Args.checkNotNull(type, "codec type cannot be null");
+    Args.checkNotNull(codec, "codec cannot be null");
+    codecs.put(type.getName(), codec.getName());
+    return this;
+  }
+
+  @Override
+  public ConnectionConfig removeCodec(Class<?> type) {
+    codecs.remove(type.getName());
+    return this;
+  }
+
+  @Override
+  public Map<String, String> getCodecs() {
+    return codecs;
+  }
+
+  @Override
+  public ConnectionConfig setSerializationMode(SerializationMode mode) {
+    this.serializationMode = mode != null ? mode.getName() : SerializationMode.STANDARD.getName();
+    return this;
+  }
+
+  @Override
+  public SerializationMode getSerializationMode() {
+    return parseSerializationMode(serializationMode);
+  }
+
   @Override
   public boolean equals(Object other) {
     if (!(other instanceof ConnectionConfig)) {
@@ -164,6 +456,53 @@ public class DefaultConnectionConfig implements ConnectionConfig {
         && connection.getTarget().getPort().equals(target.getPort());
   }
 
+  /**
+   * Maps a stored configuration name to its enum constant.
+   */
+  private static <T extends Enum<T>> T parse(Class<T> type, String name, T defaultValue, String description) {
+    if (name == null) {
+      return defaultValue;
+    }
+    for (T value : type.getEnumConstants()) {
+      if (value.toString().equals(name)) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Invalid " + description + " " + name);
+  }
+
+  static Format parseFormat(String name) {
+    return parse(Format.class, name, Format.JSON, "connection format");
+  }
+
+  static Storage parseStorage(String name) {
+    return parse(Storage.class, name, Storage.HEAP, "replay storage");
+  }
+
+  static AckPolicy parseAckPolicy(String name) {
+    return parse(AckPolicy.class, name, AckPolicy.ADAPTIVE, "ack policy");
+  }
+
+  static CopyPolicy parseCopyPolicy(String name) {
+    return parse(CopyPolicy.class, name, CopyPolicy.COPY, "copy policy");
+  }
+
+  static Transport parseTransport(String name) {
+    return parse(Transport.class, name, Transport.EVENT_BUS, "transport");
+  }
+
+  static Compression parseCompression(String name) {
+    return parse(Compression.class, name, Compression.NONE, "compression");
+  }
+
+  static DeliveryMode parseDeliveryMode(String name) {
+    return parse(DeliveryMode.class, name, DeliveryMode.AT_LEAST_ONCE, "delivery mode");
+  }
+
+  static SerializationMode parseSerializationMode(String name) {
+    return parse(SerializationMode.class, name, SerializationMode.STANDARD, "serialization mode");
+  }
+
   /**
    * Default source implementation.
    * 
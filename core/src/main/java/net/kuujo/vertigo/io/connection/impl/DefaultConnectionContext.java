@@ -15,7 +15,11 @@
  */
 package net.kuujo.vertigo.io.connection.impl;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import net.kuujo.vertigo.impl.BaseContext;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.connection.ConnectionContext;
 
 /**
@@ -27,6 +31,14 @@ import net.kuujo.vertigo.io.connection.ConnectionContext;
 public abstract class DefaultConnectionContext<T extends ConnectionContext<T>> extends BaseContext<T> implements ConnectionContext<T> {
   protected SourceContext source;
   protected TargetContext target;
+  protected String format;
+  protected int creditWindow;
+  protected boolean localDelivery;
+  protected String transport;
+  protected String deliveryMode;
+  protected String channel;
+  protected int channelId;
+  protected Map<String, String> codecs = new HashMap<>();
 
   @Override
   public SourceContext source() {
@@ -38,6 +50,46 @@ public abstract class DefaultConnectionContext<T extends ConnectionContext<T>> e
     return target;
   }
 
+  @Override
+  public ConnectionConfig.Format format() {
+    return DefaultConnectionConfig.parseFormat(format);
+  }
+
+  @Override
+  public int creditWindow() {
+    return creditWindow;
+  }
+
+  @Override
+  public boolean localDelivery() {
+    return localDelivery;
+  }
+
+  @Override
+  public ConnectionConfig.Transport transport() {
+    return DefaultConnectionConfig.parseTransport(transport);
+  }
+
+  @Override
+  public ConnectionConfig.DeliveryMode deliveryMode() {
+    return DefaultConnectionConfig.parseDeliveryMode(deliveryMode);
+  }
+
+  @Override
+  public String channel() {
+    return channel;
+  }
+
+  @Override
+  public int channelId() {
+    return channelId;
+  }
+
+  @Override
+  public Map<String, String> codecs() {
+    return codecs;
+  }
+
   @Override
   public String uri() {
     return null;
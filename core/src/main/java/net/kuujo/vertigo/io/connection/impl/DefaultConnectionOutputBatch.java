@@ -15,11 +15,14 @@
  */
 package net.kuujo.vertigo.io.connection.impl;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.UUID;
 
 import net.kuujo.vertigo.io.connection.OutputConnection;
 import net.kuujo.vertigo.io.connection.OutputConnectionContext;
 import net.kuujo.vertigo.io.group.OutputGroup;
+import net.kuujo.vertigo.io.impl.SharedValue;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
@@ -34,7 +37,7 @@ import org.vertx.java.core.json.JsonObject;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public class DefaultConnectionOutputBatch implements ConnectionOutputBatch {
+public class DefaultConnectionOutputBatch implements ConnectionOutputBatch, SharedValueOutput {
   private final String id;
   private final Object args;
   private final DefaultOutputConnection connection;
@@ -288,6 +291,97 @@ public class DefaultConnectionOutputBatch implements ConnectionOutputBatch {
     return group(name, null, handler);
   }
 
+  @Override
+  public OutputConnection sendAll(Collection<?> messages) {
+    if (!ended) {
+      for (Object message : messages) {
+        connection.doBatchSend(id, message);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public void sendShared(SharedValue value) {
+    if (!ended) {
+      connection.doBatchSend(id, value);
+    }
+  }
+
+  @Override
+  public void sendAllShared(Collection<?> values) {
+    sendAll(values);
+  }
+
+  @Override
+  public OutputConnection sendAll(Object[] messages) {
+    return sendAll(Arrays.asList(messages));
+  }
+
+  @Override
+  public OutputConnection send(byte message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(short message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(char message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(int message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(long message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(float message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(double message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputConnection send(boolean message) {
+    if (!ended) {
+      connection.doBatchSend(id, message);
+    }
+    return this;
+  }
+
   @Override
   public OutputConnection group(String name, Object args, Handler<OutputGroup> handler) {
     DefaultConnectionOutputGroup group = connection.group(name, args, id, handler);
@@ -16,22 +16,33 @@
 package net.kuujo.vertigo.io.connection.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import net.kuujo.vertigo.hook.InputHook;
+import net.kuujo.vertigo.io.DoubleHandler;
+import net.kuujo.vertigo.io.FloatHandler;
+import net.kuujo.vertigo.io.IntHandler;
+import net.kuujo.vertigo.io.LazyMessage;
+import net.kuujo.vertigo.io.LongHandler;
 import net.kuujo.vertigo.io.batch.InputBatch;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.connection.InputConnection;
 import net.kuujo.vertigo.io.connection.InputConnectionContext;
 import net.kuujo.vertigo.io.group.InputGroup;
+import net.kuujo.vertigo.io.impl.CodecRegistry;
+import net.kuujo.vertigo.io.impl.DefaultLazyMessage;
 import net.kuujo.vertigo.io.impl.InputDeserializer;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
@@ -42,95 +53,152 @@ import org.vertx.java.core.logging.impl.LoggerFactory;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class DefaultInputConnection implements InputConnection {
-  private static final long BATCH_SIZE = 1000;
-  private static final long MAX_BATCH_TIME = 100;
+  private static final long ROUND_TRIP_INTERVAL = 1000;
   private final Logger log;
   private final Vertx vertx;
   private final EventBus eventBus;
   private final InputConnectionContext context;
   private final String inAddress;
-  private final String outAddress;
+  private final String sendAddress;
+  private final String readyAddress;
+  private final int muxID;
+  private Multiplexer mux;
   private List<InputHook> hooks = new ArrayList<>();
   private Handler<InputGroup> groupHandler;
   private final Map<String, Handler<InputGroup>> groupHandlers = new HashMap<>();
   private final Map<String, DefaultConnectionInputGroup> groups = new HashMap<>();
-  private final InputDeserializer deserializer = new InputDeserializer();
+  private final InputDeserializer deserializer;
+  private final BinaryMessageDecoder decoder;
+  private FrameCompressor compressor;
   @SuppressWarnings("rawtypes")
   private Handler messageHandler;
+  private boolean lazy;
+  private IntHandler intHandler;
+  private LongHandler longHandler;
+  private FloatHandler floatHandler;
+  private DoubleHandler doubleHandler;
+  private boolean primitive;
+  private int bulkSize;
+  private List<Object> bulk;
+  private boolean bulkScheduled;
   private Handler<InputBatch> batchHandler;
   private DefaultConnectionInputBatch currentBatch;
   private long lastReceived;
   private long lastFeedbackTime;
-  private long feedbackTimerID;
+  private long lastCredit;
+  private final Object[] held;
+  private final long[] heldIDs;
+  private long lastHeld;
+  private FeedbackTimer feedbackTimer;
+  private long tickReceived;
+  private final AckCadence cadence;
+  private long received;
+  private long lastAcked;
+  private long lastRoundTrip;
+  private long ackDeadline;
+  private final boolean atMostOnce;
+  private DedupWindow dedup;
+  private String session;
+  private LocalChannel channel;
+  private ConnectionTransport transport;
+  private JsonObject endpoint;
   private boolean open;
   private boolean connected;
   private boolean paused;
 
   private final Handler<Long> internalTimer = new Handler<Long>() {
     @Override
-    public void handle(Long timerID) {
+    public void handle(Long currentTime) {
       // Ensure that feedback messages are sent at least every second or so.
       // This will ensure that feedback is still provided when output connections
       // are full, otherwise the feedback will never be triggered.
-      long currentTime = System.currentTimeMillis();
+      cadence.sampleRate(currentTime, received);
+
+      // Ack messages once the ack delay since the first unacked message has
+      // passed. Deadlines are checked on each tick, so acks are delayed by at
+      // most one tick interval beyond the ack delay.
+      if (ackDeadline > 0 && currentTime >= ackDeadline) {
+        ackDeadline = 0;
+        if (lastReceived != lastAcked) {
+          ack();
+        }
+      }
+
       if (currentTime - lastFeedbackTime > 1000) {
+        ackDeadline = 0;
         ack();
+        grant(true);
+        renack();
+
+        // If no messages have been received since the last tick and there
+        // are no gaps waiting to be filled then all feedback has been sent,
+        // so stop ticking until more messages are received. If any of that
+        // feedback is lost then the output connection will ask for it again.
+        if (received == tickReceived && lastHeld <= lastReceived) {
+          unschedule();
+        }
       }
+      tickReceived = received;
     }
   };
 
-  private final Handler<Message<JsonObject>> internalMessageHandler = new Handler<Message<JsonObject>>() {
+  private final Handler<Void> bulkFlusher = new Handler<Void>() {
     @Override
-    public void handle(Message<JsonObject> message) {
+    public void handle(Void event) {
+      bulkScheduled = false;
+      flushBulk();
+    }
+  };
+
+  private final Handler<Object> directHandler = new Handler<Object>() {
+    @Override
+    public void handle(Object message) {
       if (open && !paused) {
-        String action = message.body().getString("action");
-        switch (action) {
-          case "message":
-            if (checkID(message.body().getLong("id"))) {
-              doMessage(message.body());
-            }
-            break;
-          case "startGroup":
-            if (checkID(message.body().getLong("id"))) {
-              doGroupStart(message.body());
-            }
-            break;
-          case "group":
-            if (checkID(message.body().getLong("id"))) {
-              doGroupMessage(message.body());
-            }
-            break;
-          case "endGroup":
-            if (checkID(message.body().getLong("id"))) {
-              doGroupEnd(message.body());
-            }
-            break;
-          case "startBatch":
-            if (checkID(message.body().getLong("id"))) {
-              doBatchStart(message.body());
-            }
-            break;
-          case "batch":
-            if (checkID(message.body().getLong("id"))) {
-              doBatchMessage(message.body());
-            }
-            break;
-          case "endBatch":
-            if (checkID(message.body().getLong("id"))) {
-              doBatchEnd(message.body());
-            }
-            break;
-          case "connect":
-            doConnect(message);
-            break;
-          case "disconnect":
-            doDisconnect(message);
-            break;
+        if (message instanceof LocalMessage) {
+          handleLocal((LocalMessage) message);
+        } else if (message instanceof Buffer) {
+          handleFrame((Buffer) message);
+        } else {
+          handleFrame((JsonObject) message);
+        }
+        if (lastHeld > lastReceived) {
+          release();
+        }
+      }
+    }
+  };
+
+  private final Handler<Message<Object>> internalMessageHandler = new Handler<Message<Object>>() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Message<Object> message) {
+      if (open && !paused) {
+        if (message.body() instanceof Buffer) {
+          handleFrame((Buffer) message.body());
+        } else {
+          handleMessage((Message<JsonObject>) (Message<?>) message);
+        }
+        if (lastHeld > lastReceived) {
+          release();
         }
       }
     }
   };
 
+  private final Handler<Object> muxHandler = new Handler<Object>() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Object message) {
+      // The multiplexer passes JSON messages as event bus messages so they can
+      // be replied to, and buffers with the multiplexing header removed.
+      if (message instanceof Message) {
+        internalMessageHandler.handle((Message<Object>) message);
+      } else {
+        directHandler.handle(message);
+      }
+    }
+  };
+
   public DefaultInputConnection(Vertx vertx, String address) {
     this(vertx, DefaultInputConnectionContext.Builder.newBuilder().setAddress(address).build());
   }
@@ -140,9 +208,17 @@ public class DefaultInputConnection implements InputConnection {
     this.eventBus = vertx.eventBus();
     this.context = context;
     this.inAddress = String.format("%s.in", context.address());
-    this.outAddress = String.format("%s.out", context.address());
+    this.sendAddress = String.format("%s.out", context.channel() != null ? context.channel() : context.address());
+    this.muxID = context.channelId();
+    this.readyAddress = String.format("%s.ready", context.address());
     this.log = LoggerFactory.getLogger(String.format("%s-%s", DefaultInputConnection.class.getName(), context.address()));
     this.hooks = context.hooks();
+    this.held = context.reorderWindow() > 0 ? new Object[context.reorderWindow()] : null;
+    this.heldIDs = context.reorderWindow() > 0 ? new long[context.reorderWindow()] : null;
+    this.cadence = new AckCadence(context.ackPolicy());
+    this.atMostOnce = context.deliveryMode() == ConnectionConfig.DeliveryMode.AT_MOST_ONCE;
+    this.deserializer = new InputDeserializer(CodecRegistry.create(context.codecs()));
+    this.decoder = new BinaryMessageDecoder(deserializer);
   }
 
   @Override
@@ -172,16 +248,22 @@ public class DefaultInputConnection implements InputConnection {
 
   @Override
   public InputConnection open(final Handler<AsyncResult<Void>> doneHandler) {
-    eventBus.registerHandler(inAddress, internalMessageHandler, new Handler<AsyncResult<Void>>() {
+    register(new Handler<AsyncResult<Void>>() {
       @Override
       public void handle(AsyncResult<Void> result) {
         if (result.succeeded()) {
           log.info(String.format("%s - Opened connection to %s", DefaultInputConnection.this, context.source()));
-          if (feedbackTimerID == 0) {
-            log.debug(String.format("%s - Starting periodic ack timer with max batch interval: %d", DefaultInputConnection.this, MAX_BATCH_TIME));
-            feedbackTimerID = vertx.setPeriodic(MAX_BATCH_TIME, internalTimer);
+          if (context.localDelivery() && channel == null) {
+            channel = LocalChannel.register(vertx, inAddress, directHandler);
+          }
+          if (context.dedupWindow() > 0 && dedup == null) {
+            dedup = DedupWindow.acquire(vertx, context.address(), context.dedupWindow());
+          }
+          if (context.transport() == ConnectionConfig.Transport.TCP && transport == null) {
+            listen(result, doneHandler);
+            return;
           }
-          open = true;
+          ready();
         } else {
           log.warn(String.format("%s - Failed to open connection to %s", DefaultInputConnection.this, context.source()));
         }
@@ -191,27 +273,465 @@ public class DefaultInputConnection implements InputConnection {
     return this;
   }
 
+  /**
+   * Marks the connection open and announces it to the other side of the
+   * connection so it can connect without waiting to retry.
+   */
+  private void ready() {
+    open = true;
+    if (mux != null) {
+      eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "ready")));
+    } else {
+      eventBus.publish(readyAddress, true);
+    }
+  }
+
+  /**
+   * Registers the connection's event bus handler. Multiplexed connections
+   * register with the multiplexer for their channel instead.
+   */
+  private void register(Handler<AsyncResult<Void>> doneHandler) {
+    if (context.channel() != null) {
+      mux = Multiplexer.instance(vertx, String.format("%s.in", context.channel()));
+      mux.register(muxID, muxHandler, doneHandler);
+    } else {
+      eventBus.registerHandler(inAddress, internalMessageHandler, doneHandler);
+    }
+  }
+
+  /**
+   * Unregisters the connection's event bus handler.
+   */
+  private void unregister(Handler<AsyncResult<Void>> doneHandler) {
+    if (mux != null) {
+      mux.unregister(muxID, doneHandler);
+      mux = null;
+    } else {
+      eventBus.unregisterHandler(inAddress, internalMessageHandler, doneHandler);
+    }
+  }
+
+  /**
+   * Adds the connection ID to a message sent over a multiplexed channel.
+   */
+  private JsonObject envelope(JsonObject message) {
+    return context.channel() != null ? Multiplexer.wrap(muxID, message) : message;
+  }
+
+  /**
+   * Starts listening on the connection transport. If the transport can't
+   * be started then messages continue to be received over the event bus.
+   */
+  private void listen(final AsyncResult<Void> result, final Handler<AsyncResult<Void>> doneHandler) {
+    transport = TcpTransport.instance(vertx);
+    transport.listen(inAddress, directHandler, new Handler<AsyncResult<JsonObject>>() {
+      @Override
+      public void handle(AsyncResult<JsonObject> listenResult) {
+        if (listenResult.failed()) {
+          log.warn(String.format("%s - Failed to start transport, falling back to event bus", DefaultInputConnection.this), listenResult.cause());
+          transport = null;
+        } else {
+          endpoint = listenResult.result();
+        }
+        ready();
+        doneHandler.handle(result);
+      }
+    });
+  }
+
+  /**
+   * Handles a JSON message.
+   */
+  private void handleMessage(Message<JsonObject> message) {
+    JsonObject body = message.body();
+    String action = body.getString("action");
+    switch (action) {
+      case "frame":
+        handleFrame(body.getArray("messages"));
+        break;
+      case "connect":
+        doConnect(message);
+        break;
+      case "disconnect":
+        doDisconnect(message);
+        break;
+      case "window":
+        cadence.setWindow(body.getInteger("size"));
+        break;
+      case "feedback":
+        doFeedback();
+        break;
+      default:
+        handleMessage(body);
+        break;
+    }
+  }
+
+  /**
+   * Handles a JSON message or coalesced frame body.
+   */
+  private void handleFrame(JsonObject body) {
+    if ("frame".equals(body.getString("action"))) {
+      handleFrame(body.getArray("messages"));
+    } else {
+      handleMessage(body);
+    }
+  }
+
+  /**
+   * Handles a coalesced JSON frame.
+   */
+  private void handleFrame(JsonArray messages) {
+    // Coalesced frames contain multiple messages which are handled in
+    // order. If any message is out of order and can't be held then the
+    // remaining messages are skipped since they'll be resent by the other side.
+    for (int i = 0; i < messages.size(); i++) {
+      if (!handleMessage((JsonObject) messages.get(i))) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Handles a single JSON message body.
+   */
+  private boolean handleMessage(JsonObject body) {
+    long id = body.getLong("id");
+    if (!checkID(id)) {
+      return hold(id, body);
+    }
+    if (lazy && body.getString("action").equals("message") && body.getString("type") != null) {
+      handleMessage(id, body, DefaultLazyMessage.create(body, deserializer));
+    } else {
+      handleMessage(id, body, deserializer.deserialize(body));
+    }
+    return true;
+  }
+
+  /**
+   * Handles a JSON message body with the given value.
+   */
+  private void handleMessage(long id, JsonObject body, Object value) {
+    switch (body.getString("action")) {
+      case "message":
+        doMessage(id, value);
+        break;
+      case "startGroup":
+        doGroupStart(body.getString("group"), body.getString("name"), body.getString("parent"), value);
+        break;
+      case "group":
+        doGroupMessage(id, body.getString("group"), value);
+        break;
+      case "endGroup":
+        doGroupEnd(body.getString("group"), value);
+        break;
+      case "startBatch":
+        doBatchStart(body.getString("batch"), value);
+        break;
+      case "batch":
+        doBatchMessage(id, body.getString("batch"), value);
+        break;
+      case "endBatch":
+        doBatchEnd(value);
+        break;
+    }
+  }
+
+  /**
+   * Handles a binary message frame.
+   */
+  private void handleFrame(Buffer frame) {
+    if (frame.getByte(0) == BinaryMessageEncoder.COMPRESSED) {
+      // Compressed frames contain either an encoded JSON frame or a binary
+      // frame depending on the connection format.
+      if (compressor == null) {
+        compressor = new FrameCompressor();
+      }
+      Buffer uncompressed = compressor.decompress(frame);
+      if (context.format() == ConnectionConfig.Format.BINARY || uncompressed.getByte(0) == BinaryMessageEncoder.RAW) {
+        handleFrame(uncompressed);
+      } else {
+        handleFrame(new JsonObject(uncompressed.toString("UTF-8")));
+      }
+    } else if (frame.getByte(0) == BinaryMessageEncoder.FRAME) {
+      // Coalesced frames contain multiple length prefixed messages which
+      // are handled in order. If any message is out of order and can't be
+      // held then the remaining messages are skipped since they'll be resent.
+      int position = 1;
+      while (position < frame.length()) {
+        int length = frame.getInt(position);
+        position += 4;
+        if (!handleFrame(frame, position, position + length)) {
+          break;
+        }
+        position += length;
+      }
+    } else {
+      handleFrame(frame, 0, frame.length());
+    }
+  }
+
+  /**
+   * Handles a single binary message from a region of a frame.
+   */
+  private boolean handleFrame(Buffer frame, int start, int end) {
+    if (frame.getByte(start) == BinaryMessageEncoder.RAW) {
+      return handleRaw(frame, start, end);
+    } else if (frame.getByte(start) == '{') {
+      // JSON messages replayed from direct memory are sent as their encoded
+      // text, which can't be mistaken for a binary opcode.
+      return handleMessage(new JsonObject(frame.getString(start, end, "UTF-8")));
+    }
+    byte opcode = decoder.readFrame(frame, start, end);
+    long id = decoder.readVarLong();
+    if (!checkID(id)) {
+      return hold(id, frame.getBuffer(start, end));
+    }
+    switch (opcode) {
+      case BinaryMessageEncoder.MESSAGE:
+        // Primitive values are passed to primitive handlers directly from
+        // the frame unless hooks need the boxed value.
+        if (primitive && hooks.isEmpty()) {
+          if (!isRedelivered(id) && !decoder.readPrimitive(intHandler, longHandler, floatHandler, doubleHandler)) {
+            deliverMessage(id, lazy ? decoder.readLazyValue() : decoder.readValue());
+          }
+        } else {
+          doMessage(id, lazy ? decoder.readLazyValue() : decoder.readValue());
+        }
+        break;
+      case BinaryMessageEncoder.GROUP_START:
+        String group = decoder.readIntern();
+        String name = decoder.readString();
+        String parent = decoder.readInterned();
+        doGroupStart(group, name, parent, decoder.readValue());
+        break;
+      case BinaryMessageEncoder.GROUP_MESSAGE:
+        doGroupMessage(id, decoder.readInterned(), decoder.readValue());
+        break;
+      case BinaryMessageEncoder.GROUP_END:
+        doGroupEnd(decoder.readReleased(), decoder.readValue());
+        break;
+      case BinaryMessageEncoder.BATCH_START:
+        doBatchStart(decoder.readIntern(), decoder.readValue());
+        break;
+      case BinaryMessageEncoder.BATCH_MESSAGE:
+        doBatchMessage(id, decoder.readInterned(), decoder.readValue());
+        break;
+      case BinaryMessageEncoder.BATCH_END:
+        decoder.readReleased();
+        doBatchEnd(decoder.readValue());
+        break;
+    }
+    return true;
+  }
+
+  /**
+   * Handles a JSON message with a raw binary value from a region of a frame.
+   */
+  private boolean handleRaw(Buffer frame, int start, int end) {
+    int position = start + 5 + frame.getInt(start + 1);
+    JsonObject body = new JsonObject(frame.getString(start + 5, position, "UTF-8"));
+    long id = body.getLong("id");
+    if (!checkID(id)) {
+      return hold(id, frame.getBuffer(start, end));
+    }
+    switch (body.getString("type")) {
+      case "bytes":
+        handleMessage(id, body, frame.getBytes(position, end));
+        break;
+      case "codec":
+        handleMessage(id, body, deserializer.decode(body.getInteger("codec"), frame.getBytes(position, end)));
+        break;
+      default:
+        handleMessage(id, body, frame.getBuffer(position, end));
+        break;
+    }
+    return true;
+  }
+
+  /**
+   * Handles a message from a local output connection.
+   */
+  private boolean handleLocal(LocalMessage message) {
+    long id = message.id();
+    if (!checkID(id)) {
+      return hold(id, message);
+    }
+    switch (message.type()) {
+      case BinaryMessageEncoder.MESSAGE:
+        doMessage(id, message.value());
+        break;
+      case BinaryMessageEncoder.GROUP_START:
+        doGroupStart(message.group(), message.name(), message.parent(), message.value());
+        break;
+      case BinaryMessageEncoder.GROUP_MESSAGE:
+        doGroupMessage(id, message.group(), message.value());
+        break;
+      case BinaryMessageEncoder.GROUP_END:
+        doGroupEnd(message.group(), message.value());
+        break;
+      case BinaryMessageEncoder.BATCH_START:
+        doBatchStart(message.group(), message.value());
+        break;
+      case BinaryMessageEncoder.BATCH_MESSAGE:
+        doBatchMessage(id, message.group(), message.value());
+        break;
+      case BinaryMessageEncoder.BATCH_END:
+        doBatchEnd(message.value());
+        break;
+    }
+    return true;
+  }
+
   /**
    * Checks that the given ID is valid.
    */
   private boolean checkID(long id) {
+    // At-most-once messages are handled as they're received. Nothing is
+    // tracked since lost messages are never resent.
+    if (atMostOnce) {
+      return true;
+    }
+
     // Ensure that the given ID is a monotonically increasing ID.
     // If the ID is less than the last received ID then reset the
     // last received ID since the connection must have been reset.
-    if (lastReceived == 0 || id == lastReceived + 1 || id < lastReceived) {
+    if (lastReceived == 0 || id == lastReceived + 1 || (id < lastReceived && !isDuplicate(id))) {
+      if (id < lastReceived && held != null) {
+        Arrays.fill(held, null);
+        lastHeld = 0;
+      }
       lastReceived = id;
-      // If the ID reaches the end of the current batch then tell the data
-      // source that it's okay to remove all previous messages.
-      if (lastReceived % BATCH_SIZE == 0) {
+      received++;
+      schedule();
+      // If enough messages have been received since the last ack then tell
+      // the data source that it's okay to remove all previous messages.
+      // Otherwise, ensure the messages are acked within the ack delay.
+      if (lastReceived - lastAcked >= cadence.ackSize()) {
         ack();
+      } else if (ackDeadline == 0) {
+        ackDeadline = System.currentTimeMillis() + cadence.ackDelay();
       }
+      grant(false);
       return true;
-    } else {
-      fail();
     }
     return false;
   }
 
+  /**
+   * Schedules periodic feedback on the instance's shared feedback timer.
+   */
+  private void schedule() {
+    if (feedbackTimer == null && !atMostOnce) {
+      feedbackTimer = FeedbackTimer.instance(vertx);
+      feedbackTimer.schedule(internalTimer);
+    }
+  }
+
+  /**
+   * Cancels periodic feedback.
+   */
+  private void unschedule() {
+    if (feedbackTimer != null) {
+      feedbackTimer.cancel(internalTimer);
+      feedbackTimer = null;
+    }
+  }
+
+  /**
+   * Indicates whether the given ID is a duplicate of a recently handled message.
+   */
+  private boolean isDuplicate(long id) {
+    return held != null && lastReceived - id < held.length;
+  }
+
+  /**
+   * Handles a message that was received out of order.
+   *
+   * @return Indicates whether the remaining messages in the frame can be handled.
+   */
+  private boolean hold(long id, Object message) {
+    // If selective retransmission is disabled then ask the other side of
+    // the connection to resend all messages after the last message received.
+    if (held == null) {
+      fail();
+      return false;
+    }
+
+    // Messages that have already been handled may be received again if the
+    // original message was delayed rather than lost, so just skip them.
+    if (id <= lastReceived) {
+      return true;
+    }
+
+    // If the message is too far ahead to be held then fall back to resending
+    // all messages after the last message received.
+    if (id - lastReceived > held.length) {
+      fail();
+      return false;
+    }
+
+    int slot = (int) (id % held.length);
+    held[slot] = message;
+    heldIDs[slot] = id;
+
+    // Request only the messages between the last message received or held
+    // and this message. Gaps before that point have already been requested.
+    long last = Math.max(lastHeld, lastReceived);
+    if (id > last + 1) {
+      nack(new JsonArray().add(new JsonArray().add(last + 1).add(id - 1)));
+    }
+    if (id > lastHeld) {
+      lastHeld = id;
+    }
+    schedule();
+    return true;
+  }
+
+  /**
+   * Handles held messages that are now in order.
+   */
+  private void release() {
+    while (lastHeld > lastReceived) {
+      int slot = (int) ((lastReceived + 1) % held.length);
+      Object message = held[slot];
+      if (message == null || heldIDs[slot] != lastReceived + 1) {
+        break;
+      }
+      held[slot] = null;
+      if (message instanceof LocalMessage) {
+        handleLocal((LocalMessage) message);
+      } else if (message instanceof Buffer) {
+        handleFrame((Buffer) message, 0, ((Buffer) message).length());
+      } else {
+        handleMessage((JsonObject) message);
+      }
+    }
+  }
+
+  /**
+   * Requests all messages missing between held messages again.
+   */
+  private void renack() {
+    if (held != null && lastHeld > lastReceived) {
+      JsonArray ranges = new JsonArray();
+      long start = 0;
+      for (long id = lastReceived + 1; id <= lastHeld; id++) {
+        int slot = (int) (id % held.length);
+        boolean missing = held[slot] == null || heldIDs[slot] != id;
+        if (missing && start == 0) {
+          start = id;
+        } else if (!missing && start != 0) {
+          ranges.add(new JsonArray().add(start).add(id - 1));
+          start = 0;
+        }
+      }
+      if (ranges.size() > 0) {
+        nack(ranges);
+      }
+    }
+  }
+
   /**
    * Sends an ack message for the current received count.
    */
@@ -223,7 +743,61 @@ public class DefaultInputConnection implements InputConnection {
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Acking messages up to: %d", this, lastReceived));
       }
-      eventBus.send(outAddress, new JsonObject().putString("action", "ack").putNumber("id", lastReceived));
+      JsonObject message = new JsonObject().putString("action", "ack").putNumber("id", lastReceived);
+      long currentTime = System.currentTimeMillis();
+      // The adaptive ack policy periodically requests a reply to an ack
+      // in order to sample the round trip time to the other side.
+      if (cadence.policy() == ConnectionConfig.AckPolicy.ADAPTIVE && currentTime - lastRoundTrip >= ROUND_TRIP_INTERVAL) {
+        lastRoundTrip = currentTime;
+        final long startTime = System.nanoTime();
+        eventBus.sendWithTimeout(sendAddress, envelope(message), ROUND_TRIP_INTERVAL, new Handler<AsyncResult<Message<Void>>>() {
+          @Override
+          public void handle(AsyncResult<Message<Void>> result) {
+            if (result.succeeded()) {
+              cadence.sampleRoundTrip((System.nanoTime() - startTime) / 1000000.0);
+            }
+          }
+        });
+      } else {
+        eventBus.send(sendAddress, envelope(message));
+      }
+      lastAcked = lastReceived;
+      lastFeedbackTime = currentTime;
+    }
+  }
+
+  /**
+   * Grants credit to the other side of the connection.
+   */
+  private void grant(boolean force) {
+    // Credit is granted as the absolute ID of the last message we're willing
+    // to receive. To limit feedback traffic, credit is only granted once the
+    // window has advanced by at least half its size.
+    int window = context.creditWindow();
+    if (window > 0 && !atMostOnce && open && connected && !paused) {
+      long limit = lastReceived + window;
+      if (force || limit - lastCredit >= Math.max(window / 2, 1)) {
+        if (log.isDebugEnabled()) {
+          log.debug(String.format("%s - Granting credit for messages up to: %d", this, limit));
+        }
+        eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "credit").putNumber("id", limit)));
+        lastCredit = limit;
+      }
+    }
+  }
+
+  /**
+   * Sends a nack message for ranges of missing messages.
+   */
+  private void nack(JsonArray ranges) {
+    // Send a "nack" message indicating the inclusive ranges of message IDs
+    // that are missing. This will cause the other side of the connection to
+    // resend only those messages.
+    if (open && connected) {
+      if (log.isDebugEnabled()) {
+        log.debug(String.format("%s - Missing messages after %d: %s", this, lastReceived, ranges.encode()));
+      }
+      eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "nack").putNumber("id", lastReceived).putArray("ranges", ranges)));
       lastFeedbackTime = System.currentTimeMillis();
     }
   }
@@ -239,7 +813,7 @@ public class DefaultInputConnection implements InputConnection {
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Received a message out of order: %d", this, lastReceived));
       }
-      eventBus.send(outAddress, new JsonObject().putString("action", "fail").putNumber("id", lastReceived));
+      eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "fail").putNumber("id", lastReceived)));
       lastFeedbackTime = System.currentTimeMillis();
     }
   }
@@ -250,7 +824,7 @@ public class DefaultInputConnection implements InputConnection {
       paused = true;
       if (open && connected) {
         log.debug(String.format("%s - Pausing connection: %s", this, context.source()));
-        eventBus.send(outAddress, new JsonObject().putString("action", "pause").putNumber("id", lastReceived));
+        eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "pause").putNumber("id", lastReceived)));
       }
     }
     return this;
@@ -262,7 +836,8 @@ public class DefaultInputConnection implements InputConnection {
       paused = false;
       if (open && connected) {
         log.debug(String.format("%s - Resuming connection: %s", this, context.source()));
-        eventBus.send(outAddress, new JsonObject().putString("action", "resume").putNumber("id", lastReceived));
+        eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "resume").putNumber("id", lastReceived)));
+        grant(true);
       }
     }
     return this;
@@ -272,9 +847,63 @@ public class DefaultInputConnection implements InputConnection {
   @SuppressWarnings("rawtypes")
   public InputConnection messageHandler(Handler handler) {
     this.messageHandler = handler;
+    this.lazy = false;
+    this.bulkSize = 0;
+    return this;
+  }
+
+  @Override
+  public InputConnection lazyMessageHandler(Handler<LazyMessage> handler) {
+    this.messageHandler = handler;
+    this.lazy = true;
+    this.bulkSize = 0;
+    return this;
+  }
+
+  @Override
+  public <U> InputConnection bulkMessageHandler(int maxSize, Handler<List<U>> handler) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Invalid bulk size " + maxSize);
+    }
+    this.messageHandler = handler;
+    this.lazy = false;
+    this.bulkSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public InputConnection intHandler(IntHandler handler) {
+    this.intHandler = handler;
+    this.primitive = intHandler != null || longHandler != null || floatHandler != null || doubleHandler != null;
+    return this;
+  }
+
+  @Override
+  public InputConnection longHandler(LongHandler handler) {
+    this.longHandler = handler;
+    this.primitive = intHandler != null || longHandler != null || floatHandler != null || doubleHandler != null;
+    return this;
+  }
+
+  @Override
+  public InputConnection floatHandler(FloatHandler handler) {
+    this.floatHandler = handler;
+    this.primitive = intHandler != null || longHandler != null || floatHandler != null || doubleHandler != null;
     return this;
   }
 
+  @Override
+  public InputConnection doubleHandler(DoubleHandler handler) {
+    this.doubleHandler = handler;
+    this.primitive = intHandler != null || longHandler != null || floatHandler != null || doubleHandler != null;
+    return this;
+  }
+
+  @Override
+  public long duplicates() {
+    return dedup != null ? dedup.suppressed() : 0;
+  }
+
   @Override
   public InputConnection batchHandler(Handler<InputBatch> handler) {
     batchHandler = handler;
@@ -296,28 +925,108 @@ public class DefaultInputConnection implements InputConnection {
   /**
    * Handles receiving a message.
    */
+  private void doMessage(long id, Object value) {
+    if (!isRedelivered(id)) {
+      deliverMessage(id, value);
+    }
+  }
+
+  /**
+   * Delivers a received message that is not a redelivery.
+   */
   @SuppressWarnings("unchecked")
-  private void doMessage(final JsonObject message) {
-    Object value = deserializer.deserialize(message);
-    if (value != null && messageHandler != null) {
+  private void deliverMessage(long id, Object value) {
+    if (value != null && (!primitive || !doPrimitive(value))) {
+      // Values that were decoded by the transport are still passed to lazy
+      // handlers as lazy messages.
+      if (lazy && !(value instanceof LazyMessage)) {
+        value = new DefaultLazyMessage(value);
+      }
       if (log.isDebugEnabled()) {
-        log.debug(String.format("%s - Received: Message[id=%d, value=%s]", this, message.getLong("id"), value));
+        log.debug(String.format("%s - Received: Message[id=%d, value=%s]", this, id, value));
+      }
+      if (bulkSize > 0) {
+        addBulk(value);
+      } else if (messageHandler != null) {
+        messageHandler.handle(value);
       }
-      messageHandler.handle(value);
     }
     for (InputHook hook : hooks) {
       hook.handleReceive(value);
     }
   }
 
+  /**
+   * Adds a message to the current bulk. The bulk is delivered once it's full
+   * or once all messages that are currently available have been handled.
+   */
+  private void addBulk(Object value) {
+    if (bulk == null) {
+      bulk = new ArrayList<>();
+    }
+    bulk.add(value);
+    if (bulk.size() >= bulkSize) {
+      flushBulk();
+    } else if (!bulkScheduled) {
+      bulkScheduled = true;
+      vertx.runOnContext(bulkFlusher);
+    }
+  }
+
+  /**
+   * Delivers the current bulk of messages. The bulk is also delivered before
+   * any group or batch event so that messages are still handled in order.
+   */
+  @SuppressWarnings("unchecked")
+  private void flushBulk() {
+    if (bulk != null) {
+      List<Object> messages = bulk;
+      bulk = null;
+      if (messageHandler != null) {
+        messageHandler.handle(messages);
+      }
+    }
+  }
+
+  /**
+   * Passes a boxed primitive message to the matching primitive handler.
+   */
+  private boolean doPrimitive(Object value) {
+    if (value instanceof Integer && intHandler != null) {
+      intHandler.handle((Integer) value);
+      return true;
+    } else if (value instanceof Long && longHandler != null) {
+      longHandler.handle((Long) value);
+      return true;
+    } else if (value instanceof Float && floatHandler != null) {
+      floatHandler.handle((Float) value);
+      return true;
+    } else if (value instanceof Double && doubleHandler != null) {
+      doubleHandler.handle((Double) value);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Indicates whether a message has already been handled and should be
+   * suppressed rather than passed to handlers again.
+   */
+  private boolean isRedelivered(long id) {
+    if (dedup != null && !dedup.add(id)) {
+      if (log.isDebugEnabled()) {
+        log.debug(String.format("%s - Suppressed redelivered message %d", this, id));
+      }
+      return true;
+    }
+    return false;
+  }
+
   /**
    * Handles a group start.
    */
-  private void doGroupStart(final JsonObject message) {
-    String groupID = message.getString("group");
-    String name = message.getString("name");
-    String parentId = message.getString("parent");
-    Object args = deserializer.deserialize(message);
+  private void doGroupStart(String groupID, String name, String parentId, Object args) {
+    flushBulk();
     DefaultConnectionInputGroup group = new DefaultConnectionInputGroup(groupID, name, this);
     groups.put(groupID, group);
     if (parentId != null) {
@@ -357,20 +1066,22 @@ public class DefaultInputConnection implements InputConnection {
     if (log.isDebugEnabled()) {
       log.debug(String.format("%s - Group ready: Group[group=%s]", this, group));
     }
-    eventBus.send(outAddress, new JsonObject().putString("action", "group").putString("group", group));
+    eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "group").putString("group", group)));
   }
 
   /**
    * Handles a group message.
    */
-  private void doGroupMessage(final JsonObject message) {
-    String groupID = message.getString("group");
+  private void doGroupMessage(long id, String groupID, Object value) {
+    flushBulk();
+    if (isRedelivered(id)) {
+      return;
+    }
     DefaultConnectionInputGroup group = groups.get(groupID);
     if (group != null) {
-      Object value = deserializer.deserialize(message);
       if (value != null) {
         if (log.isDebugEnabled()) {
-          log.debug(String.format("%s - Group received: Group[group=%s, id=%d, message=%s", this, groupID, message.getLong("id"), value));
+          log.debug(String.format("%s - Group received: Group[group=%s, id=%d, message=%s", this, groupID, id, value));
         }
         group.handleMessage(value);
       }
@@ -380,11 +1091,10 @@ public class DefaultInputConnection implements InputConnection {
   /**
    * Handles a group end.
    */
-  private void doGroupEnd(final JsonObject message) {
-    String groupID = message.getString("group");
+  private void doGroupEnd(String groupID, Object args) {
+    flushBulk();
     DefaultConnectionInputGroup group = groups.remove(groupID);
     if (group != null) {
-      Object args = deserializer.deserialize(message);
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Group ended: Group[group=%s, args=%s]", this, group.id(), args));
       }
@@ -395,12 +1105,11 @@ public class DefaultInputConnection implements InputConnection {
   /**
    * Handles a batch start.
    */
-  private void doBatchStart(final JsonObject message) {
+  private void doBatchStart(String batchID, Object args) {
+    flushBulk();
     if (currentBatch != null) {
       currentBatch.handleEnd(null);
     }
-    String batchID = message.getString("batch");
-    Object args = deserializer.deserialize(message);
     if (log.isDebugEnabled()) {
       log.debug(String.format("%s - Batch started: Batch[batch=%s, args=%s]", this, batchID, args));
     }
@@ -418,19 +1127,21 @@ public class DefaultInputConnection implements InputConnection {
     if (log.isDebugEnabled()) {
       log.debug(String.format("%s - Batch ready: Batch[batch=%s]", this, batch));
     }
-    eventBus.send(outAddress, new JsonObject().putString("action", "batch").putString("batch", batch));
+    eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "batch").putString("batch", batch)));
   }
 
   /**
    * Handles a batch message.
    */
-  private void doBatchMessage(final JsonObject message) {
-    String batchID = message.getString("batch");
+  private void doBatchMessage(long id, String batchID, Object value) {
+    flushBulk();
+    if (isRedelivered(id)) {
+      return;
+    }
     if (currentBatch != null && currentBatch.id().equals(batchID)) {
-      Object value = deserializer.deserialize(message);
       if (value != null) {
         if (log.isDebugEnabled()) {
-          log.debug(String.format("%s - Batch received: Batch[batch=%s, id=%d, message=%s]", this, batchID, message.getLong("id"), value));
+          log.debug(String.format("%s - Batch received: Batch[batch=%s, id=%d, message=%s]", this, batchID, id, value));
         }
         currentBatch.handleMessage(value);
       }
@@ -440,9 +1151,9 @@ public class DefaultInputConnection implements InputConnection {
   /**
    * Handles a batch end.
    */
-  private void doBatchEnd(final JsonObject message) {
+  private void doBatchEnd(Object args) {
+    flushBulk();
     if (currentBatch != null) {
-      Object args = deserializer.deserialize(message);
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Batch ended: Batch[batch=%s, args=%s]", this, currentBatch.id(), args));
       }
@@ -458,16 +1169,71 @@ public class DefaultInputConnection implements InputConnection {
     if (open) {
       if (!connected) {
         groups.clear();
+        decoder.reset();
         connected = true;
       }
-      message.reply(true);
+      if (message.body().containsField("window")) {
+        cadence.setWindow(message.body().getInteger("window"));
+      }
+      // Messages from a new output connection session are numbered from
+      // the start, so they can't be duplicates of the previous session's.
+      String session = message.body().getString("session");
+      if (session != null && !session.equals(this.session)) {
+        if (this.session != null) {
+          resetSequence();
+        }
+        this.session = session;
+      }
+      if (dedup != null) {
+        dedup.session(session);
+      }
+      // If the connection is listening on a transport then the endpoint is
+      // returned to the output connection so it can open a direct channel.
+      if (endpoint != null) {
+        message.reply(new JsonObject().putBoolean("connected", true).putObject("endpoint", endpoint));
+      } else {
+        message.reply(true);
+      }
       log.debug(String.format("%s - Accepted connect request from %s", this, context.source()));
+      grant(true);
+      schedule();
     } else {
       message.reply(false);
       log.debug(String.format("%s - Rejected connect request from %s, connection not open", this, context.source()));
     }
   }
 
+  /**
+   * Handles a feedback request from a stalled output connection.
+   */
+  private void doFeedback() {
+    // The output connection can't send any more messages and hasn't heard
+    // from us in a while, so resend the ack, credit and resume it's waiting on.
+    if (open && connected) {
+      ack();
+      if (!paused) {
+        eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "resume").putNumber("id", lastReceived)));
+        grant(true);
+      }
+      renack();
+    }
+  }
+
+  /**
+   * Resets message sequencing for a new output connection session.
+   */
+  private void resetSequence() {
+    log.debug(String.format("%s - Output connection %s restarted, resetting sequence", this, context.source()));
+    lastReceived = 0;
+    lastAcked = 0;
+    lastCredit = 0;
+    lastHeld = 0;
+    if (held != null) {
+      Arrays.fill(held, null);
+    }
+    deserializer.reset();
+  }
+
   /**
    * Handles disconnect.
    */
@@ -475,6 +1241,7 @@ public class DefaultInputConnection implements InputConnection {
     if (open) {
       if (connected) {
         groups.clear();
+        decoder.reset();
         connected = false;
       }
       message.reply(true);
@@ -492,14 +1259,27 @@ public class DefaultInputConnection implements InputConnection {
 
   @Override
   public void close(final Handler<AsyncResult<Void>> doneHandler) {
-    eventBus.unregisterHandler(inAddress, internalMessageHandler, new Handler<AsyncResult<Void>>() {
+    unregister(new Handler<AsyncResult<Void>>() {
       @Override
       public void handle(AsyncResult<Void> result) {
-        if (feedbackTimerID > 0) {
-          log.debug(String.format("%s - Stopping periodic ack timer ", DefaultInputConnection.this, feedbackTimerID));
-          vertx.cancelTimer(feedbackTimerID);
-          feedbackTimerID = 0;
+        unschedule();
+        ackDeadline = 0;
+        if (channel != null) {
+          channel.close(vertx, inAddress);
+          channel = null;
+        }
+        if (transport != null) {
+          transport.unlisten(inAddress);
+          transport = null;
+          endpoint = null;
+        }
+        if (compressor != null) {
+          compressor.close();
+          compressor = null;
         }
+        // The dedup window stays in shared data so that it's acquired again
+        // if the connection is reopened.
+        dedup = null;
         open = false;
         log.info(String.format("%s - Closed connection from %s", DefaultInputConnection.this, context.source()));
         doneHandler.handle(result);
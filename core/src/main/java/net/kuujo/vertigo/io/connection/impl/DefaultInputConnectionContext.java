@@ -17,10 +17,13 @@ package net.kuujo.vertigo.io.connection.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.kuujo.vertigo.hook.InputHook;
 import net.kuujo.vertigo.impl.BaseContext;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.connection.InputConnectionContext;
 import net.kuujo.vertigo.io.port.InputPortContext;
 
@@ -35,6 +38,9 @@ public class DefaultInputConnectionContext extends DefaultConnectionContext<Inpu
   @JsonIgnore
   private InputPortContext port;
   private List<InputHook> hooks = new ArrayList<>();
+  private int reorderWindow;
+  private int dedupWindow;
+  private String ackPolicy;
 
   public DefaultInputConnectionContext setPortContext(InputPortContext port) {
     this.port = port;
@@ -56,6 +62,21 @@ public class DefaultInputConnectionContext extends DefaultConnectionContext<Inpu
     return hooks;
   }
 
+  @Override
+  public int reorderWindow() {
+    return reorderWindow;
+  }
+
+  @Override
+  public int dedupWindow() {
+    return dedupWindow;
+  }
+
+  @Override
+  public ConnectionConfig.AckPolicy ackPolicy() {
+    return DefaultConnectionConfig.parseAckPolicy(ackPolicy);
+  }
+
   /**
    * Input connection context builder.
    *
@@ -93,7 +114,18 @@ public class DefaultInputConnectionContext extends DefaultConnectionContext<Inpu
         return new Builder().setAddress(context.address())
             .setHooks(context.hooks())
             .setSource(context.source())
-            .setTarget(context.target());
+            .setTarget(context.target())
+            .setFormat(context.format())
+            .setCreditWindow(context.creditWindow())
+            .setReorderWindow(context.reorderWindow())
+            .setDedupWindow(context.dedupWindow())
+            .setAckPolicy(context.ackPolicy())
+            .setLocalDelivery(context.localDelivery())
+            .setTransport(context.transport())
+            .setDeliveryMode(context.deliveryMode())
+            .setChannel(context.channel())
+            .setChannelId(context.channelId())
+            .setCodecs(context.codecs());
       }
     }
 
@@ -119,6 +151,128 @@ public class DefaultInputConnectionContext extends DefaultConnectionContext<Inpu
       return this;
     }
 
+    /**
+     * Sets the connection message format.
+     *
+     * @param format The connection message format.
+     * @return The context builder.
+     */
+    public Builder setFormat(ConnectionConfig.Format format) {
+      context.format = format != null ? format.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the credit window for credit based flow control.
+     *
+     * @param window The number of message credits.
+     * @return The context builder.
+     */
+    public Builder setCreditWindow(int window) {
+      context.creditWindow = window;
+      return this;
+    }
+
+    /**
+     * Sets the reorder window for selective retransmission.
+     *
+     * @param window The maximum number of out of order messages to hold.
+     * @return The context builder.
+     */
+    public Builder setReorderWindow(int window) {
+      context.reorderWindow = window;
+      return this;
+    }
+
+    /**
+     * Sets the deduplication window for redelivered messages.
+     *
+     * @param window The number of recently handled message IDs to remember.
+     * @return The context builder.
+     */
+    public Builder setDedupWindow(int window) {
+      context.dedupWindow = window;
+      return this;
+    }
+
+    /**
+     * Sets the ack policy.
+     *
+     * @param policy The ack policy.
+     * @return The context builder.
+     */
+    public Builder setAckPolicy(ConnectionConfig.AckPolicy policy) {
+      context.ackPolicy = policy != null ? policy.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets whether messages are delivered directly to local targets.
+     *
+     * @param enabled Whether to enable local delivery.
+     * @return The context builder.
+     */
+    public Builder setLocalDelivery(boolean enabled) {
+      context.localDelivery = enabled;
+      return this;
+    }
+
+    /**
+     * Sets the transport over which messages are sent.
+     *
+     * @param transport The connection transport.
+     * @return The context builder.
+     */
+    public Builder setTransport(ConnectionConfig.Transport transport) {
+      context.transport = transport != null ? transport.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the connection delivery mode.
+     *
+     * @param mode The delivery mode.
+     * @return The context builder.
+     */
+    public Builder setDeliveryMode(ConnectionConfig.DeliveryMode mode) {
+      context.deliveryMode = mode != null ? mode.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the multiplexed channel over which the connection is carried.
+     *
+     * @param channel The channel address, or <code>null</code> if the
+     *        connection isn't multiplexed.
+     * @return The context builder.
+     */
+    public Builder setChannel(String channel) {
+      context.channel = channel;
+      return this;
+    }
+
+    /**
+     * Sets the ID of the connection on its multiplexed channel.
+     *
+     * @param channelId The connection's channel ID.
+     * @return The context builder.
+     */
+    public Builder setChannelId(int channelId) {
+      context.channelId = channelId;
+      return this;
+    }
+
+    /**
+     * Sets the message codecs used by the connection.
+     *
+     * @param codecs A map of message type class names to codec class names.
+     * @return The context builder.
+     */
+    public Builder setCodecs(Map<String, String> codecs) {
+      context.codecs = codecs != null ? new HashMap<>(codecs) : new HashMap<String, String>();
+      return this;
+    }
+
     /**
      * Sets the input hooks.
      *
@@ -16,18 +16,21 @@
 package net.kuujo.vertigo.io.connection.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.UUID;
 
 import net.kuujo.vertigo.hook.OutputHook;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.connection.OutputConnection;
 import net.kuujo.vertigo.io.connection.OutputConnectionContext;
 import net.kuujo.vertigo.io.group.OutputGroup;
+import net.kuujo.vertigo.io.impl.CodecRegistry;
 import net.kuujo.vertigo.io.impl.OutputSerializer;
+import net.kuujo.vertigo.io.impl.SharedValue;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
@@ -48,25 +51,50 @@ import org.vertx.java.core.logging.impl.LoggerFactory;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public class DefaultOutputConnection implements OutputConnection {
+public class DefaultOutputConnection implements OutputConnection, SharedValueOutput {
   private static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+  private static final long FEEDBACK_REQUEST_INTERVAL = 1000;
   private final Logger log;
   private final Vertx vertx;
   private final EventBus eventBus;
   private final OutputConnectionContext context;
   private final String outAddress;
   private final String inAddress;
-  private final OutputSerializer serializer = new OutputSerializer();
+  private final String readyAddress;
+  private final String sendAddress;
+  private final int muxID;
+  private Multiplexer mux;
+  private final String session = UUID.randomUUID().toString();
+  private final CodecRegistry codecs;
+  private final boolean primitives;
+  private final FrameEncoder frameEncoder;
+  private MessageEncoder encoder;
+  private LocalChannel channel;
+  private TransportChannel transportChannel;
   private List<OutputHook> hooks = new ArrayList<>();
   private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
   private Handler<Void> drainHandler;
   private long currentMessage = 1;
-  private final TreeMap<Long, JsonObject> messages = new TreeMap<>();
+  private final ReplayBuffer messages;
+  private final SpillLog spill;
+  private final FrameCompressor compressor;
+  private final boolean atMostOnce;
+  private final List<Object> frame = new ArrayList<>();
+  private long frameTimerID;
+  private boolean frameScheduled;
   private final Map<String, DefaultConnectionOutputGroup> groups = new HashMap<>();
   private DefaultConnectionOutputBatch currentBatch;
   private boolean open;
+  private boolean opening;
   private boolean full;
   private boolean paused;
+  private long lastSent;
+  private Handler<AsyncResult<Void>> connectHandler;
+  private long connectTimerID;
+  private boolean announced;
+  private long sendLimit;
+  private FeedbackTimer stallTimer;
+  private long lastFeedbackRequest;
 
   private final Handler<Message<JsonObject>> internalMessageHandler = new Handler<Message<JsonObject>>() {
     @Override
@@ -82,32 +110,126 @@ public class DefaultOutputConnection implements OutputConnection {
             break;
           case "ack":
             doAck(message.body().getLong("id"));
+            message.reply();
             break;
           case "fail":
             doFail(message.body().getLong("id"));
             break;
+          case "nack":
+            doNack(message.body().getLong("id"), message.body().getArray("ranges"));
+            break;
           case "pause":
             doPause(message.body().getLong("id"));
             break;
           case "resume":
             doResume(message.body().getLong("id"));
             break;
+          case "credit":
+            doCredit(message.body().getLong("id"));
+            break;
+          case "ready":
+            doReady();
+            break;
         }
       }
     }
   };
 
+  private final Handler<Message<Object>> readyHandler = new Handler<Message<Object>>() {
+    @Override
+    public void handle(Message<Object> message) {
+      doReady();
+    }
+  };
+
+  private final Handler<Object> muxHandler = new Handler<Object>() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(Object message) {
+      internalMessageHandler.handle((Message<JsonObject>) message);
+    }
+  };
+
+  private final Handler<Long> frameTimer = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      frameTimerID = 0;
+      flush();
+    }
+  };
+
+  private final Handler<Void> frameFlusher = new Handler<Void>() {
+    @Override
+    public void handle(Void _) {
+      flush();
+    }
+  };
+
+  private final Handler<Object> replayHandler = new Handler<Object>() {
+    @Override
+    public void handle(Object message) {
+      write(message);
+    }
+  };
+
+  private final Handler<Long> stallChecker = new Handler<Long>() {
+    @Override
+    public void handle(Long currentTime) {
+      // The other side of the connection only sends feedback while it has
+      // something to say, so if the ack, credit grant or resume that would
+      // unblock the connection is lost then nothing else will be sent. Ask
+      // for feedback periodically for as long as the connection is stalled.
+      if (!isStalled()) {
+        unscheduleStall();
+      } else if (currentTime - lastFeedbackRequest >= FEEDBACK_REQUEST_INTERVAL) {
+        log.debug(String.format("%s - Connection to %s is stalled, requesting feedback", DefaultOutputConnection.this, context.target()));
+        lastFeedbackRequest = currentTime;
+        eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "feedback")));
+      }
+    }
+  };
+
+  private final Handler<Object> pendingHandler = new Handler<Object>() {
+    @Override
+    public void handle(Object message) {
+      lastSent++;
+      write(message);
+    }
+  };
+
   public DefaultOutputConnection(Vertx vertx, String address) {
     this(vertx, DefaultOutputConnectionContext.Builder.newBuilder().setAddress(address).build());
   }
 
   public DefaultOutputConnection(Vertx vertx, OutputConnectionContext context) {
+    this(vertx, context, null);
+  }
+
+  public DefaultOutputConnection(Vertx vertx, OutputConnectionContext context, DirectBufferPool pool) {
     this.vertx = vertx;
     this.eventBus = vertx.eventBus();
     this.context = context;
     this.hooks = context.hooks();
     this.outAddress = String.format("%s.out", context.address());
     this.inAddress = String.format("%s.in", context.address());
+    this.readyAddress = String.format("%s.ready", context.address());
+    this.sendAddress = String.format("%s.in", context.channel() != null ? context.channel() : context.address());
+    this.muxID = context.channelId();
+    this.codecs = CodecRegistry.create(context.codecs());
+    this.primitives = codecs == null || !codecs.hasPrimitiveCodecs();
+    this.atMostOnce = context.deliveryMode() == ConnectionConfig.DeliveryMode.AT_MOST_ONCE;
+    // Session serialized messages may reference class descriptors defined by
+    // earlier messages, so they can't be used if messages may be lost.
+    OutputSerializer serializer = new OutputSerializer(codecs, atMostOnce ? ConnectionConfig.SerializationMode.STANDARD : context.serializationMode());
+    this.frameEncoder = context.format() == ConnectionConfig.Format.BINARY ? new BinaryMessageEncoder(serializer) : new JsonMessageEncoder(serializer);
+    this.encoder = frameEncoder;
+    // Direct storage draws on the instance's direct memory budget, so without a
+    // pool messages are held on the heap.
+    this.messages = context.replayStorage() == ConnectionConfig.Storage.DIRECT && pool != null
+        ? new DirectReplayBuffer(pool, context.replayMemory()) : new ReplayBuffer();
+    this.spill = context.spillDirectory() != null ? new SpillLog(context.spillDirectory()) : null;
+    this.compressor = context.compression() == ConnectionConfig.Compression.DEFLATE ? new FrameCompressor(context.compressionThreshold()) : null;
+    this.sendLimit = context.creditWindow() > 0 && !atMostOnce ? 0 : Long.MAX_VALUE;
     this.log = LoggerFactory.getLogger(String.format("%s-%s", DefaultOutputConnection.class.getName(), context.target()));
   }
 
@@ -133,7 +255,8 @@ public class DefaultOutputConnection implements OutputConnection {
 
   @Override
   public OutputConnection open(final Handler<AsyncResult<Void>> doneHandler) {
-    eventBus.registerHandler(outAddress, internalMessageHandler, new Handler<AsyncResult<Void>>() {
+    opening = true;
+    register(new Handler<AsyncResult<Void>>() {
       @Override
       public void handle(AsyncResult<Void> result) {
         if (result.failed()) {
@@ -146,6 +269,69 @@ public class DefaultOutputConnection implements OutputConnection {
     return this;
   }
 
+  /**
+   * Registers the connection's event bus handlers. Multiplexed connections
+   * register with the multiplexer for their channel instead, and receive the
+   * other side's announcement that it's open over the channel.
+   */
+  private void register(final Handler<AsyncResult<Void>> doneHandler) {
+    if (context.channel() != null) {
+      mux = Multiplexer.instance(vertx, String.format("%s.out", context.channel()));
+      mux.register(muxID, muxHandler, doneHandler);
+    } else {
+      eventBus.registerHandler(outAddress, internalMessageHandler, new Handler<AsyncResult<Void>>() {
+        @Override
+        public void handle(AsyncResult<Void> result) {
+          if (result.failed()) {
+            new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+          } else {
+            // Subscribe to the other side's announcement that it's open before
+            // connecting so the announcement can't be missed.
+            eventBus.registerHandler(readyAddress, readyHandler, doneHandler);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Unregisters the connection's event bus handlers.
+   */
+  private void unregister(Handler<AsyncResult<Void>> doneHandler) {
+    if (mux != null) {
+      mux.unregister(muxID, doneHandler);
+      mux = null;
+    } else {
+      eventBus.unregisterHandler(readyAddress, readyHandler);
+      eventBus.unregisterHandler(outAddress, internalMessageHandler, doneHandler);
+    }
+  }
+
+  /**
+   * Adds the connection ID to a message sent over a multiplexed channel.
+   */
+  private Object envelope(Object message) {
+    return context.channel() != null ? Multiplexer.wrap(muxID, message) : message;
+  }
+
+  /**
+   * Handles the other side of the connection announcing that it's open.
+   */
+  private void doReady() {
+    // If we're waiting to retry the connection then retry immediately,
+    // otherwise make sure the retry happens immediately if the current
+    // attempt fails.
+    if (connectTimerID > 0) {
+      vertx.cancelTimer(connectTimerID);
+      connectTimerID = 0;
+      Handler<AsyncResult<Void>> doneHandler = connectHandler;
+      connectHandler = null;
+      connect(doneHandler);
+    } else if (!open) {
+      announced = true;
+    }
+  }
+
   /**
    * Connects to the other side of the connection.
    */
@@ -154,9 +340,12 @@ public class DefaultOutputConnection implements OutputConnection {
     // until we get a response. This gives the other side of the connection time
     // to open and ensures that the connection doesn't claim it's open until
     // the other side has registered a handler and responded at least once.
-    eventBus.sendWithTimeout(inAddress, new JsonObject().putString("action", "connect"), 1000, new Handler<AsyncResult<Message<Boolean>>>() {
+    // Attempts are retried as soon as the other side announces that it's open,
+    // falling back to a timer in case the announcement is lost.
+    announced = false;
+    eventBus.sendWithTimeout(sendAddress, envelope(new JsonObject().putString("action", "connect").putString("session", session).putNumber("window", maxQueueSize)), 1000, new Handler<AsyncResult<Message<Object>>>() {
       @Override
-      public void handle(AsyncResult<Message<Boolean>> result) {
+      public void handle(AsyncResult<Message<Object>> result) {
         if (result.failed()) {
           ReplyException failure = (ReplyException) result.cause();
           if (failure.failureType().equals(ReplyFailure.RECIPIENT_FAILURE)) {
@@ -167,33 +356,114 @@ public class DefaultOutputConnection implements OutputConnection {
             connect(doneHandler);
           } else {
             log.debug(String.format("%s - Connection to %s failed, retrying", DefaultOutputConnection.this, context.target()));
-            vertx.setTimer(500, new Handler<Long>() {
-              @Override
-              public void handle(Long timerID) {
-                connect(doneHandler);
-              }
-            });
+            retry(doneHandler);
           }
-        } else if (result.result().body()) {
+        } else if (result.result().body() instanceof JsonObject) {
+          // The other side of the connection replies with its transport
+          // endpoint if it's listening on a transport.
           log.info(String.format("%s - Connected to %s", DefaultOutputConnection.this, context.target()));
-          open = true;
-          new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+          doOpen(((JsonObject) result.result().body()).getObject("endpoint"), doneHandler);
+        } else if ((Boolean) result.result().body()) {
+          log.info(String.format("%s - Connected to %s", DefaultOutputConnection.this, context.target()));
+          doOpen(null, doneHandler);
         } else {
           log.debug(String.format("%s - Connection to %s failed, retrying", DefaultOutputConnection.this, context.target()));
-          vertx.setTimer(500, new Handler<Long>() {
+          retry(doneHandler);
+        }
+      }
+    });
+  }
+
+  /**
+   * Retries connecting once the other side announces that it's open.
+   */
+  private void retry(final Handler<AsyncResult<Void>> doneHandler) {
+    if (announced) {
+      connect(doneHandler);
+    } else {
+      connectHandler = doneHandler;
+      connectTimerID = vertx.setTimer(500, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          connectTimerID = 0;
+          connectHandler = null;
+          connect(doneHandler);
+        }
+      });
+    }
+  }
+
+  /**
+   * Opens the connection once the other side has accepted it.
+   */
+  private void doOpen(JsonObject endpoint, final Handler<AsyncResult<Void>> doneHandler) {
+    openLocal();
+    if (channel == null && endpoint != null && context.transport() == ConnectionConfig.Transport.TCP && transportChannel == null) {
+      openTransport(endpoint, doneHandler);
+    } else {
+      opened(doneHandler);
+    }
+  }
+
+  /**
+   * Opens a transport channel to the other side of the connection. If the
+   * channel can't be opened then messages are sent over the event bus.
+   */
+  private void openTransport(JsonObject endpoint, final Handler<AsyncResult<Void>> doneHandler) {
+    TcpTransport.instance(vertx).connect(inAddress, endpoint, new Handler<AsyncResult<TransportChannel>>() {
+      @Override
+      public void handle(AsyncResult<TransportChannel> result) {
+        if (result.failed()) {
+          log.warn(String.format("%s - Failed to open transport to %s, falling back to event bus", DefaultOutputConnection.this, context.target()), result.cause());
+        } else {
+          log.debug(String.format("%s - Sending messages to %s over transport", DefaultOutputConnection.this, context.target()));
+          transportChannel = result.result();
+          transportChannel.drainHandler(new Handler<Void>() {
             @Override
-            public void handle(Long timerID) {
-              connect(doneHandler);
+            public void handle(Void _) {
+              checkDrain();
             }
           });
         }
+        opened(doneHandler);
       }
     });
   }
 
+  /**
+   * Marks the connection open and sends any messages that were held
+   * while the connection was being opened.
+   */
+  private void opened(Handler<AsyncResult<Void>> doneHandler) {
+    open = true;
+    sendPending();
+    checkDrain();
+    new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+  }
+
+  /**
+   * Opens a local channel to the other side of the connection if it's
+   * deployed in the same Vert.x instance.
+   */
+  private void openLocal() {
+    // Spilled messages must be serialized, so local delivery can't be
+    // used in combination with spilling.
+    if (context.localDelivery() && spill == null) {
+      LocalChannel channel = LocalChannel.lookup(vertx, inAddress);
+      if (channel != null) {
+        log.debug(String.format("%s - Delivering messages to %s locally", this, context.target()));
+        this.channel = channel;
+        this.encoder = new LocalMessageEncoder(context.copyPolicy(), codecs);
+      }
+    }
+  }
+
   @Override
   public OutputConnection setSendQueueMaxSize(int maxSize) {
     this.maxQueueSize = maxSize;
+    if (open) {
+      eventBus.send(sendAddress, envelope(new JsonObject().putString("action", "window").putNumber("size", maxSize)));
+    }
     return this;
   }
 
@@ -204,12 +474,12 @@ public class DefaultOutputConnection implements OutputConnection {
 
   @Override
   public int size() {
-    return messages.size();
+    return spill != null ? messages.size() + spill.size() : messages.size();
   }
 
   @Override
   public boolean sendQueueFull() {
-    return paused || messages.size() >= maxQueueSize;
+    return paused || isFull();
   }
 
   @Override
@@ -270,7 +540,26 @@ public class DefaultOutputConnection implements OutputConnection {
 
   @Override
   public void close(final Handler<AsyncResult<Void>> doneHandler) {
-    eventBus.unregisterHandler(outAddress, internalMessageHandler, new Handler<AsyncResult<Void>>() {
+    opening = false;
+    flush();
+    messages.clear();
+    if (spill != null) {
+      spill.clear();
+    }
+    if (transportChannel != null) {
+      transportChannel.close();
+      transportChannel = null;
+    }
+    if (compressor != null) {
+      compressor.close();
+    }
+    if (connectTimerID > 0) {
+      vertx.cancelTimer(connectTimerID);
+      connectTimerID = 0;
+      connectHandler = null;
+    }
+    unscheduleStall();
+    unregister(new Handler<AsyncResult<Void>>() {
       @Override
       public void handle(AsyncResult<Void> result) {
         if (result.failed()) {
@@ -286,7 +575,7 @@ public class DefaultOutputConnection implements OutputConnection {
    * Disconnects from the other side of the connection.
    */
   private void disconnect(final Handler<AsyncResult<Void>> doneHandler) {
-    eventBus.sendWithTimeout(inAddress, new JsonObject().putString("action", "disconnect"), 5000, new Handler<AsyncResult<Message<Boolean>>>() {
+    eventBus.sendWithTimeout(sendAddress, envelope(new JsonObject().putString("action", "disconnect")), 5000, new Handler<AsyncResult<Message<Boolean>>>() {
       @Override
       public void handle(AsyncResult<Message<Boolean>> result) {
         if (result.failed()) {
@@ -322,30 +611,123 @@ public class DefaultOutputConnection implements OutputConnection {
    * Checks whether the connection is open.
    */
   private void checkOpen() {
-    if (!open) throw new IllegalStateException(String.format("%s - Connection to %s not open.", this, context.target()));
+    // Lazily opened connections accept messages while they're being opened.
+    // The messages are stored and sent once the connection opens.
+    if (!open && !(opening && context.lazyOpen())) throw new IllegalStateException(String.format("%s - Connection to %s not open.", this, context.target()));
+  }
+
+  /**
+   * Returns the number of stored messages that have not yet been sent.
+   */
+  private int backlog() {
+    return (int) (messages.next() - 1 - lastSent);
+  }
+
+  /**
+   * Indicates whether the send queue is full. When credit based flow control
+   * is enabled only messages still waiting for credit count towards the
+   * queue size, otherwise all unacked messages do.
+   */
+  private boolean isFull() {
+    // Lazily opened connections hold messages in the replay buffer until the
+    // connection opens, so the pre-open buffer bounds the queue until then.
+    // At-most-once messages can't be held, so those connections are full.
+    if (!open && context.lazyOpen()) {
+      return atMostOnce || messages.size() >= context.preOpenBuffer();
+    }
+
+    // Messages written to the transport are buffered by the socket outside
+    // of the replay window, so the connection is full while the socket is.
+    if (transportFull()) {
+      return true;
+    }
+
+    // At-most-once connections never queue messages, so they're only
+    // full while the other side of the connection is paused.
+    if (atMostOnce) {
+      return paused;
+    }
+    if (spill != null) {
+      return false;
+    }
+    return (context.creditWindow() > 0 ? backlog() : messages.size()) >= maxQueueSize;
+  }
+
+  /**
+   * Indicates whether the send queue has drained enough to accept messages.
+   */
+  private boolean isDrained() {
+    if ((!open && context.lazyOpen()) || transportFull()) {
+      return false;
+    }
+    if (atMostOnce) {
+      return true;
+    }
+    return context.creditWindow() > 0 ? backlog() < maxQueueSize : messages.size() < maxQueueSize / 2;
+  }
+
+  /**
+   * Indicates whether the transport channel's write queue is full.
+   */
+  private boolean transportFull() {
+    return transportChannel != null && transportChannel.writeQueueFull();
   }
 
   /**
    * Checks whether the connection is full.
    */
   private void checkFull() {
-    if (!full && messages.size() >= maxQueueSize) {
+    if (!full && isFull()) {
       full = true;
       log.debug(String.format("%s - Connection to %s is full", this, context.target()));
     }
+    checkStall();
   }
 
   /**
    * Checks whether the connection has been drained.
    */
   private void checkDrain() {
-    if (full && !paused && messages.size() < maxQueueSize / 2) {
+    if (full && !paused && isDrained()) {
       full = false;
       log.debug(String.format("%s - Connection to %s is drained", this, context.target()));
       if (drainHandler != null) {
         drainHandler.handle((Void) null);
       }
     }
+    checkStall();
+  }
+
+  /**
+   * Indicates whether the connection is waiting on feedback from the other
+   * side of the connection before it can send any more messages.
+   */
+  private boolean isStalled() {
+    if (!open || atMostOnce) {
+      return false;
+    }
+    return paused || full || lastSent + 1 < messages.next() || (spill != null && !spill.isEmpty());
+  }
+
+  /**
+   * Starts requesting feedback if the connection has stalled.
+   */
+  private void checkStall() {
+    if (stallTimer == null && isStalled()) {
+      lastFeedbackRequest = System.currentTimeMillis();
+      stallTimer = FeedbackTimer.instance(vertx);
+      stallTimer.schedule(stallChecker);
+    }
+  }
+
+  /**
+   * Stops requesting feedback.
+   */
+  private void unscheduleStall() {
+    if (stallTimer != null) {
+      stallTimer.cancel(stallChecker);
+      stallTimer = null;
+    }
   }
 
   /**
@@ -376,11 +758,9 @@ public class DefaultOutputConnection implements OutputConnection {
     if (log.isDebugEnabled()) {
       log.debug(String.format("%s - Received ack for messages up to %d, removing all previous messages from memory", this, id));
     }
-    if (messages.containsKey(id+1)) {
-      messages.tailMap(id+1);
-    } else {
-      messages.clear();
-    }
+    messages.trim(id);
+    unspill();
+    sendPending();
     checkDrain();
   }
 
@@ -393,14 +773,43 @@ public class DefaultOutputConnection implements OutputConnection {
     }
 
     // Ack all the entries before the given ID.
-    doAck(id);
+    messages.trim(id);
+
+    // Any messages waiting in the current frame are also held in the
+    // replay buffer, so discard the frame before resending.
+    frame.clear();
 
     // Now that all the entries before the given ID have been removed,
-    // just iterate over the messages map and resend all the messages.
-    Iterator<Map.Entry<Long, JsonObject>> iter = messages.entrySet().iterator();
-    while (iter.hasNext()) {
-      eventBus.send(inAddress, iter.next().getValue());
+    // resend all the messages that had already been sent. Messages that
+    // are still waiting for credit are sent once the resend is complete.
+    messages.replay(messages.first(), lastSent + 1, replayHandler);
+    unspill();
+    sendPending();
+    checkDrain();
+  }
+
+  /**
+   * Handles a selective resend request.
+   */
+  private void doNack(long id, JsonArray ranges) {
+    if (log.isDebugEnabled()) {
+      log.debug(String.format("%s - Received resend request for messages %s", this, ranges.encode()));
     }
+
+    // Ack all the entries up to the given ID.
+    messages.trim(id);
+
+    // Resend only the missing ranges. Ranges are inclusive, and only messages
+    // that have already been sent are resent since any others are still
+    // waiting to be sent in order.
+    for (Object range : ranges) {
+      long from = ((JsonArray) range).<Number>get(0).longValue();
+      long to = ((JsonArray) range).<Number>get(1).longValue();
+      messages.replay(from, Math.min(to, lastSent) + 1, replayHandler);
+    }
+    unspill();
+    sendPending();
+    checkDrain();
   }
 
   /**
@@ -409,6 +818,7 @@ public class DefaultOutputConnection implements OutputConnection {
   private void doPause(long id) {
     log.debug(String.format("%s - Paused connection to %s", this, context.target()));
     paused = true;
+    checkFull();
   }
 
   /**
@@ -418,25 +828,240 @@ public class DefaultOutputConnection implements OutputConnection {
     if (paused) {
       log.debug(String.format("%s - Resumed connection to %s", this, context.target()));
       paused = false;
+      sendPending();
       checkDrain();
     }
   }
 
+  /**
+   * Handles a credit grant.
+   */
+  private void doCredit(long id) {
+    // Credits are granted as the absolute ID of the last message the other
+    // side of the connection is willing to receive, so lost or repeated
+    // grants can never leak or duplicate credit.
+    if (id > sendLimit) {
+      if (log.isDebugEnabled()) {
+        log.debug(String.format("%s - Received credit for messages up to %d", this, id));
+      }
+      sendLimit = id;
+      sendPending();
+      checkDrain();
+    }
+  }
+
+  /**
+   * Stores an encoded message until it's acked.
+   *
+   * @return Indicates whether the message can be sent.
+   */
+  private boolean store(long id, Object message) {
+    // At-most-once messages are never resent, so there's no need to store them.
+    if (atMostOnce) {
+      return true;
+    }
+
+    // If the send queue is full and spilling is enabled then append the
+    // message to the spill log. Once the log contains any messages all
+    // subsequent messages must also be spilled in order to preserve ordering.
+    if (spill != null && (!spill.isEmpty() || messages.size() >= maxQueueSize)) {
+      spill.append(id, message);
+      return false;
+    }
+    messages.append(id, message);
+    return true;
+  }
+
+  /**
+   * Moves spilled messages into the replay buffer as space becomes available.
+   */
+  private void unspill() {
+    if (spill != null) {
+      while (!spill.isEmpty() && messages.size() < maxQueueSize) {
+        long id = spill.first();
+        Object message = spill.poll();
+        messages.append(id, message);
+        if (canSend(id)) {
+          send(id, message);
+        }
+      }
+    }
+  }
+
+  /**
+   * Indicates whether the message with the given ID can be sent immediately.
+   * Messages are always sent in order, so a message can only be sent once
+   * all previous messages have been sent and the other side of the connection
+   * has granted credit for it.
+   */
+  private boolean canSend(long id) {
+    // At-most-once messages that can't be sent immediately are dropped.
+    if (atMostOnce) {
+      return open && !paused;
+    }
+    return open && !paused && id == lastSent + 1 && id <= sendLimit;
+  }
+
+  /**
+   * Sends a stored message to the other side of the connection.
+   */
+  private void send(long id, Object message) {
+    lastSent = id;
+    write(message);
+  }
+
+  /**
+   * Sends any stored messages that are waiting for credit.
+   */
+  private void sendPending() {
+    long next = messages.next();
+    if (open && !paused && lastSent + 1 < next && lastSent < sendLimit) {
+      long to = sendLimit < next ? sendLimit + 1 : next;
+      messages.replay(lastSent + 1, to, pendingHandler);
+    }
+  }
+
+  /**
+   * Writes an encoded message to the other side of the connection.
+   */
+  private void write(Object message) {
+    // If the other side of the connection is local then hand the message to
+    // it directly. If the other side has been closed then look up its channel
+    // again. If it's not open the message is dropped just like a message sent
+    // to an unregistered address, and it will be resent once requested.
+    if (channel != null) {
+      if (channel.isClosed()) {
+        LocalChannel channel = LocalChannel.lookup(vertx, inAddress);
+        if (channel == null) {
+          return;
+        }
+        this.channel = channel;
+      }
+      channel.send(message);
+      return;
+    }
+
+    // If coalescing is enabled then add the message to the current frame.
+    // The frame is sent once it reaches the maximum size or once the
+    // coalesce delay expires, whichever comes first. Binary values encoded
+    // by the JSON encoder and messages replayed from direct memory can't be
+    // added to a JSON frame, so the current frame is flushed and the value
+    // is sent on its own to preserve ordering.
+    if (context.coalesceSize() > 1 && message instanceof Buffer && context.format() != ConnectionConfig.Format.BINARY) {
+      flush();
+      deliver(message);
+    } else if (context.coalesceSize() > 1) {
+      frame.add(message);
+      if (frame.size() >= context.coalesceSize()) {
+        flush();
+      } else if (!frameScheduled) {
+        frameScheduled = true;
+        if (context.coalesceDelay() > 0) {
+          frameTimerID = vertx.setTimer(context.coalesceDelay(), frameTimer);
+        } else {
+          vertx.runOnContext(frameFlusher);
+        }
+      }
+    } else {
+      deliver(message);
+    }
+  }
+
+  /**
+   * Delivers an encoded message or frame over the connection transport.
+   */
+  private void deliver(Object message) {
+    if (compressor != null) {
+      message = compressor.compress(message);
+    }
+
+    // If the transport channel has been closed then messages fall back to
+    // the event bus, which the other side of the connection always accepts.
+    if (transportChannel != null && !transportChannel.isClosed()) {
+      transportChannel.send(message);
+    } else {
+      eventBus.send(sendAddress, envelope(message));
+    }
+  }
+
+  /**
+   * Sends the current frame of coalesced messages.
+   */
+  private void flush() {
+    frameScheduled = false;
+    if (frameTimerID > 0) {
+      vertx.cancelTimer(frameTimerID);
+      frameTimerID = 0;
+    }
+    if (!frame.isEmpty()) {
+      if (log.isDebugEnabled()) {
+        log.debug(String.format("%s - Sending frame of %d messages", this, frame.size()));
+      }
+      deliver(frame.size() == 1 ? frame.get(0) : frameEncoder.encodeFrame(frame));
+      frame.clear();
+    }
+  }
+
   /**
    * Sends a message.
    */
   private OutputConnection doSend(final Object value) {
     checkOpen();
-    JsonObject message = createMessage(value)
-        .putString("action", "message");
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeMessage(id, value);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
-        log.debug(String.format("%s - Send: Message[id=%d, message=%s]", this, message.getLong("id"), value));
+        log.debug(String.format("%s - Send: Message[id=%d, message=%s]", this, id, value));
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     for (OutputHook hook : hooks) {
-      hook.handleSend(value);
+      hook.handleSend(SharedValue.unwrap(value));
+    }
+    checkFull();
+    return this;
+  }
+
+  /**
+   * Sends a chunk of messages.
+   */
+  private OutputConnection doSendAll(Collection<?> values) {
+    checkOpen();
+    for (Object value : values) {
+      long id = nextID();
+      Object message = encoder.encodeMessage(id, value);
+      if (store(id, message) && canSend(id)) {
+        if (log.isDebugEnabled()) {
+          log.debug(String.format("%s - Send: Message[id=%d, message=%s]", this, id, value));
+        }
+        send(id, message);
+      }
+      for (OutputHook hook : hooks) {
+        hook.handleSend(SharedValue.unwrap(value));
+      }
+    }
+    checkFull();
+    return this;
+  }
+
+  /**
+   * Indicates whether primitive messages can be encoded without boxing them.
+   * Primitives are only encoded directly by the binary encoder, and only when
+   * no hooks need the boxed value and no codec is registered for it.
+   */
+  private boolean isPrimitive() {
+    return primitives && encoder instanceof BinaryMessageEncoder && hooks.isEmpty();
+  }
+
+  /**
+   * Sends a primitive message that has already been encoded.
+   */
+  private OutputConnection doSend(long id, Buffer message) {
+    if (store(id, message) && canSend(id)) {
+      if (log.isDebugEnabled()) {
+        log.debug(String.format("%s - Send: Message[id=%d]", this, id));
+      }
+      send(id, message);
     }
     checkFull();
     return this;
@@ -447,12 +1072,9 @@ public class DefaultOutputConnection implements OutputConnection {
    */
   void doGroupStart(String group, String name, Object args, String parent) {
     checkOpen();
-    JsonObject message = createMessage(args)
-        .putString("group", group)
-        .putString("name", name)
-        .putString("parent", parent)
-        .putString("action", "startGroup");
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeGroupStart(id, group, name, parent, args);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
         if (parent != null) {
           log.debug(String.format("%s - Group start: Group[name=%s, group=%s, parent=%s, args=%s]", this, name, group, parent, args));
@@ -460,7 +1082,7 @@ public class DefaultOutputConnection implements OutputConnection {
           log.debug(String.format("%s - Group start: Group[name=%s, group=%s, args=%s]", this, name, group, args));
         }
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     checkFull();
   }
@@ -470,17 +1092,16 @@ public class DefaultOutputConnection implements OutputConnection {
    */
   void doGroupSend(String group, Object value) {
     checkOpen();
-    JsonObject message = createMessage(value)
-        .putString("action", "group")
-        .putString("group", group);
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeGroupMessage(id, group, value);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
-        log.debug(String.format("%s - Group send: Group[group=%s, id=%d, message=%s", this, group, message.getLong("id"), value));
+        log.debug(String.format("%s - Group send: Group[group=%s, id=%d, message=%s", this, group, id, value));
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     for (OutputHook hook : hooks) {
-      hook.handleSend(value);
+      hook.handleSend(SharedValue.unwrap(value));
     }
     checkFull();
   }
@@ -490,14 +1111,13 @@ public class DefaultOutputConnection implements OutputConnection {
    */
   void doGroupEnd(String group, Object args) {
     checkOpen();
-    JsonObject message = createMessage(args)
-        .putString("action", "endGroup")
-        .putString("group", group);
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeGroupEnd(id, group, args);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Group end: Group[group=%s, args=%s]", this, group, args));
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     groups.remove(group);
   }
@@ -507,14 +1127,13 @@ public class DefaultOutputConnection implements OutputConnection {
    */
   void doBatchStart(String batch, Object args) {
     checkOpen();
-    JsonObject message = createMessage(args)
-        .putString("batch", batch)
-        .putString("action", "startBatch");
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeBatchStart(id, batch, args);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Batch start: Batch[batch=%s]", this, batch));
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     checkFull();
   }
@@ -524,17 +1143,16 @@ public class DefaultOutputConnection implements OutputConnection {
    */
   void doBatchSend(String batch, Object value) {
     checkOpen();
-    JsonObject message = createMessage(value)
-        .putString("action", "batch")
-        .putString("batch", batch);
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeBatchMessage(id, batch, value);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
-        log.debug(String.format("%s - Batch send: Batch[batch=%s, id=%d, message=%s]", this, batch, message.getLong("id"), value));
+        log.debug(String.format("%s - Batch send: Batch[batch=%s, id=%d, message=%s]", this, batch, id, value));
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     for (OutputHook hook : hooks) {
-      hook.handleSend(value);
+      hook.handleSend(SharedValue.unwrap(value));
     }
     checkFull();
   }
@@ -544,14 +1162,13 @@ public class DefaultOutputConnection implements OutputConnection {
    */
   void doBatchEnd(String batch, Object args) {
     checkOpen();
-    JsonObject message = createMessage(args)
-        .putString("action", "endBatch")
-        .putString("batch", batch);
-    if (open && !paused) {
+    long id = nextID();
+    Object message = encoder.encodeBatchEnd(id, batch, args);
+    if (store(id, message) && canSend(id)) {
       if (log.isDebugEnabled()) {
         log.debug(String.format("%s - Batch end: Batch[batch=%s, args=%s]", this, batch, args));
       }
-      eventBus.send(inAddress, message);
+      send(id, message);
     }
     if (currentBatch != null && currentBatch.id().equals(batch)) {
       currentBatch = null;
@@ -559,17 +1176,13 @@ public class DefaultOutputConnection implements OutputConnection {
   }
 
   /**
-   * Creates a value message.
+   * Returns the next message ID.
    */
-  private JsonObject createMessage(Object value) {
-    // Tag the message with a monotonically increasing ID. The ID
+  private long nextID() {
+    // Tag each message with a monotonically increasing ID. The ID
     // will be used by the other side of the connection to guarantee
     // ordering.
-    JsonObject message = serializer.serialize(value);
-    long id = currentMessage++;
-    message.putNumber("id", id);
-    messages.put(id, message);
-    return message;
+    return currentMessage++;
   }
 
   @Override
@@ -642,6 +1255,106 @@ public class DefaultOutputConnection implements OutputConnection {
     return doSend(message);
   }
 
+  @Override
+  public OutputConnection sendAll(Collection<?> messages) {
+    return doSendAll(messages);
+  }
+
+  @Override
+  public OutputConnection sendAll(Object[] messages) {
+    return doSendAll(Arrays.asList(messages));
+  }
+
+  @Override
+  public void sendShared(SharedValue value) {
+    doSend(value);
+  }
+
+  @Override
+  public void sendAllShared(Collection<?> values) {
+    doSendAll(values);
+  }
+
+  @Override
+  public OutputConnection send(byte message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(short message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(char message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(int message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(long message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(float message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(double message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
+  @Override
+  public OutputConnection send(boolean message) {
+    if (!isPrimitive()) {
+      return doSend(message);
+    }
+    checkOpen();
+    long id = nextID();
+    return doSend(id, ((BinaryMessageEncoder) encoder).encodeMessage(id, message));
+  }
+
   @Override
   public String toString() {
     return context.toString();
@@ -17,10 +17,13 @@ package net.kuujo.vertigo.io.connection.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.kuujo.vertigo.hook.OutputHook;
 import net.kuujo.vertigo.impl.BaseContext;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.connection.OutputConnectionContext;
 import net.kuujo.vertigo.io.stream.OutputStreamContext;
 
@@ -35,6 +38,17 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
   @JsonIgnore
   private OutputStreamContext stream;
   private List<OutputHook> hooks = new ArrayList<>();
+  private int coalesceSize;
+  private long coalesceDelay;
+  private String replayStorage;
+  private long replayMemory;
+  private String spillDirectory;
+  private String copyPolicy;
+  private String compression;
+  private int compressionThreshold;
+  private boolean lazyOpen;
+  private int preOpenBuffer;
+  private String serializationMode;
 
   public DefaultOutputConnectionContext setStreamContext(OutputStreamContext stream) {
     this.stream = stream;
@@ -56,6 +70,61 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
     return hooks;
   }
 
+  @Override
+  public int coalesceSize() {
+    return coalesceSize;
+  }
+
+  @Override
+  public long coalesceDelay() {
+    return coalesceDelay;
+  }
+
+  @Override
+  public ConnectionConfig.Storage replayStorage() {
+    return DefaultConnectionConfig.parseStorage(replayStorage);
+  }
+
+  @Override
+  public long replayMemory() {
+    return replayMemory;
+  }
+
+  @Override
+  public String spillDirectory() {
+    return spillDirectory;
+  }
+
+  @Override
+  public ConnectionConfig.CopyPolicy copyPolicy() {
+    return DefaultConnectionConfig.parseCopyPolicy(copyPolicy);
+  }
+
+  @Override
+  public ConnectionConfig.Compression compression() {
+    return DefaultConnectionConfig.parseCompression(compression);
+  }
+
+  @Override
+  public int compressionThreshold() {
+    return compressionThreshold;
+  }
+
+  @Override
+  public boolean lazyOpen() {
+    return lazyOpen;
+  }
+
+  @Override
+  public int preOpenBuffer() {
+    return preOpenBuffer;
+  }
+
+  @Override
+  public ConnectionConfig.SerializationMode serializationMode() {
+    return DefaultConnectionConfig.parseSerializationMode(serializationMode);
+  }
+
   /**
    * Output connection context builder.
    *
@@ -93,7 +162,26 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
         return new Builder().setAddress(context.address())
             .setHooks(context.hooks())
             .setSource(context.source())
-            .setTarget(context.target());
+            .setTarget(context.target())
+            .setFormat(context.format())
+            .setCreditWindow(context.creditWindow())
+            .setCoalesceSize(context.coalesceSize())
+            .setCoalesceDelay(context.coalesceDelay())
+            .setReplayStorage(context.replayStorage())
+            .setReplayMemory(context.replayMemory())
+            .setSpillDirectory(context.spillDirectory())
+            .setLocalDelivery(context.localDelivery())
+            .setCopyPolicy(context.copyPolicy())
+            .setTransport(context.transport())
+            .setCompression(context.compression())
+            .setCompressionThreshold(context.compressionThreshold())
+            .setDeliveryMode(context.deliveryMode())
+            .setChannel(context.channel())
+            .setChannelId(context.channelId())
+            .setCodecs(context.codecs())
+            .setLazyOpen(context.lazyOpen())
+            .setPreOpenBuffer(context.preOpenBuffer())
+            .setSerializationMode(context.serializationMode());
       }
     }
 
@@ -119,6 +207,217 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
       return this;
     }
 
+    /**
+     * Sets the connection message format.
+     *
+     * @param format The connection message format.
+     * @return The context builder.
+     */
+    public Builder setFormat(ConnectionConfig.Format format) {
+      context.format = format != null ? format.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the credit window for credit based flow control.
+     *
+     * @param window The number of message credits.
+     * @return The context builder.
+     */
+    public Builder setCreditWindow(int window) {
+      context.creditWindow = window;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of messages to coalesce into a single frame.
+     *
+     * @param size The maximum number of messages per frame.
+     * @return The context builder.
+     */
+    public Builder setCoalesceSize(int size) {
+      context.coalesceSize = size;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time for which a coalesced frame may linger before it's sent.
+     *
+     * @param delay The maximum frame delay in milliseconds.
+     * @return The context builder.
+     */
+    public Builder setCoalesceDelay(long delay) {
+      context.coalesceDelay = delay;
+      return this;
+    }
+
+    /**
+     * Sets the storage for unacknowledged messages.
+     *
+     * @param storage The replay storage.
+     * @return The context builder.
+     */
+    public Builder setReplayStorage(ConnectionConfig.Storage storage) {
+      context.replayStorage = storage != null ? storage.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the maximum direct memory the connection may use for message replay.
+     *
+     * @param bytes The maximum number of bytes of direct memory.
+     * @return The context builder.
+     */
+    public Builder setReplayMemory(long bytes) {
+      context.replayMemory = bytes;
+      return this;
+    }
+
+    /**
+     * Sets the directory to which messages are spilled when the send queue is full.
+     *
+     * @param directory The local spill directory.
+     * @return The context builder.
+     */
+    public Builder setSpillDirectory(String directory) {
+      context.spillDirectory = directory;
+      return this;
+    }
+
+    /**
+     * Sets whether messages are delivered directly to local targets.
+     *
+     * @param enabled Whether to enable local delivery.
+     * @return The context builder.
+     */
+    public Builder setLocalDelivery(boolean enabled) {
+      context.localDelivery = enabled;
+      return this;
+    }
+
+    /**
+     * Sets the policy by which mutable messages are handed to local targets.
+     *
+     * @param policy The copy policy.
+     * @return The context builder.
+     */
+    public Builder setCopyPolicy(ConnectionConfig.CopyPolicy policy) {
+      context.copyPolicy = policy != null ? policy.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the transport over which messages are sent.
+     *
+     * @param transport The connection transport.
+     * @return The context builder.
+     */
+    public Builder setTransport(ConnectionConfig.Transport transport) {
+      context.transport = transport != null ? transport.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the connection delivery mode.
+     *
+     * @param mode The delivery mode.
+     * @return The context builder.
+     */
+    public Builder setDeliveryMode(ConnectionConfig.DeliveryMode mode) {
+      context.deliveryMode = mode != null ? mode.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the multiplexed channel over which the connection is carried.
+     *
+     * @param channel The channel address, or <code>null</code> if the
+     *        connection isn't multiplexed.
+     * @return The context builder.
+     */
+    public Builder setChannel(String channel) {
+      context.channel = channel;
+      return this;
+    }
+
+    /**
+     * Sets the ID of the connection on its multiplexed channel.
+     *
+     * @param channelId The connection's channel ID.
+     * @return The context builder.
+     */
+    public Builder setChannelId(int channelId) {
+      context.channelId = channelId;
+      return this;
+    }
+
+    /**
+     * Sets the message codecs used by the connection.
+     *
+     * @param codecs A map of message type class names to codec class names.
+     * @return The context builder.
+     */
+    public Builder setCodecs(Map<String, String> codecs) {
+      context.codecs = codecs != null ? new HashMap<>(codecs) : new HashMap<String, String>();
+      return this;
+    }
+
+    /**
+     * Sets the compression applied to frames before they're sent.
+     *
+     * @param compression The frame compression.
+     * @return The context builder.
+     */
+    public Builder setCompression(ConnectionConfig.Compression compression) {
+      context.compression = compression != null ? compression.getName() : null;
+      return this;
+    }
+
+    /**
+     * Sets the minimum size of a frame to be compressed.
+     *
+     * @param threshold The minimum frame size in bytes.
+     * @return The context builder.
+     */
+    public Builder setCompressionThreshold(int threshold) {
+      context.compressionThreshold = threshold;
+      return this;
+    }
+
+    /**
+     * Sets whether the connection is opened lazily.
+     *
+     * @param enabled Whether to open the connection lazily.
+     * @return The context builder.
+     */
+    public Builder setLazyOpen(boolean enabled) {
+      context.lazyOpen = enabled;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of messages held by a lazily opened connection
+     * until it opens.
+     *
+     * @param size The pre-open buffer size.
+     * @return The context builder.
+     */
+    public Builder setPreOpenBuffer(int size) {
+      context.preOpenBuffer = size;
+      return this;
+    }
+
+    /**
+     * Sets the mode in which messages without a codec are serialized.
+     *
+     * @param mode The serialization mode.
+     * @return The context builder.
+     */
+    public Builder setSerializationMode(ConnectionConfig.SerializationMode mode) {
+      context.serializationMode = mode != null ? mode.getName() : null;
+      return this;
+    }
+
     /**
      * Sets the output hooks.
      *
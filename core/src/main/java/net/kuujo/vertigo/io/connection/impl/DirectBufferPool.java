@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of direct memory slabs.<p>
+ *
+ * The pool allocates fixed size direct {@link ByteBuffer} slabs up to a
+ * maximum number of bytes and recycles released slabs. A single pool is
+ * shared by all the output connections of a component instance, so the pool
+ * limit acts as a per-instance direct memory budget. Like connections, the
+ * pool is not thread safe and should only be used from the instance's context.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DirectBufferPool {
+  private static final int DEFAULT_SLAB_SIZE = 1024 * 64;
+  private final Deque<ByteBuffer> slabs = new ArrayDeque<>();
+  private final int slabSize;
+  private final long maxBytes;
+  private long allocatedBytes;
+
+  public DirectBufferPool(long maxBytes) {
+    this(maxBytes, DEFAULT_SLAB_SIZE);
+  }
+
+  public DirectBufferPool(long maxBytes, int slabSize) {
+    if (slabSize < 1) {
+      throw new IllegalArgumentException("slab size must be a positive number");
+    }
+    this.maxBytes = maxBytes;
+    this.slabSize = slabSize;
+  }
+
+  /**
+   * Returns the size of each slab in the pool.
+   *
+   * @return The slab size in bytes.
+   */
+  public int slabSize() {
+    return slabSize;
+  }
+
+  /**
+   * Returns the maximum number of bytes the pool may allocate.
+   *
+   * @return The maximum number of bytes, or <code>0</code> if the pool is unbounded.
+   */
+  public long maxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the pool.
+   *
+   * @return The number of bytes allocated by the pool, including free slabs.
+   */
+  public long allocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Acquires a slab from the pool.
+   *
+   * @return A cleared slab, or <code>null</code> if the pool is exhausted.
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer slab = slabs.poll();
+    if (slab == null) {
+      if (maxBytes > 0 && allocatedBytes + slabSize > maxBytes) {
+        return null;
+      }
+      slab = ByteBuffer.allocateDirect(slabSize);
+      allocatedBytes += slabSize;
+    }
+    slab.clear();
+    return slab;
+  }
+
+  /**
+   * Releases a slab back to the pool.
+   *
+   * @param slab The slab to release.
+   */
+  public void release(ByteBuffer slab) {
+    slabs.push(slab);
+  }
+
+  /**
+   * Frees all released slabs.<p>
+   *
+   * Free slabs are dropped from the pool so their direct memory can be
+   * reclaimed, and they no longer count towards the pool limit. Slabs still
+   * held by replay buffers are not affected.
+   */
+  public void clear() {
+    allocatedBytes -= (long) slabs.size() * slabSize;
+    slabs.clear();
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Replay buffer which stores messages in direct memory.<p>
+ *
+ * Encoded messages are copied into direct memory slabs acquired from a
+ * {@link DirectBufferPool} as length prefixed records. The ring holds a small
+ * reference to each record's slab and offset, so messages can be read back
+ * directly by ID, and slabs are released back to the pool once all their
+ * messages have been acked. If the connection or pool budget is exhausted
+ * then messages are held on the heap instead.<p>
+ *
+ * Records hold messages in their encoded wire form and are always read back
+ * as a {@link Buffer}, so JSON messages are replayed as their encoded text
+ * rather than being parsed back into a {@link JsonObject}.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DirectReplayBuffer extends ReplayBuffer {
+  private static final int HEADER_SIZE = 4;
+  private final DirectBufferPool pool;
+  private final long maxBytes;
+  private final Deque<Slab> slabs = new ArrayDeque<>();
+  private int records;
+
+  public DirectReplayBuffer(DirectBufferPool pool) {
+    this(pool, 0);
+  }
+
+  public DirectReplayBuffer(DirectBufferPool pool, long maxBytes) {
+    this.pool = pool;
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public void append(long id, Object message) {
+    byte[] bytes;
+    if (message instanceof Buffer) {
+      bytes = ((Buffer) message).getBytes();
+    } else if (message instanceof JsonObject) {
+      bytes = ((JsonObject) message).encode().getBytes(StandardCharsets.UTF_8);
+    } else {
+      super.append(id, message);
+      return;
+    }
+
+    Slab slab = writableSlab(bytes.length + HEADER_SIZE);
+    if (slab == null) {
+      super.append(id, message);
+    } else {
+      super.append(id, new Record(slab, slab.buffer.position()));
+      slab.buffer.putInt(bytes.length).put(bytes);
+      slab.records++;
+      records++;
+    }
+  }
+
+  /**
+   * Returns a slab with enough space for a record of the given size.
+   */
+  private Slab writableSlab(int size) {
+    Slab slab = slabs.peekLast();
+    if (slab != null && slab.buffer.remaining() >= size) {
+      return slab;
+    }
+    if (size > pool.slabSize() || (maxBytes > 0 && (long) (slabs.size() + 1) * pool.slabSize() > maxBytes)) {
+      return null;
+    }
+    ByteBuffer buffer = pool.acquire();
+    if (buffer == null) {
+      return null;
+    }
+    slab = new Slab(buffer);
+    slabs.add(slab);
+    return slab;
+  }
+
+  @Override
+  public Object get(long id) {
+    Object message = super.get(id);
+    return message instanceof Record ? ((Record) message).read() : message;
+  }
+
+  @Override
+  public void trim(long id) {
+    long last = Math.min(id + 1, next());
+    for (long i = first(); i < last; i++) {
+      Object message = super.get(i);
+      if (message instanceof Record) {
+        Slab slab = ((Record) message).slab;
+        slab.records--;
+        records--;
+        // Records are acked in order, so a drained slab other than the one
+        // currently being written is always at the head of the log.
+        if (slab.records == 0 && slab != slabs.peekLast()) {
+          pool.release(slabs.poll().buffer);
+        }
+      }
+    }
+    if (records == 0) {
+      while (!slabs.isEmpty()) {
+        pool.release(slabs.poll().buffer);
+      }
+    }
+    super.trim(id);
+  }
+
+  @Override
+  public void replay(long from, long to, Handler<Object> handler) {
+    for (long i = Math.max(from, first()); i < Math.min(to, next()); i++) {
+      handler.handle(get(i));
+    }
+  }
+
+  /**
+   * Returns the number of bytes of direct memory held by the buffer.
+   *
+   * @return The number of bytes of direct memory held by the buffer.
+   */
+  public long directBytes() {
+    return (long) slabs.size() * pool.slabSize();
+  }
+
+  /**
+   * Direct memory slab and the number of unacked records it holds.
+   */
+  private static class Slab {
+    private final ByteBuffer buffer;
+    private int records;
+
+    private Slab(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+  }
+
+  /**
+   * Location of a single record in direct memory.
+   */
+  private static class Record {
+    private final Slab slab;
+    private final int position;
+
+    private Record(Slab slab, int position) {
+      this.slab = slab;
+      this.position = position;
+    }
+
+    /**
+     * Reads the encoded record from its slab.
+     */
+    private Buffer read() {
+      ByteBuffer buffer = slab.buffer;
+      byte[] bytes = new byte[buffer.getInt(position)];
+      ByteBuffer record = buffer.duplicate();
+      record.position(position + HEADER_SIZE);
+      record.get(bytes);
+      return new Buffer(bytes);
+    }
+  }
+
+}
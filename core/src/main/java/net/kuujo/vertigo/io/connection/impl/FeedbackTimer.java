@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+/**
+ * Shared input connection feedback timer.<p>
+ *
+ * Drives the periodic feedback and delayed acks of all of an instance's input
+ * connections from a single periodic timer rather than one timer per
+ * connection. Connections track their own ack deadlines and check them on
+ * each tick, so acks are sent within one tick of their deadline. Each
+ * connection schedules itself when it receives messages and cancels itself
+ * once it has nothing left to ack, so only connections with pending feedback
+ * are touched on each tick. Output connections also schedule themselves while
+ * they're stalled waiting for feedback, and periodically ask for it in case it
+ * was lost. The periodic timer is cancelled while no connection is scheduled,
+ * so quiet connections cost nothing.<p>
+ *
+ * Timers are owned by the context that created them, so all connections are
+ * ticked on the instance's own event loop.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class FeedbackTimer {
+  static final long INTERVAL = 100;
+  private static final Map<Context, FeedbackTimer> timers = new HashMap<>();
+  private final Vertx vertx;
+  private final Context context;
+  private final Set<Handler<Long>> scheduled = new LinkedHashSet<>();
+  private long timerID;
+
+  private final Handler<Long> timer = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      // Connections may cancel themselves while they're being ticked.
+      long currentTime = System.currentTimeMillis();
+      for (Handler<Long> handler : new ArrayList<>(scheduled)) {
+        handler.handle(currentTime);
+      }
+    }
+  };
+
+  private FeedbackTimer(Vertx vertx, Context context) {
+    this.vertx = vertx;
+    this.context = context;
+  }
+
+  /**
+   * Returns the feedback timer for the current context.
+   *
+   * @param vertx The Vert.x instance.
+   * @return The feedback timer for the current context.
+   */
+  public static FeedbackTimer instance(Vertx vertx) {
+    Context context = vertx.currentContext();
+    synchronized (timers) {
+      FeedbackTimer timer = timers.get(context);
+      if (timer == null) {
+        timer = new FeedbackTimer(vertx, context);
+        timers.put(context, timer);
+      }
+      return timer;
+    }
+  }
+
+  /**
+   * Schedules a connection to be ticked until it's cancelled.
+   *
+   * @param handler A handler to be called with the current time on each tick.
+   */
+  public void schedule(Handler<Long> handler) {
+    if (scheduled.add(handler) && timerID == 0) {
+      timerID = vertx.setPeriodic(INTERVAL, timer);
+    }
+  }
+
+  /**
+   * Cancels a scheduled connection.
+   *
+   * @param handler The connection's tick handler.
+   */
+  public void cancel(Handler<Long> handler) {
+    if (scheduled.remove(handler) && scheduled.isEmpty()) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+      synchronized (timers) {
+        if (timers.get(context) == this) {
+          timers.remove(context);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Connection frame compressor.<p>
+ *
+ * Compresses whole frames with Deflate at its fastest level. A compressed
+ * frame begins with the {@link BinaryMessageEncoder#COMPRESSED} opcode followed
+ * by the four byte length of the uncompressed frame and the compressed bytes.
+ * JSON frames are compressed from their encoded form, so the receiving side
+ * must know the connection format to decode the uncompressed frame.<p>
+ *
+ * Compressors hold native resources and must be closed once they're no
+ * longer used.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class FrameCompressor {
+  private static final int HEADER_SIZE = 5;
+  private static final int CHUNK_SIZE = 4096;
+  private final int threshold;
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+  private Deflater deflater;
+  private Inflater inflater;
+
+  public FrameCompressor() {
+    this(0);
+  }
+
+  public FrameCompressor(int threshold) {
+    this.threshold = threshold;
+  }
+
+  /**
+   * Compresses an encoded frame.
+   *
+   * @param frame The encoded frame, either a <code>Buffer</code> or a <code>JsonObject</code>.
+   * @return The compressed frame, or the original frame if it's smaller than the
+   *         threshold or doesn't shrink when compressed.
+   */
+  public Object compress(Object frame) {
+    byte[] bytes;
+    if (frame instanceof Buffer) {
+      Buffer buffer = (Buffer) frame;
+      if (buffer.length() < threshold) {
+        return frame;
+      }
+      bytes = buffer.getBytes();
+    } else {
+      bytes = ((JsonObject) frame).encode().getBytes(StandardCharsets.UTF_8);
+      if (bytes.length < threshold) {
+        return frame;
+      }
+    }
+
+    if (deflater == null) {
+      deflater = new Deflater(Deflater.BEST_SPEED);
+    }
+    deflater.reset();
+    deflater.setInput(bytes);
+    deflater.finish();
+
+    Buffer compressed = new Buffer(bytes.length / 2 + HEADER_SIZE)
+        .appendByte(BinaryMessageEncoder.COMPRESSED)
+        .appendInt(bytes.length);
+    while (!deflater.finished()) {
+      int length = deflater.deflate(chunk);
+      compressed.appendBytes(chunk, 0, length);
+      if (compressed.length() >= bytes.length) {
+        return frame;
+      }
+    }
+    return compressed;
+  }
+
+  /**
+   * Decompresses a compressed frame.
+   *
+   * @param frame The compressed frame.
+   * @return The uncompressed frame bytes.
+   */
+  public Buffer decompress(Buffer frame) {
+    if (inflater == null) {
+      inflater = new Inflater();
+    }
+    inflater.reset();
+    inflater.setInput(frame.getBytes(HEADER_SIZE, frame.length()));
+
+    byte[] bytes = new byte[frame.getInt(1)];
+    int position = 0;
+    try {
+      while (position < bytes.length && !inflater.finished()) {
+        int length = inflater.inflate(bytes, position, bytes.length - position);
+        if (length == 0 && inflater.needsInput()) {
+          break;
+        }
+        position += length;
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Malformed compressed frame", e);
+    }
+    if (position < bytes.length) {
+      throw new IllegalArgumentException("Truncated compressed frame");
+    }
+    return new Buffer(bytes);
+  }
+
+  /**
+   * Closes the compressor, releasing its native resources.
+   */
+  public void close() {
+    if (deflater != null) {
+      deflater.end();
+      deflater = null;
+    }
+    if (inflater != null) {
+      inflater.end();
+      inflater = null;
+    }
+  }
+
+}
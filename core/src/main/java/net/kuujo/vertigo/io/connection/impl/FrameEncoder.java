@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.List;
+
+/**
+ * Connection message encoder which supports coalescing.<p>
+ *
+ * Frame encoders can combine several messages they've encoded into a
+ * single event bus message.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface FrameEncoder extends MessageEncoder {
+
+  /**
+   * Encodes a frame of coalesced messages.
+   *
+   * @param messages A list of messages previously encoded by this encoder.
+   * @return The encoded frame.
+   */
+  Object encodeFrame(List<Object> messages);
+
+}
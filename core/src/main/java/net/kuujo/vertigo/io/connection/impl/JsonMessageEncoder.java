@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import net.kuujo.vertigo.io.impl.DefaultLazyMessage;
+import net.kuujo.vertigo.io.impl.OutputSerializer;
+import net.kuujo.vertigo.io.impl.SharedValue;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * JSON message encoder.<p>
+ *
+ * Encodes each message as a {@link JsonObject} envelope containing
+ * the message <code>action</code>, <code>id</code>, and serialized value.<p>
+ *
+ * {@link Buffer} and <code>byte[]</code> values and values encoded by a
+ * codec are not base64 encoded into the envelope. Instead, they're sent as
+ * a {@link Buffer} beginning with the {@link BinaryMessageEncoder#RAW}
+ * opcode followed by the four byte length of the JSON envelope, the
+ * envelope itself, and finally the raw value. Forwarded lazy messages
+ * holding such values are sent the same way.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class JsonMessageEncoder implements FrameEncoder {
+  private final OutputSerializer serializer;
+
+  public JsonMessageEncoder() {
+    this(new OutputSerializer());
+  }
+
+  public JsonMessageEncoder(OutputSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  /**
+   * Returns the value to encode. Forwarded lazy messages that can't be sent in
+   * their received JSON form are decoded so that binary and codec encoded
+   * values are sent raw rather than base64 encoded.
+   */
+  private static Object unwrap(Object value) {
+    Object raw = SharedValue.unwrap(value);
+    if (raw instanceof DefaultLazyMessage && !((DefaultLazyMessage) raw).hasJsonForm()) {
+      return ((DefaultLazyMessage) raw).value();
+    }
+    return value;
+  }
+
+  /**
+   * Creates a value message.
+   */
+  private JsonObject createMessage(long id, Object value) {
+    // Tag the message with a monotonically increasing ID. The ID
+    // will be used by the other side of the connection to guarantee
+    // ordering. Binary values are appended to the envelope by encode().
+    value = unwrap(value);
+    Object raw = SharedValue.unwrap(value);
+    if (raw instanceof Buffer) {
+      return new JsonObject().putString("type", "buffer").putNumber("id", id);
+    } else if (raw instanceof byte[]) {
+      return new JsonObject().putString("type", "bytes").putNumber("id", id);
+    }
+    int codec = serializer.codec(value);
+    if (codec > 0) {
+      return new JsonObject().putString("type", "codec").putNumber("codec", codec).putNumber("id", id);
+    }
+    return serializer.serialize(value).putNumber("id", id);
+  }
+
+  /**
+   * Completes an encoded message, appending binary values to the envelope.
+   */
+  private Object encode(JsonObject message, Object value) {
+    value = unwrap(value);
+    Object raw = SharedValue.unwrap(value);
+    if (raw instanceof Buffer) {
+      return encodeRaw(message, (Buffer) raw);
+    } else if (raw instanceof byte[]) {
+      return encodeRaw(message, new Buffer((byte[]) raw));
+    } else if (message.containsField("codec")) {
+      return encodeRaw(message, new Buffer(serializer.encode(message.getInteger("codec"), value)));
+    }
+    return message;
+  }
+
+  /**
+   * Encodes an envelope followed by a raw value.
+   */
+  private Buffer encodeRaw(JsonObject message, Buffer value) {
+    byte[] header = message.encode().getBytes(StandardCharsets.UTF_8);
+    return new Buffer(header.length + 5 + value.length())
+        .appendByte(BinaryMessageEncoder.RAW)
+        .appendInt(header.length)
+        .appendBytes(header)
+        .appendBuffer(value);
+  }
+
+  @Override
+  public Object encodeMessage(long id, Object value) {
+    return encode(createMessage(id, value)
+        .putString("action", "message"), value);
+  }
+
+  @Override
+  public Object encodeGroupStart(long id, String group, String name, String parent, Object args) {
+    return encode(createMessage(id, args)
+        .putString("group", group)
+        .putString("name", name)
+        .putString("parent", parent)
+        .putString("action", "startGroup"), args);
+  }
+
+  @Override
+  public Object encodeGroupMessage(long id, String group, Object value) {
+    return encode(createMessage(id, value)
+        .putString("action", "group")
+        .putString("group", group), value);
+  }
+
+  @Override
+  public Object encodeGroupEnd(long id, String group, Object args) {
+    return encode(createMessage(id, args)
+        .putString("action", "endGroup")
+        .putString("group", group), args);
+  }
+
+  @Override
+  public Object encodeBatchStart(long id, String batch, Object args) {
+    return encode(createMessage(id, args)
+        .putString("batch", batch)
+        .putString("action", "startBatch"), args);
+  }
+
+  @Override
+  public Object encodeBatchMessage(long id, String batch, Object value) {
+    return encode(createMessage(id, value)
+        .putString("action", "batch")
+        .putString("batch", batch), value);
+  }
+
+  @Override
+  public Object encodeBatchEnd(long id, String batch, Object args) {
+    return encode(createMessage(id, args)
+        .putString("action", "endBatch")
+        .putString("batch", batch), args);
+  }
+
+  @Override
+  public JsonObject encodeFrame(List<Object> messages) {
+    JsonArray frame = new JsonArray();
+    for (Object message : messages) {
+      frame.addObject((JsonObject) message);
+    }
+    return new JsonObject()
+        .putString("action", "frame")
+        .putArray("messages", frame);
+  }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.shareddata.Shareable;
+
+/**
+ * Local connection channel.<p>
+ *
+ * Input connections that allow local delivery register a channel under their
+ * address in the Vert.x instance's shared data. Output connections in the same
+ * Vert.x instance find the channel when they're opened and hand messages to it
+ * directly. Messages are queued in a single-producer/single-consumer queue and
+ * drained on the input connection's context, so the input connection handles
+ * them on its own thread just like event bus messages.<p>
+ *
+ * Shared data is shared by all modules in the Vert.x instance, but each module
+ * is loaded by its own class loader. A channel is only used if it was registered
+ * by the same Vertigo classes and the input connection can load the classes of
+ * the messages the output connection sends. Otherwise the output connection
+ * falls back to the event bus.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class LocalChannel implements Shareable {
+  private static final String CHANNELS_KEY = "__vertigo.local";
+  private static final int MAX_DRAIN = 1024;
+  private final Context context;
+  private final ClassLoader loader;
+  private final Handler<Object> handler;
+  private final SpscQueue<Object> queue = new SpscQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private volatile boolean closed;
+
+  private final Handler<Void> drainer = new Handler<Void>() {
+    @Override
+    public void handle(Void _) {
+      drain();
+    }
+  };
+
+  private LocalChannel(Context context, ClassLoader loader, Handler<Object> handler) {
+    this.context = context;
+    this.loader = loader;
+    this.handler = handler;
+  }
+
+  /**
+   * Registers a local channel for the current context.
+   *
+   * @param vertx The Vert.x instance.
+   * @param address The input connection address.
+   * @param handler A handler to be called on the current context for each message.
+   * @return The registered channel.
+   */
+  public static LocalChannel register(Vertx vertx, String address, Handler<Object> handler) {
+    LocalChannel channel = new LocalChannel(vertx.currentContext(), Thread.currentThread().getContextClassLoader(), handler);
+    channels(vertx).put(address, channel);
+    return channel;
+  }
+
+  /**
+   * Looks up the local channel for an input connection.
+   *
+   * @param vertx The Vert.x instance.
+   * @param address The input connection address.
+   * @return The local channel, or <code>null</code> if the input connection is not
+   *         deployed in the given Vert.x instance or can't share messages with the
+   *         current class loader.
+   */
+  public static LocalChannel lookup(Vertx vertx, String address) {
+    // A channel registered by a module with its own copy of Vertigo is an
+    // instance of a different LocalChannel class.
+    Object channel = channels(vertx).get(address);
+    if (channel instanceof LocalChannel && ((LocalChannel) channel).canLoad(Thread.currentThread().getContextClassLoader())) {
+      return (LocalChannel) channel;
+    }
+    return null;
+  }
+
+  private static ConcurrentMap<String, Object> channels(Vertx vertx) {
+    return vertx.sharedData().getMap(CHANNELS_KEY);
+  }
+
+  /**
+   * Indicates whether classes loaded by the given class loader can be handed
+   * to the input connection as they are, i.e. whether the given loader is the
+   * input connection's loader or one of its ancestors.
+   */
+  private boolean canLoad(ClassLoader other) {
+    if (other == null) {
+      return true;
+    }
+    ClassLoader current = loader;
+    while (current != null) {
+      if (current == other) {
+        return true;
+      }
+      current = current.getParent();
+    }
+    return false;
+  }
+
+  /**
+   * Returns a boolean indicating whether the channel has been closed.
+   *
+   * @return Indicates whether the channel has been closed.
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Sends a message to the input connection.
+   *
+   * @param message The message to send.
+   */
+  public void send(Object message) {
+    queue.offer(message);
+    if (scheduled.compareAndSet(false, true)) {
+      context.runOnContext(drainer);
+    }
+  }
+
+  /**
+   * Drains queued messages on the input connection's context.
+   */
+  private void drain() {
+    // Clear the scheduled flag before polling so that messages offered
+    // after the last poll always schedule another drain.
+    scheduled.set(false);
+    int count = 0;
+    Object message;
+    while (!closed && (message = queue.poll()) != null) {
+      handler.handle(message);
+      // Yield to the event loop once in a while so that a fast producer
+      // can't starve other handlers on the input connection's context.
+      if (++count == MAX_DRAIN) {
+        if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+          context.runOnContext(drainer);
+        }
+        break;
+      }
+    }
+  }
+
+  /**
+   * Closes the channel.
+   *
+   * @param vertx The Vert.x instance.
+   * @param address The input connection address.
+   */
+  public void close(Vertx vertx, String address) {
+    closed = true;
+    channels(vertx).remove(address, this);
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+/**
+ * Local connection message.<p>
+ *
+ * Local messages carry message values directly to input connections in the
+ * same Vert.x instance. The message type is one of the binary message opcodes.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class LocalMessage {
+  private final byte type;
+  private final long id;
+  private final String group;
+  private final String name;
+  private final String parent;
+  private final Object value;
+
+  public LocalMessage(byte type, long id, String group, String name, String parent, Object value) {
+    this.type = type;
+    this.id = id;
+    this.group = group;
+    this.name = name;
+    this.parent = parent;
+    this.value = value;
+  }
+
+  /**
+   * Returns the message type.
+   *
+   * @return The binary message opcode for the message type.
+   */
+  public byte type() {
+    return type;
+  }
+
+  /**
+   * Returns the message ID.
+   *
+   * @return The message ID.
+   */
+  public long id() {
+    return id;
+  }
+
+  /**
+   * Returns the group or batch ID.
+   *
+   * @return The unique group or batch ID, or <code>null</code> if the message is not grouped.
+   */
+  public String group() {
+    return group;
+  }
+
+  /**
+   * Returns the group name.
+   *
+   * @return The group name for group start messages.
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Returns the parent group or batch ID.
+   *
+   * @return The parent ID for group start messages.
+   */
+  public String parent() {
+    return parent;
+  }
+
+  /**
+   * Returns the message value.
+   *
+   * @return The message value or group arguments.
+   */
+  public Object value() {
+    return value;
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import net.kuujo.vertigo.io.LazyMessage;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.impl.CodecRegistry;
+import net.kuujo.vertigo.io.impl.InputDeserializer;
+import net.kuujo.vertigo.io.impl.OutputSerializer;
+import net.kuujo.vertigo.io.impl.SharedValue;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Local message encoder.<p>
+ *
+ * Wraps message values in {@link LocalMessage} instances for direct delivery
+ * to input connections in the same Vert.x instance. Immutable values are
+ * passed by reference. With the copy policy, JSON values, buffers and byte
+ * arrays are copied and any other values are copied by serializing them,
+ * using a registered codec if one is available. Lazy messages are decoded
+ * since local messages are delivered as values.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class LocalMessageEncoder implements MessageEncoder {
+  private final ConnectionConfig.CopyPolicy policy;
+  private final CodecRegistry codecs;
+  private OutputSerializer serializer;
+  private InputDeserializer deserializer;
+
+  public LocalMessageEncoder(ConnectionConfig.CopyPolicy policy) {
+    this(policy, null);
+  }
+
+  public LocalMessageEncoder(ConnectionConfig.CopyPolicy policy, CodecRegistry codecs) {
+    this.policy = policy;
+    this.codecs = codecs;
+  }
+
+  /**
+   * Copies a message value according to the copy policy.
+   */
+  private Object copy(Object value) {
+    value = SharedValue.unwrap(value);
+    if (value instanceof LazyMessage) {
+      value = ((LazyMessage) value).value();
+    }
+    if (policy == ConnectionConfig.CopyPolicy.REFERENCE || value == null
+        || value instanceof String || value instanceof Boolean || value instanceof Character
+        || value instanceof Integer || value instanceof Long || value instanceof Double
+        || value instanceof Float || value instanceof Short || value instanceof Byte) {
+      return value;
+    } else if (value instanceof JsonObject) {
+      return ((JsonObject) value).copy();
+    } else if (value instanceof JsonArray) {
+      return ((JsonArray) value).copy();
+    } else if (value instanceof Buffer) {
+      return ((Buffer) value).copy();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).clone();
+    } else {
+      if (serializer == null) {
+        serializer = new OutputSerializer(codecs);
+        deserializer = new InputDeserializer(codecs);
+      }
+      return deserializer.deserialize(serializer.serialize(value));
+    }
+  }
+
+  @Override
+  public LocalMessage encodeMessage(long id, Object value) {
+    return new LocalMessage(BinaryMessageEncoder.MESSAGE, id, null, null, null, copy(value));
+  }
+
+  @Override
+  public LocalMessage encodeGroupStart(long id, String group, String name, String parent, Object args) {
+    return new LocalMessage(BinaryMessageEncoder.GROUP_START, id, group, name, parent, copy(args));
+  }
+
+  @Override
+  public LocalMessage encodeGroupMessage(long id, String group, Object value) {
+    return new LocalMessage(BinaryMessageEncoder.GROUP_MESSAGE, id, group, null, null, copy(value));
+  }
+
+  @Override
+  public LocalMessage encodeGroupEnd(long id, String group, Object args) {
+    return new LocalMessage(BinaryMessageEncoder.GROUP_END, id, group, null, null, copy(args));
+  }
+
+  @Override
+  public LocalMessage encodeBatchStart(long id, String batch, Object args) {
+    return new LocalMessage(BinaryMessageEncoder.BATCH_START, id, batch, null, null, copy(args));
+  }
+
+  @Override
+  public LocalMessage encodeBatchMessage(long id, String batch, Object value) {
+    return new LocalMessage(BinaryMessageEncoder.BATCH_MESSAGE, id, batch, null, null, copy(value));
+  }
+
+  @Override
+  public LocalMessage encodeBatchEnd(long id, String batch, Object args) {
+    return new LocalMessage(BinaryMessageEncoder.BATCH_END, id, batch, null, null, copy(args));
+  }
+
+}
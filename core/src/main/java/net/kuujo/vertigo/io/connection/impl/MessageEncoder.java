@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+/**
+ * Connection message encoder.<p>
+ *
+ * The encoder converts output connection messages into an event bus
+ * compatible object which can be sent to and read by the input connection.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface MessageEncoder {
+
+  /**
+   * Encodes a message.
+   *
+   * @param id The message ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  Object encodeMessage(long id, Object value);
+
+  /**
+   * Encodes a group start message.
+   *
+   * @param id The message ID.
+   * @param group The unique group ID.
+   * @param name The group name.
+   * @param parent The parent group or batch ID, or <code>null</code> if the group has no parent.
+   * @param args The group start arguments.
+   * @return The encoded message.
+   */
+  Object encodeGroupStart(long id, String group, String name, String parent, Object args);
+
+  /**
+   * Encodes a group message.
+   *
+   * @param id The message ID.
+   * @param group The unique group ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  Object encodeGroupMessage(long id, String group, Object value);
+
+  /**
+   * Encodes a group end message.
+   *
+   * @param id The message ID.
+   * @param group The unique group ID.
+   * @param args The group end arguments.
+   * @return The encoded message.
+   */
+  Object encodeGroupEnd(long id, String group, Object args);
+
+  /**
+   * Encodes a batch start message.
+   *
+   * @param id The message ID.
+   * @param batch The unique batch ID.
+   * @param args The batch start arguments.
+   * @return The encoded message.
+   */
+  Object encodeBatchStart(long id, String batch, Object args);
+
+  /**
+   * Encodes a batch message.
+   *
+   * @param id The message ID.
+   * @param batch The unique batch ID.
+   * @param value The message value.
+   * @return The encoded message.
+   */
+  Object encodeBatchMessage(long id, String batch, Object value);
+
+  /**
+   * Encodes a batch end message.
+   *
+   * @param id The message ID.
+   * @param batch The unique batch ID.
+   * @param args The batch end arguments.
+   * @return The encoded message.
+   */
+  Object encodeBatchEnd(long id, String batch, Object args);
+
+}
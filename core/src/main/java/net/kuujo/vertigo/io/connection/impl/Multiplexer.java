@@ -0,0 +1,243 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Event bus connection multiplexer.<p>
+ *
+ * Carries all the connections between a pair of component instances over a
+ * single event bus address on each side of the connections, so handler
+ * registrations scale with the number of instance pairs rather than the
+ * number of connections. Each connection is identified by a four byte ID
+ * assigned when the network context is built. JSON messages carry the ID in
+ * the <code>mux</code> field, and buffers are prefixed with the
+ * {@link BinaryMessageEncoder#MULTIPLEXED} opcode followed by the ID.<p>
+ *
+ * Multiplexers are owned by the context that registered them, so all
+ * messages are dispatched on the owning instance's event loop. The event
+ * bus handler is unregistered once none of the context's connections use
+ * the multiplexer.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class Multiplexer {
+  private static final String ID_FIELD = "mux";
+  private static final int HEADER_SIZE = 5;
+  private static final Map<Context, Map<String, Multiplexer>> multiplexers = new HashMap<>();
+  private final EventBus eventBus;
+  private final Context context;
+  private final String address;
+  private final Map<Integer, Handler<Object>> handlers = new HashMap<>();
+  private final List<Object[]> pending = new ArrayList<>();
+  private boolean registered;
+
+  private final Handler<Message<Object>> messageHandler = new Handler<Message<Object>>() {
+    @Override
+    public void handle(Message<Object> message) {
+      Object body = message.body();
+      if (body instanceof Buffer) {
+        Buffer buffer = (Buffer) body;
+        if (buffer.length() >= HEADER_SIZE && buffer.getByte(0) == BinaryMessageEncoder.MULTIPLEXED) {
+          Handler<Object> handler = handlers.get(buffer.getInt(1));
+          if (handler != null) {
+            handler.handle(buffer.getBuffer(HEADER_SIZE, buffer.length()));
+          }
+        }
+      } else if (body instanceof JsonObject) {
+        Integer id = ((JsonObject) body).getInteger(ID_FIELD);
+        if (id != null) {
+          Handler<Object> handler = handlers.get(id);
+          if (handler != null) {
+            handler.handle(message);
+          } else {
+            handleUnknown(message);
+          }
+        }
+      }
+    }
+  };
+
+  private Multiplexer(Vertx vertx, Context context, String address) {
+    this.eventBus = vertx.eventBus();
+    this.context = context;
+    this.address = address;
+  }
+
+  /**
+   * Returns the multiplexer for an address in the current context.
+   *
+   * @param vertx The Vert.x instance.
+   * @param address The multiplexed channel address.
+   * @return The multiplexer for the address.
+   */
+  public static Multiplexer instance(Vertx vertx, String address) {
+    Context context = vertx.currentContext();
+    synchronized (multiplexers) {
+      Map<String, Multiplexer> contextMultiplexers = multiplexers.get(context);
+      if (contextMultiplexers == null) {
+        contextMultiplexers = new HashMap<>();
+        multiplexers.put(context, contextMultiplexers);
+      }
+      Multiplexer multiplexer = contextMultiplexers.get(address);
+      if (multiplexer == null) {
+        multiplexer = new Multiplexer(vertx, context, address);
+        contextMultiplexers.put(address, multiplexer);
+      }
+      return multiplexer;
+    }
+  }
+
+  /**
+   * Adds a connection ID to a message sent over a multiplexed channel.
+   *
+   * @param id The connection ID.
+   * @param message The message to send.
+   * @return The multiplexed message.
+   */
+  public static Object wrap(int id, Object message) {
+    if (message instanceof Buffer) {
+      Buffer buffer = (Buffer) message;
+      return new Buffer(buffer.length() + HEADER_SIZE).appendByte(BinaryMessageEncoder.MULTIPLEXED).appendInt(id).appendBuffer(buffer);
+    }
+    return wrap(id, (JsonObject) message);
+  }
+
+  /**
+   * Adds a connection ID to a JSON message sent over a multiplexed channel.
+   *
+   * @param id The connection ID.
+   * @param message The message to send.
+   * @return The multiplexed message.
+   */
+  public static JsonObject wrap(int id, JsonObject message) {
+    return message.putNumber(ID_FIELD, id);
+  }
+
+  /**
+   * Registers a connection with the multiplexer. JSON messages are passed
+   * to the handler as event bus messages so they can be replied to, and
+   * buffers are passed to the handler with the multiplexing header removed.
+   *
+   * @param id The connection ID.
+   * @param handler The connection's message handler.
+   * @param doneHandler An asynchronous handler to be called once registered.
+   */
+  public void register(int id, Handler<Object> handler, Handler<AsyncResult<Void>> doneHandler) {
+    handlers.put(id, handler);
+    if (registered) {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+      return;
+    }
+
+    pending.add(new Object[]{id, doneHandler});
+    if (pending.size() == 1) {
+      eventBus.registerHandler(address, messageHandler, new Handler<AsyncResult<Void>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handle(AsyncResult<Void> result) {
+          List<Object[]> requests = new ArrayList<>(pending);
+          pending.clear();
+          if (result.failed()) {
+            for (Object[] request : requests) {
+              handlers.remove(request[0]);
+            }
+          } else {
+            registered = true;
+          }
+
+          // If all the connections were unregistered while the handler was
+          // being registered then unregister it again.
+          if (handlers.isEmpty()) {
+            release(null);
+          }
+          for (Object[] request : requests) {
+            if (result.failed()) {
+              new DefaultFutureResult<Void>(result.cause()).setHandler((Handler<AsyncResult<Void>>) request[1]);
+            } else {
+              new DefaultFutureResult<Void>((Void) null).setHandler((Handler<AsyncResult<Void>>) request[1]);
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Unregisters a connection from the multiplexer.
+   *
+   * @param id The connection ID.
+   * @param doneHandler An asynchronous handler to be called once unregistered.
+   */
+  public void unregister(int id, Handler<AsyncResult<Void>> doneHandler) {
+    handlers.remove(id);
+    if (handlers.isEmpty() && pending.isEmpty()) {
+      release(doneHandler);
+    } else {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+    }
+  }
+
+  /**
+   * Unregisters the multiplexer once it's no longer used by any connection.
+   */
+  private void release(Handler<AsyncResult<Void>> doneHandler) {
+    synchronized (multiplexers) {
+      Map<String, Multiplexer> contextMultiplexers = multiplexers.get(context);
+      if (contextMultiplexers != null && contextMultiplexers.get(address) == this) {
+        contextMultiplexers.remove(address);
+        if (contextMultiplexers.isEmpty()) {
+          multiplexers.remove(context);
+        }
+      }
+    }
+    if (registered) {
+      registered = false;
+      eventBus.unregisterHandler(address, messageHandler, doneHandler);
+    } else {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+    }
+  }
+
+  /**
+   * Handles a message for a connection that isn't registered. Handshakes are
+   * answered as they would be if the connection's address weren't registered,
+   * so the other side retries its connect and completes its disconnect.
+   */
+  private void handleUnknown(Message<Object> message) {
+    String action = ((JsonObject) message.body()).getString("action");
+    if ("connect".equals(action)) {
+      message.reply(false);
+    } else if ("disconnect".equals(action)) {
+      message.reply(true);
+    }
+  }
+
+}
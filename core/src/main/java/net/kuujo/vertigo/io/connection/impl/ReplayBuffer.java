@@ -0,0 +1,192 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import org.vertx.java.core.Handler;
+
+/**
+ * Sequence indexed ring buffer of unacknowledged messages.<p>
+ *
+ * Output connections tag each message with a monotonically increasing ID,
+ * so messages can be stored in a ring of slots indexed directly by ID. This
+ * gives constant time appends, constant time trimming of acked messages,
+ * and sequential replay of unacked messages without boxing IDs or allocating
+ * a node per message. The ring grows as needed and shrinks once messages
+ * have been acked.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class ReplayBuffer {
+  private static final int DEFAULT_CAPACITY = 64;
+  private final int initialCapacity;
+  private Object[] slots;
+  private int mask;
+  private long head = 1;
+  private long tail = 1;
+
+  public ReplayBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ReplayBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be a positive number");
+    }
+    int power = 2;
+    while (power < capacity) {
+      power <<= 1;
+    }
+    this.initialCapacity = power;
+    this.slots = new Object[initialCapacity];
+    this.mask = initialCapacity - 1;
+  }
+
+  /**
+   * Appends a message to the buffer.<p>
+   *
+   * Message IDs must be appended in sequence. If the buffer is empty then
+   * the buffer is restarted at the given ID.
+   *
+   * @param id The message ID.
+   * @param message The message to append.
+   */
+  public void append(long id, Object message) {
+    if (head == tail) {
+      head = tail = id;
+    } else if (id != tail) {
+      throw new IllegalArgumentException(String.format("Message %d appended out of sequence, expected %d", id, tail));
+    }
+    if (tail - head == slots.length) {
+      resize(slots.length << 1);
+    }
+    slots[(int) (id & mask)] = message;
+    tail++;
+  }
+
+  /**
+   * Returns the message with the given ID.
+   *
+   * @param id The message ID.
+   * @return The message, or <code>null</code> if the message is not in the buffer.
+   */
+  public Object get(long id) {
+    if (id < head || id >= tail) {
+      return null;
+    }
+    return slots[(int) (id & mask)];
+  }
+
+  /**
+   * Removes all messages up to and including the given ID.
+   *
+   * @param id The ID of the last message to remove.
+   */
+  public void trim(long id) {
+    long last = Math.min(id + 1, tail);
+    for (long i = head; i < last; i++) {
+      slots[(int) (i & mask)] = null;
+    }
+    if (last > head) {
+      head = last;
+    }
+    int capacity = slots.length;
+    while (capacity > initialCapacity && tail - head <= capacity >> 2) {
+      capacity >>= 1;
+    }
+    if (capacity != slots.length) {
+      resize(capacity);
+    }
+  }
+
+  /**
+   * Replays all messages in the buffer in order.
+   *
+   * @param handler A handler to be called with each message.
+   */
+  public void replay(Handler<Object> handler) {
+    replay(head, tail, handler);
+  }
+
+  /**
+   * Replays a range of messages in the buffer in order.
+   *
+   * @param from The ID of the first message to replay.
+   * @param to The ID following the last message to replay.
+   * @param handler A handler to be called with each message.
+   */
+  public void replay(long from, long to, Handler<Object> handler) {
+    for (long i = Math.max(from, head); i < Math.min(to, tail); i++) {
+      handler.handle(slots[(int) (i & mask)]);
+    }
+  }
+
+  /**
+   * Returns the ID of the first message in the buffer.
+   *
+   * @return The ID of the first unacked message.
+   */
+  public long first() {
+    return head;
+  }
+
+  /**
+   * Returns the ID following the last message in the buffer.
+   *
+   * @return The ID of the next message to be appended.
+   */
+  public long next() {
+    return tail;
+  }
+
+  /**
+   * Returns the number of messages in the buffer.
+   *
+   * @return The number of messages in the buffer.
+   */
+  public int size() {
+    return (int) (tail - head);
+  }
+
+  /**
+   * Returns a boolean indicating whether the buffer is empty.
+   *
+   * @return Indicates whether the buffer is empty.
+   */
+  public boolean isEmpty() {
+    return head == tail;
+  }
+
+  /**
+   * Removes all messages from the buffer.
+   */
+  public void clear() {
+    trim(tail - 1);
+  }
+
+  /**
+   * Resizes the ring, copying messages into their slots in the new ring.
+   */
+  private void resize(int capacity) {
+    Object[] resized = new Object[capacity];
+    int resizedMask = capacity - 1;
+    for (long i = head; i < tail; i++) {
+      resized[(int) (i & resizedMask)] = slots[(int) (i & mask)];
+    }
+    slots = resized;
+    mask = resizedMask;
+  }
+
+}
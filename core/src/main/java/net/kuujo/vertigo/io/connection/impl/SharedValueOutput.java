@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.Collection;
+
+import net.kuujo.vertigo.io.impl.SharedValue;
+
+/**
+ * Output connection which accepts values shared between connections.<p>
+ *
+ * Output streams wrap values sent on more than one connection in a
+ * {@link SharedValue} so they're only serialized once. Shared values are
+ * only accepted through this interface rather than the public
+ * {@link net.kuujo.vertigo.io.connection.OutputConnection} API, since the
+ * cached form is only valid for connections with the same configuration.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface SharedValueOutput {
+
+  /**
+   * Sends a shared value.
+   *
+   * @param value The shared value to send.
+   */
+  void sendShared(SharedValue value);
+
+  /**
+   * Sends a chunk of messages, any of which may be shared values.
+   *
+   * @param values The messages to send.
+   */
+  void sendAllShared(Collection<?> values);
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+import net.kuujo.vertigo.io.connection.ConnectionException;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+/**
+ * Disk backed log of messages that have not yet been sent.<p>
+ *
+ * When an output connection's replay window is full, further messages are
+ * appended to the spill log rather than being held in memory. The log is
+ * stored as a series of memory mapped segment files in a local directory.
+ * Messages are read back from the head of the log in order as acks free
+ * space in the replay window, and each segment file is deleted once all of
+ * its messages have been read. Note that the JVM provides no way to unmap a
+ * segment, so a deleted segment's mapping is only released once its buffer
+ * is garbage collected. Until then the mapping continues to hold address
+ * space, and on Windows the file cannot be removed from the directory.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class SpillLog {
+  private static final Logger log = LoggerFactory.getLogger(SpillLog.class);
+  private static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024 * 16;
+  private static final byte TYPE_BUFFER = 0;
+  private static final byte TYPE_JSON = 1;
+  private static final int HEADER_SIZE = 5;
+  private final File directory;
+  private final String prefix;
+  private final int segmentSize;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private int currentSegment;
+  private long head = 1;
+  private long tail = 1;
+
+  public SpillLog(String directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public SpillLog(String directory, int segmentSize) {
+    if (segmentSize < 1) {
+      throw new IllegalArgumentException("segment size must be a positive number");
+    }
+    this.directory = new File(directory);
+    this.prefix = UUID.randomUUID().toString();
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Appends a message to the log.<p>
+   *
+   * Message IDs must be appended in sequence. If the log is empty then
+   * the log is restarted at the given ID.
+   *
+   * @param id The message ID.
+   * @param message The message to append. Only {@link Buffer} and
+   *        {@link JsonObject} messages are supported.
+   */
+  public void append(long id, Object message) {
+    if (head == tail) {
+      head = tail = id;
+    } else if (id != tail) {
+      throw new IllegalArgumentException(String.format("Message %d appended out of sequence, expected %d", id, tail));
+    }
+
+    byte type;
+    byte[] bytes;
+    if (message instanceof Buffer) {
+      type = TYPE_BUFFER;
+      bytes = ((Buffer) message).getBytes();
+    } else if (message instanceof JsonObject) {
+      type = TYPE_JSON;
+      bytes = ((JsonObject) message).encode().getBytes(StandardCharsets.UTF_8);
+    } else {
+      throw new IllegalArgumentException("Cannot spill message of type " + message.getClass().getName());
+    }
+
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.buffer.remaining() < bytes.length + HEADER_SIZE) {
+      segment = createSegment(Math.max(segmentSize, bytes.length + HEADER_SIZE));
+    }
+    segment.buffer.putInt(bytes.length).put(type).put(bytes);
+    tail++;
+  }
+
+  /**
+   * Reads and removes the message at the head of the log.
+   *
+   * @return The message at the head of the log, or <code>null</code> if the log is empty.
+   */
+  public Object poll() {
+    if (head == tail) {
+      return null;
+    }
+
+    Segment segment = segments.peekFirst();
+    int length = segment.buffer.getInt(segment.readPosition);
+    byte type = segment.buffer.get(segment.readPosition + 4);
+    byte[] bytes = new byte[length];
+    ByteBuffer record = segment.buffer.duplicate();
+    record.position(segment.readPosition + HEADER_SIZE);
+    record.get(bytes);
+    segment.readPosition += length + HEADER_SIZE;
+    head++;
+
+    // Once all the messages in the segment have been read, delete the
+    // segment. The last segment is retained for writes unless the log is empty.
+    if (segment.readPosition >= segment.buffer.position() && (segments.size() > 1 || head == tail)) {
+      segments.poll().delete();
+    }
+    return type == TYPE_BUFFER ? new Buffer(bytes) : new JsonObject(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the ID of the first message in the log.
+   *
+   * @return The ID of the message at the head of the log.
+   */
+  public long first() {
+    return head;
+  }
+
+  /**
+   * Returns the number of messages in the log.
+   *
+   * @return The number of messages in the log.
+   */
+  public int size() {
+    return (int) (tail - head);
+  }
+
+  /**
+   * Returns a boolean indicating whether the log is empty.
+   *
+   * @return Indicates whether the log is empty.
+   */
+  public boolean isEmpty() {
+    return head == tail;
+  }
+
+  /**
+   * Returns the number of segment files held by the log.
+   *
+   * @return The number of segment files.
+   */
+  public int segments() {
+    return segments.size();
+  }
+
+  /**
+   * Removes all messages from the log and deletes all segment files.
+   */
+  public void clear() {
+    while (!segments.isEmpty()) {
+      segments.poll().delete();
+    }
+    head = tail;
+  }
+
+  /**
+   * Creates a new segment file.
+   */
+  private Segment createSegment(int size) {
+    File file = new File(directory, String.format("%s-%d.spill", prefix, ++currentSegment));
+    try {
+      if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+        throw new ConnectionException("Failed to create spill directory " + directory);
+      }
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      FileChannel channel = raf.getChannel();
+      try {
+        Segment segment = new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segments.add(segment);
+        return segment;
+      } catch (IOException e) {
+        channel.close();
+        throw e;
+      }
+    } catch (IOException e) {
+      throw new ConnectionException("Failed to create spill segment " + file, e);
+    }
+  }
+
+  /**
+   * Memory mapped log segment.
+   */
+  private static class Segment {
+    private final File file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int readPosition;
+
+    private Segment(File file, FileChannel channel, MappedByteBuffer buffer) {
+      this.file = file;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    /**
+     * Closes and deletes the segment file.<p>
+     *
+     * The segment's mapping is released lazily when the buffer is collected.
+     */
+    private void delete() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn(String.format("Failed to close spill segment %s", file), e);
+      }
+      if (!file.delete()) {
+        log.warn(String.format("Failed to delete spill segment %s", file));
+      }
+    }
+  }
+
+}
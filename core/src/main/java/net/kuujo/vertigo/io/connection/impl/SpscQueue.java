@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free single-producer/single-consumer queue.<p>
+ *
+ * The queue is a singly linked list with a stub head node. The producer owns
+ * the tail and publishes each node with an ordered store, and the consumer
+ * owns the head, so neither side ever contends on a lock or a CAS. Only one
+ * thread may offer and only one thread may poll at any given time.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class SpscQueue<T> {
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<Node, Node> NEXT = AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+  private Node<T> head;
+  private Node<T> tail;
+
+  public SpscQueue() {
+    head = tail = new Node<T>(null);
+  }
+
+  /**
+   * Adds a value to the tail of the queue. Called by the producer.
+   *
+   * @param value The value to add.
+   */
+  @SuppressWarnings("unchecked")
+  public void offer(T value) {
+    Node<T> node = new Node<T>(value);
+    NEXT.lazySet(tail, node);
+    tail = node;
+  }
+
+  /**
+   * Removes a value from the head of the queue. Called by the consumer.
+   *
+   * @return The value at the head of the queue, or <code>null</code> if the queue is empty.
+   */
+  public T poll() {
+    Node<T> next = head.next;
+    if (next == null) {
+      return null;
+    }
+    T value = next.value;
+    next.value = null;
+    head = next;
+    return value;
+  }
+
+  /**
+   * Returns a boolean indicating whether the queue is empty. Called by the consumer.
+   *
+   * @return Indicates whether the queue is empty.
+   */
+  public boolean isEmpty() {
+    return head.next == null;
+  }
+
+  /**
+   * Queue node.
+   */
+  private static final class Node<T> {
+    T value;
+    volatile Node<T> next;
+
+    private Node(T value) {
+      this.value = value;
+    }
+  }
+
+}
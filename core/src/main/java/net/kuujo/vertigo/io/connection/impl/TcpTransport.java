@@ -0,0 +1,420 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.net.NetClient;
+import org.vertx.java.core.net.NetServer;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.parsetools.RecordParser;
+
+/**
+ * Direct TCP connection transport.<p>
+ *
+ * Each component instance that uses the TCP transport runs a single
+ * <code>NetServer</code> for all its input connections and keeps a single
+ * persistent socket to each remote instance for all its output connections.
+ * Connections are multiplexed over the socket by channel ID. Each frame is
+ * length prefixed and carries a one byte frame type and a four byte channel
+ * ID. When a channel is opened the sender writes an {@link #OPEN} frame
+ * carrying the input connection address, so each subsequent message carries
+ * only the channel ID rather than the full address.<p>
+ *
+ * Servers and sockets are owned by the instance's context, so all reads and
+ * writes happen on the instance's own event loop. The transport is closed
+ * once all of the instance's connections have stopped using it.<p>
+ *
+ * The advertised host defaults to the local host address and can be set
+ * with the <code>vertigo.transport.host</code> system property. Servers
+ * only listen on the advertised host unless a different bind address is
+ * set with the <code>vertigo.transport.bind</code> system property, e.g.
+ * when the advertised host is a public address behind NAT. Frames are not
+ * authenticated, so servers should never be reachable from untrusted networks.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TcpTransport implements ConnectionTransport {
+  private static final String HOST_PROPERTY_NAME = "vertigo.transport.host";
+  private static final String BIND_PROPERTY_NAME = "vertigo.transport.bind";
+  private static final byte OPEN = 0;
+  private static final byte BUFFER = 1;
+  private static final byte JSON = 2;
+  private static final int HEADER_SIZE = 5;
+  private static final Map<Context, TcpTransport> transports = new HashMap<>();
+  private final Vertx vertx;
+  private final Context context;
+  private final Map<String, Handler<Object>> receivers = new HashMap<>();
+  private final List<Handler<AsyncResult<JsonObject>>> listenHandlers = new ArrayList<>();
+  private final Map<String, Client> clients = new HashMap<>();
+  private NetServer server;
+  private NetClient client;
+  private JsonObject endpoint;
+  private int references;
+
+  private TcpTransport(Vertx vertx, Context context) {
+    this.vertx = vertx;
+    this.context = context;
+  }
+
+  /**
+   * Returns the TCP transport for the current context.
+   *
+   * @param vertx The Vert.x instance.
+   * @return The TCP transport for the current context.
+   */
+  public static TcpTransport instance(Vertx vertx) {
+    Context context = vertx.currentContext();
+    synchronized (transports) {
+      TcpTransport transport = transports.get(context);
+      if (transport == null) {
+        transport = new TcpTransport(vertx, context);
+        transports.put(context, transport);
+      }
+      return transport;
+    }
+  }
+
+  /**
+   * Returns the host advertised to output connections.
+   */
+  private static String advertisedHost() {
+    String host = System.getProperty(HOST_PROPERTY_NAME);
+    if (host != null) {
+      return host;
+    }
+    try {
+      return InetAddress.getLocalHost().getHostAddress();
+    } catch (UnknownHostException e) {
+      return "127.0.0.1";
+    }
+  }
+
+  /**
+   * Returns the host on which servers listen.
+   */
+  private static String bindHost() {
+    String host = System.getProperty(BIND_PROPERTY_NAME);
+    return host != null ? host : advertisedHost();
+  }
+
+  @Override
+  public void listen(String address, Handler<Object> messageHandler, Handler<AsyncResult<JsonObject>> doneHandler) {
+    if (endpoint != null) {
+      references++;
+      receivers.put(address, messageHandler);
+      new DefaultFutureResult<JsonObject>(endpoint).setHandler(doneHandler);
+      return;
+    }
+
+    if (server == null) {
+      try {
+        server = vertx.createNetServer().setTCPNoDelay(true);
+      } catch (IllegalStateException e) {
+        // Servers can't be created in worker verticles.
+        new DefaultFutureResult<JsonObject>(e).setHandler(doneHandler);
+        return;
+      }
+      server.connectHandler(new Handler<NetSocket>() {
+        @Override
+        public void handle(NetSocket socket) {
+          socket.dataHandler(new Receiver().parser);
+        }
+      });
+      server.listen(0, bindHost(), new Handler<AsyncResult<NetServer>>() {
+        @Override
+        public void handle(AsyncResult<NetServer> result) {
+          List<Handler<AsyncResult<JsonObject>>> handlers = new ArrayList<>(listenHandlers);
+          listenHandlers.clear();
+          if (result.failed()) {
+            server = null;
+            for (Handler<AsyncResult<JsonObject>> handler : handlers) {
+              release();
+              new DefaultFutureResult<JsonObject>(result.cause()).setHandler(handler);
+            }
+          } else {
+            endpoint = new JsonObject().putString("host", advertisedHost()).putNumber("port", server.port());
+            for (Handler<AsyncResult<JsonObject>> handler : handlers) {
+              new DefaultFutureResult<JsonObject>(endpoint).setHandler(handler);
+            }
+          }
+        }
+      });
+    }
+    references++;
+    receivers.put(address, messageHandler);
+    listenHandlers.add(doneHandler);
+  }
+
+  @Override
+  public void unlisten(String address) {
+    if (receivers.remove(address) != null) {
+      release();
+    }
+  }
+
+  @Override
+  public void connect(String address, JsonObject endpoint, Handler<AsyncResult<TransportChannel>> doneHandler) {
+    String host = endpoint.getString("host");
+    int port = endpoint.getInteger("port");
+    String key = String.format("%s:%d", host, port);
+    Client client = clients.get(key);
+    if (client == null) {
+      try {
+        if (this.client == null) {
+          this.client = vertx.createNetClient().setTCPNoDelay(true);
+        }
+      } catch (IllegalStateException e) {
+        // Clients can't be created in worker verticles.
+        new DefaultFutureResult<TransportChannel>(e).setHandler(doneHandler);
+        return;
+      }
+      client = new Client(key);
+      clients.put(key, client);
+      client.connect(host, port);
+    }
+    references++;
+    client.open(address, doneHandler);
+  }
+
+  /**
+   * Releases a reference to the transport, closing the transport once
+   * it's no longer referenced by any connection.
+   */
+  private void release() {
+    if (--references == 0) {
+      if (server != null) {
+        server.close();
+        server = null;
+        endpoint = null;
+      }
+      for (Client client : new ArrayList<>(clients.values())) {
+        client.close();
+      }
+      if (client != null) {
+        client.close();
+        client = null;
+      }
+      synchronized (transports) {
+        transports.remove(context);
+      }
+    }
+  }
+
+  /**
+   * Reads length prefixed frames from a server socket.
+   */
+  private class Receiver implements Handler<Buffer> {
+    private final RecordParser parser = RecordParser.newFixed(4, this);
+    private final Map<Integer, String> channels = new HashMap<>();
+    private boolean header = true;
+
+    @Override
+    public void handle(Buffer buffer) {
+      if (header) {
+        header = false;
+        parser.fixedSizeMode(buffer.getInt(0));
+      } else {
+        header = true;
+        parser.fixedSizeMode(4);
+        handleFrame(buffer);
+      }
+    }
+
+    private void handleFrame(Buffer frame) {
+      byte type = frame.getByte(0);
+      int channel = frame.getInt(1);
+      if (type == OPEN) {
+        channels.put(channel, frame.getString(HEADER_SIZE, frame.length(), "UTF-8"));
+      } else {
+        // The handler is resolved by address for each frame since the input
+        // connection may be reopened while the channel remains open.
+        Handler<Object> handler = receivers.get(channels.get(channel));
+        if (handler != null) {
+          if (type == BUFFER) {
+            handler.handle(frame.getBuffer(HEADER_SIZE, frame.length()));
+          } else if (type == JSON) {
+            handler.handle(new JsonObject(frame.getString(HEADER_SIZE, frame.length(), "UTF-8")));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Persistent client socket to a remote instance.
+   */
+  private class Client {
+    private final String key;
+    private final List<Object[]> pending = new ArrayList<>();
+    private final Set<Channel> channels = new HashSet<>();
+    private NetSocket socket;
+    private int nextChannel;
+
+    private Client(String key) {
+      this.key = key;
+    }
+
+    private void connect(String host, int port) {
+      client.connect(port, host, new Handler<AsyncResult<NetSocket>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handle(AsyncResult<NetSocket> result) {
+          List<Object[]> requests = new ArrayList<>(pending);
+          pending.clear();
+          if (result.failed()) {
+            clients.remove(key);
+            for (Object[] request : requests) {
+              release();
+              new DefaultFutureResult<TransportChannel>(result.cause()).setHandler((Handler<AsyncResult<TransportChannel>>) request[1]);
+            }
+          } else {
+            socket = result.result();
+            socket.drainHandler(new Handler<Void>() {
+              @Override
+              public void handle(Void _) {
+                drain();
+              }
+            });
+            socket.closeHandler(new Handler<Void>() {
+              @Override
+              public void handle(Void _) {
+                clients.remove(key);
+                for (Channel channel : channels) {
+                  channel.closed = true;
+                }
+                drain();
+              }
+            });
+            for (Object[] request : requests) {
+              open((String) request[0], (Handler<AsyncResult<TransportChannel>>) request[1]);
+            }
+          }
+        }
+      });
+    }
+
+    private void open(String address, Handler<AsyncResult<TransportChannel>> doneHandler) {
+      if (socket == null) {
+        pending.add(new Object[]{address, doneHandler});
+      } else {
+        Channel channel = new Channel(this, ++nextChannel);
+        channels.add(channel);
+        byte[] bytes = address.getBytes(StandardCharsets.UTF_8);
+        socket.write(new Buffer(bytes.length + HEADER_SIZE + 4)
+            .appendInt(bytes.length + HEADER_SIZE).appendByte(OPEN).appendInt(channel.id).appendBytes(bytes));
+        new DefaultFutureResult<TransportChannel>(channel).setHandler(doneHandler);
+      }
+    }
+
+    /**
+     * Notifies the channels that the socket's write queue has drained.
+     */
+    private void drain() {
+      for (Channel channel : new ArrayList<>(channels)) {
+        if (channel.drainHandler != null) {
+          channel.drainHandler.handle((Void) null);
+        }
+      }
+    }
+
+    private void close() {
+      clients.remove(key);
+      if (socket != null) {
+        socket.close();
+      }
+      for (Channel channel : channels) {
+        channel.closed = true;
+      }
+    }
+  }
+
+  /**
+   * Channel multiplexed over a client socket.
+   */
+  private class Channel implements TransportChannel {
+    private final Client client;
+    private final int id;
+    private Handler<Void> drainHandler;
+    private boolean closed;
+    private boolean released;
+
+    private Channel(Client client, int id) {
+      this.client = client;
+      this.id = id;
+    }
+
+    @Override
+    public void send(Object message) {
+      if (!closed) {
+        Buffer frame;
+        if (message instanceof Buffer) {
+          Buffer buffer = (Buffer) message;
+          frame = new Buffer(buffer.length() + HEADER_SIZE + 4)
+              .appendInt(buffer.length() + HEADER_SIZE).appendByte(BUFFER).appendInt(id).appendBuffer(buffer);
+        } else {
+          byte[] bytes = ((JsonObject) message).encode().getBytes(StandardCharsets.UTF_8);
+          frame = new Buffer(bytes.length + HEADER_SIZE + 4)
+              .appendInt(bytes.length + HEADER_SIZE).appendByte(JSON).appendInt(id).appendBytes(bytes);
+        }
+        client.socket.write(frame);
+      }
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      // Channels share the client socket, so all channels on the socket are
+      // full while the socket's write queue is full.
+      return !closed && client.socket.writeQueueFull();
+    }
+
+    @Override
+    public void drainHandler(Handler<Void> handler) {
+      this.drainHandler = handler;
+    }
+
+    @Override
+    public boolean isClosed() {
+      return closed;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      if (!released) {
+        released = true;
+        client.channels.remove(this);
+        release();
+      }
+    }
+  }
+
+}
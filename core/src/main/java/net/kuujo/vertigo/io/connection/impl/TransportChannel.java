@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import org.vertx.java.core.Handler;
+
+/**
+ * Connection transport channel.<p>
+ *
+ * A channel carries encoded messages from an output connection to a single
+ * input connection. Encoded messages are either a <code>Buffer</code> or a
+ * <code>JsonObject</code> depending on the connection format.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface TransportChannel {
+
+  /**
+   * Sends an encoded message to the input connection.
+   *
+   * @param message The encoded message.
+   */
+  void send(Object message);
+
+  /**
+   * Returns a boolean indicating whether the channel's write queue is full.
+   *
+   * @return Indicates whether the write queue is full.
+   */
+  boolean writeQueueFull();
+
+  /**
+   * Sets a handler to be called once a full write queue has drained.
+   *
+   * @param handler A handler to be called when the write queue is drained.
+   */
+  void drainHandler(Handler<Void> handler);
+
+  /**
+   * Returns a boolean indicating whether the channel is closed.
+   *
+   * @return Indicates whether the channel is closed.
+   */
+  boolean isClosed();
+
+  /**
+   * Closes the channel.
+   */
+  void close();
+
+}
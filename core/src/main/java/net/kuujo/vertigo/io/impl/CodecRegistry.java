@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.kuujo.vertigo.util.serialization.MessageCodec;
+import net.kuujo.vertigo.util.serialization.SerializationException;
+
+/**
+ * Registry of message codecs for a connection.<p>
+ *
+ * Codecs are registered by class name and identified on the wire by a small
+ * numeric ID. IDs are assigned in order of the registered type names, so both
+ * sides of a connection assign the same IDs to the same codecs. Types and codecs
+ * are loaded lazily the first time they're used.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class CodecRegistry {
+  private final List<String> types;
+  private final List<String> codecNames;
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final Map<Integer, Class<?>> classes = new HashMap<>();
+  private final Map<Integer, MessageCodec<?>> codecs = new HashMap<>();
+  private final Map<String, MessageCodec<?>> instances = new HashMap<>();
+
+  public CodecRegistry(Map<String, String> codecs) {
+    this.types = new ArrayList<>(codecs.keySet());
+    Collections.sort(types);
+    this.codecNames = new ArrayList<>(types.size());
+    for (int i = 0; i < types.size(); i++) {
+      codecNames.add(codecs.get(types.get(i)));
+      ids.put(types.get(i), i + 1);
+    }
+  }
+
+  /**
+   * Creates a codec registry if any codecs are registered.
+   *
+   * @param codecs A map of type names to codec class names.
+   * @return A codec registry, or <code>null</code> if no codecs are registered.
+   */
+  public static CodecRegistry create(Map<String, String> codecs) {
+    return codecs != null && !codecs.isEmpty() ? new CodecRegistry(codecs) : null;
+  }
+
+  /**
+   * Indicates whether a codec is registered for any boxed primitive type.
+   *
+   * @return Indicates whether a codec is registered for a boxed primitive type.
+   */
+  public boolean hasPrimitiveCodecs() {
+    for (Class<?> type : new Class<?>[]{Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class, Double.class, Boolean.class}) {
+      if (ids.containsKey(type.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the codec ID for a value.
+   *
+   * @param value The value for which to look up the codec.
+   * @return The codec ID, or <code>0</code> if no codec is registered for
+   *         the value type.
+   */
+  public int id(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    Integer id = ids.get(value.getClass().getName());
+    return id != null ? id : 0;
+  }
+
+  /**
+   * Encodes a value with a codec.
+   *
+   * @param id The codec ID.
+   * @param value The value to encode.
+   * @return The encoded value.
+   */
+  @SuppressWarnings("unchecked")
+  public byte[] encode(int id, Object value) {
+    return ((MessageCodec<Object>) codec(id)).encode(value);
+  }
+
+  /**
+   * Decodes a value with a codec.
+   *
+   * @param id The codec ID.
+   * @param bytes The encoded value.
+   * @return The decoded value.
+   */
+  @SuppressWarnings("unchecked")
+  public Object decode(int id, byte[] bytes) {
+    MessageCodec<Object> codec = (MessageCodec<Object>) codec(id);
+    return codec.decode(bytes, (Class<Object>) classes.get(id));
+  }
+
+  /**
+   * Loads the codec with the given ID.
+   */
+  private MessageCodec<?> codec(int id) {
+    MessageCodec<?> codec = codecs.get(id);
+    if (codec == null) {
+      if (id < 1 || id > types.size()) {
+        throw new SerializationException("Unknown codec " + id);
+      }
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      String codecName = codecNames.get(id - 1);
+      try {
+        classes.put(id, loader.loadClass(types.get(id - 1)));
+        // Codecs are shared by all types registered with the same codec class.
+        codec = instances.get(codecName);
+        if (codec == null) {
+          codec = (MessageCodec<?>) loader.loadClass(codecName).getDeclaredConstructor().newInstance();
+          instances.put(codecName, codec);
+        }
+      } catch (ReflectiveOperationException | ClassCastException e) {
+        throw new SerializationException("Failed to load codec " + codecName + " for " + types.get(id - 1), e);
+      }
+      codecs.put(id, codec);
+    }
+    return codec;
+  }
+
+}
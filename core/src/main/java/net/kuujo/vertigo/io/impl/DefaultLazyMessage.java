@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.impl;
+
+import net.kuujo.vertigo.io.LazyMessage;
+
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Default lazy message implementation.<p>
+ *
+ * The message holds either the JSON envelope or the binary encoded value
+ * in which it was received. The {@link OutputSerializer} writes the encoded
+ * form directly when it can be read by the target connection. Values encoded
+ * by a codec are always decoded and encoded again since codec IDs are specific
+ * to each connection. Session serialized values are decoded as soon as they're
+ * received since they may define class descriptors referenced by subsequent
+ * messages on the connection.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DefaultLazyMessage implements LazyMessage {
+  private final InputDeserializer deserializer;
+  private final JsonObject message;
+  private final Buffer buffer;
+  private Object value;
+  private boolean decoded;
+
+  public DefaultLazyMessage(Object value) {
+    this.deserializer = null;
+    this.message = null;
+    this.buffer = null;
+    this.value = value;
+    this.decoded = true;
+  }
+
+  private DefaultLazyMessage(JsonObject message, Buffer buffer, InputDeserializer deserializer) {
+    this.deserializer = deserializer;
+    this.message = message;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Creates a lazy message from a JSON message.
+   *
+   * @param message The JSON message.
+   * @param deserializer The deserializer with which to decode the message.
+   * @return The lazy message, or <code>null</code> if the message value is <code>null</code>.
+   */
+  public static DefaultLazyMessage create(JsonObject message, InputDeserializer deserializer) {
+    String type = message.getString("type");
+    if (type == null && message.getValue("value") == null) {
+      return null;
+    } else if ("session".equals(type)) {
+      return new DefaultLazyMessage(deserializer.deserialize(message));
+    }
+    return new DefaultLazyMessage(message, null, deserializer);
+  }
+
+  /**
+   * Creates a lazy message from a binary encoded value.
+   *
+   * @param buffer The encoded value, starting with the value type.
+   * @param deserializer The deserializer with which to decode the value.
+   * @return The lazy message, or <code>null</code> if the message value is <code>null</code>.
+   */
+  public static DefaultLazyMessage create(Buffer buffer, InputDeserializer deserializer) {
+    switch (buffer.getByte(0)) {
+      case OutputSerializer.TYPE_NULL:
+        return null;
+      case OutputSerializer.TYPE_SESSION:
+        return new DefaultLazyMessage(deserializer.deserialize(buffer, 0, buffer.length()));
+      default:
+        return new DefaultLazyMessage(null, buffer, deserializer);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T value() {
+    if (!decoded) {
+      value = message != null ? deserializer.deserialize(message) : deserializer.deserialize(buffer, 0, buffer.length());
+      decoded = true;
+    }
+    return (T) value;
+  }
+
+  @Override
+  public boolean isDecoded() {
+    return decoded;
+  }
+
+  /**
+   * Returns the encoded value as a JSON message.
+   *
+   * @return The JSON message, or <code>null</code> if the value must be
+   *         encoded again.
+   */
+  JsonObject toJson() {
+    if (!hasJsonForm()) {
+      return null;
+    } else if (message != null) {
+      String type = message.getString("type");
+      if (type == null) {
+        return new JsonObject().putValue("value", message.getValue("value"));
+      }
+      return new JsonObject().putString("type", type).putValue("value", message.getValue("value"));
+    }
+    return new JsonObject().putString("type", "serialized").putBinary("value", buffer.getBytes(1, buffer.length()));
+  }
+
+  /**
+   * Indicates whether the value can be forwarded on a JSON connection in the
+   * form in which it was received. Binary and codec encoded values are sent
+   * raw by JSON connections rather than embedded in the envelope, and values
+   * that were decoded on receipt have no encoded form, so these values must
+   * be decoded before they're forwarded.
+   *
+   * @return Indicates whether the value has a JSON form.
+   */
+  public boolean hasJsonForm() {
+    if (message != null) {
+      String type = message.getString("type");
+      return type == null || !(type.equals("codec") || type.equals("buffer") || type.equals("bytes"));
+    }
+    return buffer != null && buffer.getByte(0) == OutputSerializer.TYPE_SERIALIZED;
+  }
+
+  /**
+   * Appends the binary encoded value to a buffer.
+   *
+   * @param frame The buffer to which to append the value.
+   * @return The buffer, or <code>null</code> if the value must be encoded again.
+   */
+  Buffer appendTo(Buffer frame) {
+    if (buffer != null) {
+      if (buffer.getByte(0) != OutputSerializer.TYPE_CODEC) {
+        return frame.appendBuffer(buffer);
+      }
+    } else if (message != null) {
+      String type = message.getString("type");
+      if ("serialized".equals(type)) {
+        return frame.appendByte(OutputSerializer.TYPE_SERIALIZED).appendBytes(message.getBinary("value"));
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (other == this) {
+      return true;
+    } else if (!(other instanceof LazyMessage)) {
+      return false;
+    }
+    Object value = value();
+    return value != null ? value.equals(((LazyMessage) other).value()) : ((LazyMessage) other).value() == null;
+  }
+
+  @Override
+  public int hashCode() {
+    Object value = value();
+    return value != null ? value.hashCode() : 0;
+  }
+
+  @Override
+  public String toString() {
+    return decoded ? String.valueOf(value) : "LazyMessage[encoded]";
+  }
+
+}
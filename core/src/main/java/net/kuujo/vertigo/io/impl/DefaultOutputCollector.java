@@ -24,6 +24,7 @@ import java.util.UUID;
 
 import net.kuujo.vertigo.io.OutputCollector;
 import net.kuujo.vertigo.io.OutputContext;
+import net.kuujo.vertigo.io.connection.impl.DirectBufferPool;
 import net.kuujo.vertigo.io.port.OutputPort;
 import net.kuujo.vertigo.io.port.OutputPortContext;
 import net.kuujo.vertigo.io.port.impl.DefaultOutputPort;
@@ -48,6 +49,7 @@ import org.vertx.java.core.logging.impl.LoggerFactory;
 public class DefaultOutputCollector implements OutputCollector, Observer<OutputContext> {
   private final Logger log;
   private final Vertx vertx;
+  private final DirectBufferPool pool;
   private OutputContext context;
   private final Map<String, OutputPort> ports = new HashMap<>();
   private final TaskRunner tasks = new TaskRunner();
@@ -55,12 +57,14 @@ public class DefaultOutputCollector implements OutputCollector, Observer<OutputC
 
   public DefaultOutputCollector(Vertx vertx) {
     this.vertx = vertx;
+    this.pool = null;
     this.log = LoggerFactory.getLogger(DefaultOutputCollector.class);
   }
 
   public DefaultOutputCollector(Vertx vertx, OutputContext context) {
     this.vertx = vertx;
     this.context = context;
+    this.pool = new DirectBufferPool(context.instance().component().replayMemory());
     this.log = LoggerFactory.getLogger(String.format("%s-%s-%d", DefaultOutputCollector.class.getName(), context.instance().component().name(), context.instance().number()));
     context.registerObserver(this);
   }
@@ -87,7 +91,7 @@ public class DefaultOutputCollector implements OutputCollector, Observer<OutputC
             .build();
         DefaultOutputContext.Builder.newBuilder((DefaultOutputContext) context).addPort(portContext);
       }
-      port = new DefaultOutputPort(vertx, context.port(name));
+      port = new DefaultOutputPort(vertx, context.port(name), pool);
       if (started) {
         port.open();
       }
@@ -117,7 +121,7 @@ public class DefaultOutputCollector implements OutputCollector, Observer<OutputC
             OutputPortContext port = DefaultOutputCollector.this.context.port(output.name());
             if (port != null) {
               log.debug(String.format("%s - Adding out port: %s", DefaultOutputCollector.this, output));
-              newPorts.add(new DefaultOutputPort(vertx, port));
+              newPorts.add(new DefaultOutputPort(vertx, port, pool));
             }
           }
         }
@@ -192,7 +196,7 @@ public class DefaultOutputCollector implements OutputCollector, Observer<OutputC
             if (ports.containsKey(output.name())) {
               ((DefaultOutputPort) ports.get(output.name())).open(startCounter);
             } else {
-              final OutputPort port = new DefaultOutputPort(vertx, output);
+              final OutputPort port = new DefaultOutputPort(vertx, output, pool);
               log.debug(String.format("%s - Opening out port: %s", DefaultOutputCollector.this, output));
               port.open(new Handler<AsyncResult<Void>>() {
                 @Override
@@ -240,6 +244,11 @@ public class DefaultOutputCollector implements OutputCollector, Observer<OutputC
                 new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
               } else {
                 ports.clear();
+                // Closed connections release their replay slabs back to the
+                // pool, so free the pool's direct memory along with them.
+                if (pool != null) {
+                  pool.clear();
+                }
                 started = false;
                 new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
               }
@@ -20,10 +20,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.util.HashMap;
+import java.util.Map;
 
+import net.kuujo.vertigo.io.DoubleHandler;
+import net.kuujo.vertigo.io.FloatHandler;
+import net.kuujo.vertigo.io.IntHandler;
+import net.kuujo.vertigo.io.LongHandler;
 import net.kuujo.vertigo.util.serialization.SerializationException;
 
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 
 /**
@@ -32,7 +40,13 @@ import org.vertx.java.core.json.JsonObject;
  * The deserializer deserializes {@link JsonObject} messages to any
  * type that is supported by the format. If a message was serialized
  * using the Vertigo serializer, it can deserialize the message
- * back to the original object.
+ * back to the original object. Messages serialized to a binary buffer
+ * by the {@link OutputSerializer} can be read directly from the buffer.
+ * Messages encoded by a codec are decoded by the same codec in the
+ * {@link CodecRegistry}. Resolved classes are cached for the lifetime of
+ * the deserializer, as are the class descriptors defined by session
+ * serialized messages, which must therefore be deserialized in the order
+ * in which they were serialized.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
@@ -49,14 +63,93 @@ public class InputDeserializer {
 
     @Override
     public Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException, IOException {
+      Class<?> clazz = classes.get(desc.getName());
+      if (clazz != null) {
+        return clazz;
+      }
       try {
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        return loader.loadClass(desc.getName());
+        clazz = loader.loadClass(desc.getName());
       } catch (Exception e) {
+        clazz = super.resolveClass(desc);
+      }
+      classes.put(desc.getName(), clazz);
+      return clazz;
+    }
+
+  }
+
+  /**
+   * Object input stream that reads class descriptors written by descriptor ID.<p>
+   *
+   * The sender's full descriptor is cached the first time it's received, and
+   * is used for all subsequent values that reference it. Values are therefore
+   * matched against the local class by field name just as they would be by
+   * standard Java serialization.
+   */
+  private class SessionObjectInputStream extends ThreadObjectInputStream {
+
+    public SessionObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected void readStreamHeader() throws IOException {
+      // The stream header is omitted by the session output stream.
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+      byte type = readByte();
+      int id = readDescriptorID();
+      if (type == OutputSerializer.DESCRIPTOR_DEFINE) {
+        ObjectStreamClass desc = super.readClassDescriptor();
+        descriptors.put(id, desc);
+        return desc;
+      }
+      ObjectStreamClass desc = descriptors.get(id);
+      if (desc == null) {
+        throw new StreamCorruptedException("Unknown class descriptor " + id);
       }
-      return super.resolveClass(desc);
+      return desc;
     }
 
+    /**
+     * Reads a variable length descriptor ID.
+     */
+    private int readDescriptorID() throws IOException {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = readByte();
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+
+  }
+
+  private final CodecRegistry codecs;
+  private final Map<String, Class<?>> classes = new HashMap<>();
+  private final Map<Integer, ObjectStreamClass> descriptors = new HashMap<>();
+
+  public InputDeserializer() {
+    this(null);
+  }
+
+  public InputDeserializer(CodecRegistry codecs) {
+    this.codecs = codecs;
+  }
+
+  /**
+   * Clears all session class descriptors. Descriptor IDs are assigned by
+   * each output connection, so they must be cleared whenever a new output
+   * connection session starts.
+   */
+  public void reset() {
+    descriptors.clear();
   }
 
   /**
@@ -76,25 +169,143 @@ public class InputDeserializer {
         case "bytes":
           return message.getBinary("value");
         case "serialized":
-          byte[] bytes = message.getBinary("value");
-          ObjectInputStream stream = null;
-          try {
-            stream = new ThreadObjectInputStream(new ByteArrayInputStream(bytes));
-            return stream.readObject();
-          } catch (ClassNotFoundException | IOException e) {
-            throw new SerializationException(e.getMessage());
-          } finally {
-            if (stream != null) {
-              try {
-                stream.close();
-              } catch (IOException e) {
-              }
-            }
-          }
+          return deserializeObject(message.getBinary("value"), false);
+        case "session":
+          return deserializeObject(message.getBinary("value"), true);
+        case "codec":
+          return decode(message.getInteger("codec"), message.getBinary("value"));
         default:
           return message.getValue("value");
       }
     }
   }
 
+  /**
+   * Deserializes an input message from a buffer.
+   *
+   * @param buffer The buffer from which to read the message.
+   * @param start The position of the message type in the buffer.
+   * @param end The end position of the message in the buffer.
+   * @return The message value.
+   */
+  public Object deserialize(Buffer buffer, int start, int end) {
+    byte type = buffer.getByte(start);
+    int position = start + 1;
+    switch (type) {
+      case OutputSerializer.TYPE_NULL:
+        return null;
+      case OutputSerializer.TYPE_STRING:
+        return buffer.getString(position, end, "UTF-8");
+      case OutputSerializer.TYPE_BOOLEAN:
+        return buffer.getByte(position) == 1;
+      case OutputSerializer.TYPE_CHARACTER:
+        return (char) buffer.getShort(position);
+      case OutputSerializer.TYPE_BYTE:
+        return buffer.getByte(position);
+      case OutputSerializer.TYPE_SHORT:
+        return buffer.getShort(position);
+      case OutputSerializer.TYPE_INTEGER:
+        return buffer.getInt(position);
+      case OutputSerializer.TYPE_LONG:
+        return buffer.getLong(position);
+      case OutputSerializer.TYPE_FLOAT:
+        return buffer.getFloat(position);
+      case OutputSerializer.TYPE_DOUBLE:
+        return buffer.getDouble(position);
+      case OutputSerializer.TYPE_JSON_OBJECT:
+        return new JsonObject(buffer.getString(position, end, "UTF-8"));
+      case OutputSerializer.TYPE_JSON_ARRAY:
+        return new JsonArray(buffer.getString(position, end, "UTF-8"));
+      case OutputSerializer.TYPE_BUFFER:
+        return buffer.getBuffer(position, end);
+      case OutputSerializer.TYPE_BYTES:
+        return buffer.getBytes(position, end);
+      case OutputSerializer.TYPE_SERIALIZED:
+        return deserializeObject(buffer.getBytes(position, end), false);
+      case OutputSerializer.TYPE_SESSION:
+        return deserializeObject(buffer.getBytes(position, end), true);
+      case OutputSerializer.TYPE_CODEC:
+        return decode(buffer.getShort(position) & 0xFFFF, buffer.getBytes(position + 2, end));
+      default:
+        throw new SerializationException("Invalid message type " + type);
+    }
+  }
+
+  /**
+   * Passes a primitive message from a buffer to the matching primitive handler
+   * without boxing it.
+   *
+   * @param buffer The buffer from which to read the message.
+   * @param start The position of the message type in the buffer.
+   * @param intHandler The <code>int</code> handler, or <code>null</code>.
+   * @param longHandler The <code>long</code> handler, or <code>null</code>.
+   * @param floatHandler The <code>float</code> handler, or <code>null</code>.
+   * @param doubleHandler The <code>double</code> handler, or <code>null</code>.
+   * @return Indicates whether the message was passed to a handler.
+   */
+  public boolean deserialize(Buffer buffer, int start, IntHandler intHandler, LongHandler longHandler, FloatHandler floatHandler, DoubleHandler doubleHandler) {
+    switch (buffer.getByte(start)) {
+      case OutputSerializer.TYPE_INTEGER:
+        if (intHandler != null) {
+          intHandler.handle(buffer.getInt(start + 1));
+          return true;
+        }
+        return false;
+      case OutputSerializer.TYPE_LONG:
+        if (longHandler != null) {
+          longHandler.handle(buffer.getLong(start + 1));
+          return true;
+        }
+        return false;
+      case OutputSerializer.TYPE_FLOAT:
+        if (floatHandler != null) {
+          floatHandler.handle(buffer.getFloat(start + 1));
+          return true;
+        }
+        return false;
+      case OutputSerializer.TYPE_DOUBLE:
+        if (doubleHandler != null) {
+          doubleHandler.handle(buffer.getDouble(start + 1));
+          return true;
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Decodes a message encoded by a codec.
+   *
+   * @param codec The codec ID.
+   * @param bytes The encoded message.
+   * @return The message value.
+   */
+  public Object decode(int codec, byte[] bytes) {
+    if (codecs == null) {
+      throw new SerializationException("Unknown codec " + codec);
+    }
+    return codecs.decode(codec, bytes);
+  }
+
+  /**
+   * Deserializes an object serialized using Java serialization.
+   */
+  private Object deserializeObject(byte[] bytes, boolean session) {
+    ObjectInputStream stream = null;
+    try {
+      stream = session ? new SessionObjectInputStream(new ByteArrayInputStream(bytes)) : new ThreadObjectInputStream(new ByteArrayInputStream(bytes));
+      return stream.readObject();
+    } catch (ClassNotFoundException | IOException e) {
+      throw new SerializationException(e.getMessage(), e);
+    } finally {
+      if (stream != null) {
+        try {
+          stream.close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
 }
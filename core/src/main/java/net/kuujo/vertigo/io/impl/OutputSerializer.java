@@ -18,9 +18,15 @@ package net.kuujo.vertigo.io.impl;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.util.serialization.SerializationException;
 
 import org.vertx.java.core.buffer.Buffer;
@@ -33,11 +39,103 @@ import org.vertx.java.core.json.JsonObject;
  * The serializer serializes all messages to a {@link JsonObject} which
  * can be read and deserialized by input connections. If the message is
  * not an event bus supported type, the serializer will attempt to
- * serialize the message using the default Vertigo serializer.
+ * serialize the message using the default Vertigo serializer.<p>
+ *
+ * Messages can also be serialized directly into a {@link Buffer} for
+ * binary framed connections. Binary values are prefixed with a single
+ * type byte followed by the raw value.<p>
+ *
+ * Values for which a codec is registered in the {@link CodecRegistry} are
+ * encoded by the codec and tagged with the codec ID rather than serialized.
+ * In the session serialization mode, the full descriptor of each class is
+ * only written the first time the class is serialized, and subsequent values
+ * reference the descriptor by a small ID. The serializer must then be used
+ * for a single connection, and its output read in order by a single
+ * {@link InputDeserializer}. The serialized form of a {@link SharedValue} is
+ * cached in the value unless it depends on session state, and a
+ * {@link DefaultLazyMessage} is written in the form in which it was received
+ * when that form can be read by the target connection.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class OutputSerializer {
+  static final byte TYPE_NULL = 0;
+  static final byte TYPE_STRING = 1;
+  static final byte TYPE_BOOLEAN = 2;
+  static final byte TYPE_CHARACTER = 3;
+  static final byte TYPE_BYTE = 4;
+  static final byte TYPE_SHORT = 5;
+  static final byte TYPE_INTEGER = 6;
+  static final byte TYPE_LONG = 7;
+  static final byte TYPE_FLOAT = 8;
+  static final byte TYPE_DOUBLE = 9;
+  static final byte TYPE_JSON_OBJECT = 10;
+  static final byte TYPE_JSON_ARRAY = 11;
+  static final byte TYPE_BUFFER = 12;
+  static final byte TYPE_BYTES = 13;
+  static final byte TYPE_SERIALIZED = 14;
+  static final byte TYPE_CODEC = 15;
+  static final byte TYPE_SESSION = 16;
+  static final byte DESCRIPTOR_DEFINE = 0;
+  static final byte DESCRIPTOR_REFERENCE = 1;
+
+  /**
+   * Object output stream that writes the full descriptor of a class along
+   * with a new descriptor ID the first time the class is written, and only
+   * the descriptor ID thereafter.
+   */
+  private class SessionObjectOutputStream extends ObjectOutputStream {
+    private final List<Class<?>> defined = new ArrayList<>();
+
+    public SessionObjectOutputStream(ByteArrayOutputStream out) throws IOException {
+      super(out);
+    }
+
+    @Override
+    protected void writeStreamHeader() throws IOException {
+      // Both sides know the stream format, so the header is omitted.
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+      Class<?> clazz = desc.forClass();
+      Integer id = descriptors.get(clazz);
+      if (id != null) {
+        writeByte(DESCRIPTOR_REFERENCE);
+        writeDescriptorID(id);
+      } else {
+        id = ++currentDescriptor;
+        descriptors.put(clazz, id);
+        defined.add(clazz);
+        writeByte(DESCRIPTOR_DEFINE);
+        writeDescriptorID(id);
+        super.writeClassDescriptor(desc);
+      }
+    }
+
+    /**
+     * Writes a variable length descriptor ID.
+     */
+    private void writeDescriptorID(int id) throws IOException {
+      while ((id & ~0x7F) != 0) {
+        writeByte((id & 0x7F) | 0x80);
+        id >>>= 7;
+      }
+      writeByte(id);
+    }
+
+    /**
+     * Forgets the descriptors defined by the stream if the value could not
+     * be written, since the other side will never receive them.
+     */
+    private void discard() {
+      for (Class<?> clazz : defined) {
+        descriptors.remove(clazz);
+      }
+    }
+
+  }
+
   @SuppressWarnings("serial")
   private final Set<Class<?>> eventBusTypes = new HashSet<Class<?>>() {{
     add(String.class);
@@ -54,6 +152,51 @@ public class OutputSerializer {
     add(JsonObject.class);
     add(JsonArray.class);
   }};
+  private final CodecRegistry codecs;
+  private final boolean session;
+  private final Map<Class<?>, Integer> descriptors = new HashMap<>();
+  private int currentDescriptor;
+
+  public OutputSerializer() {
+    this(null, ConnectionConfig.SerializationMode.STANDARD);
+  }
+
+  public OutputSerializer(CodecRegistry codecs) {
+    this(codecs, ConnectionConfig.SerializationMode.STANDARD);
+  }
+
+  public OutputSerializer(CodecRegistry codecs, ConnectionConfig.SerializationMode mode) {
+    this.codecs = codecs;
+    this.session = mode == ConnectionConfig.SerializationMode.SESSION;
+  }
+
+  /**
+   * Returns the ID of the codec registered for a message.
+   *
+   * @param message The message for which to look up the codec.
+   * @return The codec ID, or <code>0</code> if no codec is registered.
+   */
+  public int codec(Object message) {
+    return codecs != null ? codecs.id(SharedValue.unwrap(message)) : 0;
+  }
+
+  /**
+   * Encodes a message with a codec.
+   *
+   * @param codec The codec ID.
+   * @param message The message to encode.
+   * @return The encoded message.
+   */
+  public byte[] encode(int codec, Object message) {
+    if (message instanceof SharedValue) {
+      SharedValue shared = (SharedValue) message;
+      if (shared.bytes == null) {
+        shared.bytes = codecs.encode(codec, shared.value());
+      }
+      return shared.bytes;
+    }
+    return codecs.encode(codec, message);
+  }
 
   /**
    * Serializes a message.
@@ -62,27 +205,221 @@ public class OutputSerializer {
    * @return The serialized message.
    */
   public JsonObject serialize(Object message) {
-    if (message == null) {
+    // Lazy messages are written in their received form where possible.
+    if (message instanceof DefaultLazyMessage) {
+      JsonObject json = ((DefaultLazyMessage) message).toJson();
+      return json != null ? json : serialize(((DefaultLazyMessage) message).value());
+    }
+
+    Object value = SharedValue.unwrap(message);
+    if (value == null) {
       return new JsonObject();
     }
 
-    Class<?> clazz = message.getClass();
+    int codec = codec(value);
+    if (codec > 0) {
+      return new JsonObject().putString("type", "codec").putNumber("codec", codec).putBinary("value", encode(codec, message));
+    }
+
+    Class<?> clazz = value.getClass();
     if (eventBusTypes.contains(clazz)) {
-      if (message instanceof Buffer) {
-        return new JsonObject().putString("type", "buffer").putBinary("value", ((Buffer) message).getBytes());
-      } else if (message instanceof byte[]) {
-        return new JsonObject().putString("type", "bytes").putBinary("value", (byte[]) message);
+      if (value instanceof Buffer) {
+        return new JsonObject().putString("type", "buffer").putBinary("value", ((Buffer) value).getBytes());
+      } else if (value instanceof byte[]) {
+        return new JsonObject().putString("type", "bytes").putBinary("value", (byte[]) value);
+      }
+      return new JsonObject().putValue("value", value);
+    }
+
+    // Shared values are only serialized once for all connections. Session
+    // serialized values depend on the state of each connection, so they're
+    // serialized separately for each connection.
+    if (message instanceof SharedValue && !session) {
+      SharedValue shared = (SharedValue) message;
+      if (shared.bytes == null) {
+        shared.bytes = serializeObject(value);
+      }
+      return new JsonObject().putString("type", "serialized").putBinary("value", shared.bytes);
+    }
+    return new JsonObject().putString("type", session ? "session" : "serialized").putBinary("value", serializeObject(value));
+  }
+
+  /**
+   * Serializes a message to a buffer.
+   *
+   * @param message The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(Object message, Buffer buffer) {
+    // Lazy messages are written in their received form where possible.
+    if (message instanceof DefaultLazyMessage) {
+      Buffer result = ((DefaultLazyMessage) message).appendTo(buffer);
+      return result != null ? result : serialize(((DefaultLazyMessage) message).value(), buffer);
+    }
+
+    // Shared values are only serialized once for all connections. Session
+    // serialized values depend on the state of each connection, so they're
+    // serialized separately for each connection.
+    if (message instanceof SharedValue) {
+      SharedValue shared = (SharedValue) message;
+      if (isSession(shared.value())) {
+        return serialize(shared.value(), buffer);
+      }
+      if (shared.buffer == null) {
+        shared.buffer = serialize(shared.value(), new Buffer());
       }
-      return new JsonObject().putValue("value", message);
+      return buffer.appendBuffer(shared.buffer);
+    }
+
+    int codec = codec(message);
+    if (codec > 0) {
+      return buffer.appendByte(TYPE_CODEC).appendShort((short) codec).appendBytes(encode(codec, message));
+    } else if (message == null) {
+      return buffer.appendByte(TYPE_NULL);
+    } else if (message instanceof String) {
+      return buffer.appendByte(TYPE_STRING).appendString((String) message, "UTF-8");
+    } else if (message instanceof Boolean) {
+      return buffer.appendByte(TYPE_BOOLEAN).appendByte((byte) (((Boolean) message) ? 1 : 0));
+    } else if (message instanceof Character) {
+      return buffer.appendByte(TYPE_CHARACTER).appendShort((short) ((Character) message).charValue());
+    } else if (message instanceof Byte) {
+      return buffer.appendByte(TYPE_BYTE).appendByte((Byte) message);
+    } else if (message instanceof Short) {
+      return buffer.appendByte(TYPE_SHORT).appendShort((Short) message);
+    } else if (message instanceof Integer) {
+      return buffer.appendByte(TYPE_INTEGER).appendInt((Integer) message);
+    } else if (message instanceof Long) {
+      return buffer.appendByte(TYPE_LONG).appendLong((Long) message);
+    } else if (message instanceof Float) {
+      return buffer.appendByte(TYPE_FLOAT).appendFloat((Float) message);
+    } else if (message instanceof Double) {
+      return buffer.appendByte(TYPE_DOUBLE).appendDouble((Double) message);
+    } else if (message instanceof JsonObject) {
+      return buffer.appendByte(TYPE_JSON_OBJECT).appendString(((JsonObject) message).encode(), "UTF-8");
+    } else if (message instanceof JsonArray) {
+      return buffer.appendByte(TYPE_JSON_ARRAY).appendString(((JsonArray) message).encode(), "UTF-8");
+    } else if (message instanceof Buffer) {
+      return buffer.appendByte(TYPE_BUFFER).appendBuffer((Buffer) message);
+    } else if (message instanceof byte[]) {
+      return buffer.appendByte(TYPE_BYTES).appendBytes((byte[]) message);
+    }
+    return buffer.appendByte(session ? TYPE_SESSION : TYPE_SERIALIZED).appendBytes(serializeObject(message));
+  }
+
+  /**
+   * Serializes a <code>byte</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(byte value, Buffer buffer) {
+    return buffer.appendByte(TYPE_BYTE).appendByte(value);
+  }
+
+  /**
+   * Serializes a <code>short</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(short value, Buffer buffer) {
+    return buffer.appendByte(TYPE_SHORT).appendShort(value);
+  }
+
+  /**
+   * Serializes a <code>char</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(char value, Buffer buffer) {
+    return buffer.appendByte(TYPE_CHARACTER).appendShort((short) value);
+  }
+
+  /**
+   * Serializes a <code>int</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(int value, Buffer buffer) {
+    return buffer.appendByte(TYPE_INTEGER).appendInt(value);
+  }
+
+  /**
+   * Serializes a <code>long</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(long value, Buffer buffer) {
+    return buffer.appendByte(TYPE_LONG).appendLong(value);
+  }
+
+  /**
+   * Serializes a <code>float</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(float value, Buffer buffer) {
+    return buffer.appendByte(TYPE_FLOAT).appendFloat(value);
+  }
+
+  /**
+   * Serializes a <code>double</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(double value, Buffer buffer) {
+    return buffer.appendByte(TYPE_DOUBLE).appendDouble(value);
+  }
+
+  /**
+   * Serializes a <code>boolean</code> message to a buffer without boxing it.
+   *
+   * @param value The message to serialize.
+   * @param buffer The buffer to which to append the serialized message.
+   * @return The buffer.
+   */
+  public Buffer serialize(boolean value, Buffer buffer) {
+    return buffer.appendByte(TYPE_BOOLEAN).appendByte((byte) (value ? 1 : 0));
+  }
+
+  /**
+   * Indicates whether a value is written using session serialization.
+   */
+  private boolean isSession(Object value) {
+    if (!session || value == null) {
+      return false;
+    } else if (value instanceof DefaultLazyMessage) {
+      return true;
     }
+    return !(value instanceof Boolean) && !eventBusTypes.contains(value.getClass()) && codec(value) == 0;
+  }
 
+  /**
+   * Serializes an arbitrary object using Java serialization.
+   */
+  private byte[] serializeObject(Object message) {
     ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
     ObjectOutputStream stream = null;
-    byte[] serialized = null;
     try {
-      stream = new ObjectOutputStream(byteStream);
+      stream = session ? new SessionObjectOutputStream(byteStream) : new ObjectOutputStream(byteStream);
       stream.writeObject(message);
     } catch (IOException e) {
+      if (stream instanceof SessionObjectOutputStream) {
+        ((SessionObjectOutputStream) stream).discard();
+      }
       throw new SerializationException(e.getMessage());
     } finally {
       if (stream != null) {
@@ -92,9 +429,7 @@ public class OutputSerializer {
         }
       }
     }
-
-    serialized = byteStream.toByteArray();
-    return new JsonObject().putString("type", "serialized").putBinary("value", serialized);
+    return byteStream.toByteArray();
   }
 
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.impl;
+
+import org.vertx.java.core.buffer.Buffer;
+
+/**
+ * A message value sent on multiple connections.<p>
+ *
+ * The {@link OutputSerializer} caches the serialized form of the value the
+ * first time it's serialized, so a value sent to many targets is only
+ * serialized once. Each connection still builds its own message header around
+ * the shared value. Since the cached form depends on the connection's codecs
+ * and serialization mode, a shared value must only be sent on connections with
+ * the same configuration, such as the connections of a single output stream.
+ * Values serialized in the session serialization mode depend on the state of
+ * each connection, so they're still serialized once per connection.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class SharedValue {
+  private final Object value;
+  Buffer buffer;
+  byte[] bytes;
+
+  public SharedValue(Object value) {
+    this.value = value;
+  }
+
+  /**
+   * Returns the shared value.
+   *
+   * @return The shared value.
+   */
+  public Object value() {
+    return value;
+  }
+
+  /**
+   * Returns the underlying value of a possibly shared value.
+   *
+   * @param value A value which may be a shared value.
+   * @return The underlying value.
+   */
+  public static Object unwrap(Object value) {
+    return value instanceof SharedValue ? ((SharedValue) value).value : value;
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(value);
+  }
+
+}
@@ -15,10 +15,16 @@
  */
 package net.kuujo.vertigo.io.port;
 
+import java.util.List;
+
 import net.kuujo.vertigo.io.Input;
+import net.kuujo.vertigo.io.LazyMessage;
+import net.kuujo.vertigo.io.PrimitiveInputSupport;
 import net.kuujo.vertigo.io.batch.InputBatchSupport;
 import net.kuujo.vertigo.io.group.InputGroupSupport;
 
+import org.vertx.java.core.Handler;
+
 /**
  * Input port on which messages are received.<p>
  *
@@ -29,5 +35,34 @@ import net.kuujo.vertigo.io.group.InputGroupSupport;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public interface InputPort extends Port<InputPort>, Input<InputPort>, InputGroupSupport<InputPort>, InputBatchSupport<InputPort> {
+public interface InputPort extends Port<InputPort>, Input<InputPort>, InputGroupSupport<InputPort>, InputBatchSupport<InputPort>, PrimitiveInputSupport<InputPort> {
+
+  /**
+   * Registers a lazy message handler on the port.<p>
+   *
+   * Lazy messages keep the encoded form in which they were received and
+   * are only decoded when their value is accessed. Forwarding a lazy message
+   * that was never decoded avoids deserializing and serializing it again.
+   * The lazy message handler replaces any registered message handler.
+   *
+   * @param handler A lazy message handler.
+   * @return The port.
+   */
+  InputPort lazyMessageHandler(Handler<LazyMessage> handler);
+
+  /**
+   * Registers a bulk message handler on the port.<p>
+   *
+   * The bulk message handler receives lists of up to <code>maxSize</code>
+   * messages. Messages are collected until the list is full or until all
+   * messages that are currently available have been received, so a single
+   * frame of coalesced messages is delivered in one call. The bulk message
+   * handler replaces any registered message handler.
+   *
+   * @param maxSize The maximum number of messages to pass to the handler at once.
+   * @param handler A bulk message handler.
+   * @return The port.
+   */
+  <U> InputPort bulkMessageHandler(int maxSize, Handler<List<U>> handler);
+
 }
@@ -15,7 +15,9 @@
  */
 package net.kuujo.vertigo.io.port;
 
+import net.kuujo.vertigo.io.BulkOutputSupport;
 import net.kuujo.vertigo.io.Output;
+import net.kuujo.vertigo.io.PrimitiveOutputSupport;
 import net.kuujo.vertigo.io.batch.OutputBatch;
 import net.kuujo.vertigo.io.batch.OutputBatchSupport;
 import net.kuujo.vertigo.io.group.OutputGroupSupport;
@@ -36,7 +38,7 @@ import org.vertx.java.core.Handler;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public interface OutputPort extends Port<OutputPort>, Output<OutputPort>, OutputBatchSupport<OutputPort>, OutputGroupSupport<OutputPort> {
+public interface OutputPort extends Port<OutputPort>, Output<OutputPort>, OutputBatchSupport<OutputPort>, OutputGroupSupport<OutputPort>, PrimitiveOutputSupport<OutputPort>, BulkOutputSupport<OutputPort> {
 
   /**
    * Creates a new batch.
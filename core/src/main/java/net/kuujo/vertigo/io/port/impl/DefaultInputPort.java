@@ -25,9 +25,15 @@ import java.util.Set;
 
 import net.kuujo.vertigo.hook.ComponentHook;
 import net.kuujo.vertigo.hook.InputHook;
+import net.kuujo.vertigo.io.DoubleHandler;
+import net.kuujo.vertigo.io.FloatHandler;
+import net.kuujo.vertigo.io.IntHandler;
+import net.kuujo.vertigo.io.LazyMessage;
+import net.kuujo.vertigo.io.LongHandler;
 import net.kuujo.vertigo.io.batch.InputBatch;
 import net.kuujo.vertigo.io.connection.InputConnection;
 import net.kuujo.vertigo.io.connection.InputConnectionContext;
+import net.kuujo.vertigo.io.connection.impl.DedupWindow;
 import net.kuujo.vertigo.io.connection.impl.DefaultInputConnection;
 import net.kuujo.vertigo.io.group.InputGroup;
 import net.kuujo.vertigo.io.port.InputPort;
@@ -58,6 +64,12 @@ public class DefaultInputPort implements InputPort, Observer<InputPortContext> {
   private final TaskRunner tasks = new TaskRunner();
   @SuppressWarnings("rawtypes")
   private Handler messageHandler;
+  private boolean lazy;
+  private int bulkSize;
+  private IntHandler intHandler;
+  private LongHandler longHandler;
+  private FloatHandler floatHandler;
+  private DoubleHandler doubleHandler;
   private final Set<Handler<InputBatch>> batchHandlers = new HashSet<>();
   private Handler<InputGroup> groupHandler;
   private final Map<String, Handler<InputGroup>> groupHandlers = new HashMap<>();
@@ -126,6 +138,8 @@ public class DefaultInputPort implements InputPort, Observer<InputPortContext> {
                 }
               }
             });
+            // The connection won't be reopened, so discard its dedup window.
+            DedupWindow.remove(vertx, connection.address());
             iter.remove();
           }
         }
@@ -221,12 +235,127 @@ public class DefaultInputPort implements InputPort, Observer<InputPortContext> {
         }
       }
     };
+    this.lazy = false;
+    this.bulkSize = 0;
     for (InputConnection connection : connections) {
       connection.messageHandler(messageHandler);
     }
     return this;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public InputPort lazyMessageHandler(final Handler<LazyMessage> handler) {
+    this.messageHandler = new Handler<LazyMessage>() {
+      @Override
+      public void handle(LazyMessage message) {
+        handler.handle(message);
+        for (InputHook hook : hooks) {
+          hook.handleReceive(message);
+        }
+      }
+    };
+    this.lazy = true;
+    this.bulkSize = 0;
+    for (InputConnection connection : connections) {
+      connection.lazyMessageHandler(messageHandler);
+    }
+    return this;
+  }
+
+  @Override
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public <U> InputPort bulkMessageHandler(int maxSize, final Handler<List<U>> handler) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Invalid bulk size " + maxSize);
+    }
+    this.messageHandler = new Handler<List>() {
+      @Override
+      public void handle(List messages) {
+        handler.handle(messages);
+        for (InputHook hook : hooks) {
+          for (Object message : messages) {
+            hook.handleReceive(message);
+          }
+        }
+      }
+    };
+    this.lazy = false;
+    this.bulkSize = maxSize;
+    for (InputConnection connection : connections) {
+      connection.bulkMessageHandler(maxSize, messageHandler);
+    }
+    return this;
+  }
+
+  @Override
+  public InputPort intHandler(final IntHandler handler) {
+    this.intHandler = handler != null ? new IntHandler() {
+      @Override
+      public void handle(int message) {
+        handler.handle(message);
+        for (InputHook hook : hooks) {
+          hook.handleReceive(message);
+        }
+      }
+    } : null;
+    for (InputConnection connection : connections) {
+      connection.intHandler(intHandler);
+    }
+    return this;
+  }
+
+  @Override
+  public InputPort longHandler(final LongHandler handler) {
+    this.longHandler = handler != null ? new LongHandler() {
+      @Override
+      public void handle(long message) {
+        handler.handle(message);
+        for (InputHook hook : hooks) {
+          hook.handleReceive(message);
+        }
+      }
+    } : null;
+    for (InputConnection connection : connections) {
+      connection.longHandler(longHandler);
+    }
+    return this;
+  }
+
+  @Override
+  public InputPort floatHandler(final FloatHandler handler) {
+    this.floatHandler = handler != null ? new FloatHandler() {
+      @Override
+      public void handle(float message) {
+        handler.handle(message);
+        for (InputHook hook : hooks) {
+          hook.handleReceive(message);
+        }
+      }
+    } : null;
+    for (InputConnection connection : connections) {
+      connection.floatHandler(floatHandler);
+    }
+    return this;
+  }
+
+  @Override
+  public InputPort doubleHandler(final DoubleHandler handler) {
+    this.doubleHandler = handler != null ? new DoubleHandler() {
+      @Override
+      public void handle(double message) {
+        handler.handle(message);
+        for (InputHook hook : hooks) {
+          hook.handleReceive(message);
+        }
+      }
+    } : null;
+    for (InputConnection connection : connections) {
+      connection.doubleHandler(doubleHandler);
+    }
+    return this;
+  }
+
   @Override
   public InputPort batchHandler(Handler<InputBatch> handler) {
     if (this.batchHandlers.add(handler)) {
@@ -318,7 +447,25 @@ public class DefaultInputPort implements InputPort, Observer<InputPortContext> {
   @SuppressWarnings("unchecked")
   private InputConnection setupConnection(InputConnection connection) {
     log.debug(String.format("%s - Setting up connection: %s", this, connection));
-    connection.messageHandler(messageHandler);
+    if (bulkSize > 0) {
+      connection.bulkMessageHandler(bulkSize, messageHandler);
+    } else if (lazy) {
+      connection.lazyMessageHandler(messageHandler);
+    } else {
+      connection.messageHandler(messageHandler);
+    }
+    if (intHandler != null) {
+      connection.intHandler(intHandler);
+    }
+    if (longHandler != null) {
+      connection.longHandler(longHandler);
+    }
+    if (floatHandler != null) {
+      connection.floatHandler(floatHandler);
+    }
+    if (doubleHandler != null) {
+      connection.doubleHandler(doubleHandler);
+    }
     for (Handler<InputBatch> handler : batchHandlers) {
       connection.batchHandler(handler);
     }
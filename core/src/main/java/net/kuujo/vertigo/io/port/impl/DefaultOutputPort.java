@@ -16,6 +16,8 @@
 package net.kuujo.vertigo.io.port.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
@@ -24,6 +26,7 @@ import net.kuujo.vertigo.hook.ComponentHook;
 import net.kuujo.vertigo.hook.OutputHook;
 import net.kuujo.vertigo.io.batch.OutputBatch;
 import net.kuujo.vertigo.io.batch.impl.BaseOutputBatch;
+import net.kuujo.vertigo.io.connection.impl.DirectBufferPool;
 import net.kuujo.vertigo.io.group.OutputGroup;
 import net.kuujo.vertigo.io.group.impl.BaseOutputGroup;
 import net.kuujo.vertigo.io.port.OutputPort;
@@ -56,6 +59,7 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
   private static final Logger log = LoggerFactory.getLogger(DefaultOutputPort.class);
   private static final int DEFAULT_SEND_QUEUE_MAX_SIZE = 10000;
   private final Vertx vertx;
+  private final DirectBufferPool pool;
   private OutputPortContext context;
   private final List<OutputStream> streams = new ArrayList<>();
   private List<OutputHook> hooks = new ArrayList<>();
@@ -65,7 +69,12 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
   private boolean open;
 
   public DefaultOutputPort(Vertx vertx, OutputPortContext context) {
+    this(vertx, context, null);
+  }
+
+  public DefaultOutputPort(Vertx vertx, OutputPortContext context, DirectBufferPool pool) {
     this.vertx = vertx;
+    this.pool = pool;
     this.context = context;
     this.hooks = context.hooks();
     for (Object hook : context.output().instance().component().hooks()) {
@@ -142,7 +151,7 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
           }
           if (!exists) {
             log.info(String.format("%s - Creating stream: %s", DefaultOutputPort.this, output));
-            newStreams.add(new DefaultOutputStream(vertx, output));
+            newStreams.add(new DefaultOutputStream(vertx, output, pool));
           }
         }
 
@@ -264,7 +273,7 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
           // opened. This helps ensure that we don't attempt to send messages
           // on a closed stream.
           for (OutputStreamContext output : context.streams()) {
-            final OutputStream stream = new DefaultOutputStream(vertx, output);
+            final OutputStream stream = new DefaultOutputStream(vertx, output, pool);
             stream.setSendQueueMaxSize(maxQueueSize);
             stream.drainHandler(drainHandler);
             stream.open(new Handler<AsyncResult<Void>>() {
@@ -537,6 +546,112 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
     return this;
   }
 
+  @Override
+  public OutputPort sendAll(Collection<?> messages) {
+    for (OutputStream stream : streams) {
+      stream.sendAll(messages);
+    }
+    if (!hooks.isEmpty()) {
+      for (Object message : messages) {
+        triggerSend(message);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort sendAll(Object[] messages) {
+    return sendAll(Arrays.asList(messages));
+  }
+
+  @Override
+  public OutputPort send(byte message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(short message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(char message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(int message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(long message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(float message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(double message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputPort send(boolean message) {
+    for (OutputStream stream : streams) {
+      stream.send(message);
+    }
+    if (!hooks.isEmpty()) {
+      triggerSend(message);
+    }
+    return this;
+  }
+
   @Override
   public String toString() {
     return context.toString();
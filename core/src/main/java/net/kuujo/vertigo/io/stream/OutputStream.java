@@ -15,9 +15,11 @@
  */
 package net.kuujo.vertigo.io.stream;
 
+import net.kuujo.vertigo.io.BulkOutputSupport;
 import net.kuujo.vertigo.io.Closeable;
 import net.kuujo.vertigo.io.Openable;
 import net.kuujo.vertigo.io.Output;
+import net.kuujo.vertigo.io.PrimitiveOutputSupport;
 import net.kuujo.vertigo.io.batch.OutputBatchSupport;
 import net.kuujo.vertigo.io.group.OutputGroupSupport;
 
@@ -33,7 +35,7 @@ import net.kuujo.vertigo.io.group.OutputGroupSupport;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-public interface OutputStream extends Output<OutputStream>, OutputBatchSupport<OutputStream>, OutputGroupSupport<OutputStream>, Openable<OutputStream>, Closeable<OutputStream> {
+public interface OutputStream extends Output<OutputStream>, OutputBatchSupport<OutputStream>, OutputGroupSupport<OutputStream>, Openable<OutputStream>, Closeable<OutputStream>, PrimitiveOutputSupport<OutputStream>, BulkOutputSupport<OutputStream> {
 
   /**
    * Returns the output stream address.
@@ -16,16 +16,28 @@
 package net.kuujo.vertigo.io.stream.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import net.kuujo.vertigo.io.LazyMessage;
 import net.kuujo.vertigo.io.batch.OutputBatch;
 import net.kuujo.vertigo.io.connection.OutputConnection;
 import net.kuujo.vertigo.io.connection.OutputConnectionContext;
 import net.kuujo.vertigo.io.connection.impl.ConnectionOutputBatch;
 import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnection;
+import net.kuujo.vertigo.io.connection.impl.DirectBufferPool;
+import net.kuujo.vertigo.io.connection.impl.SharedValueOutput;
 import net.kuujo.vertigo.io.group.OutputGroup;
 import net.kuujo.vertigo.io.group.impl.BaseOutputGroup;
+import net.kuujo.vertigo.io.impl.SharedValue;
+import net.kuujo.vertigo.io.selector.AllSelector;
+import net.kuujo.vertigo.io.selector.CustomSelector;
+import net.kuujo.vertigo.io.selector.FairSelector;
+import net.kuujo.vertigo.io.selector.HashSelector;
 import net.kuujo.vertigo.io.selector.Selector;
 import net.kuujo.vertigo.io.stream.OutputStream;
 import net.kuujo.vertigo.io.stream.OutputStreamContext;
@@ -54,11 +66,15 @@ public class DefaultOutputStream implements OutputStream {
   Selector selector;
 
   public DefaultOutputStream(Vertx vertx, OutputStreamContext context) {
+    this(vertx, context, null);
+  }
+
+  public DefaultOutputStream(Vertx vertx, OutputStreamContext context, DirectBufferPool pool) {
     this.vertx = vertx;
     this.context = context;
     this.log = LoggerFactory.getLogger(String.format("%s-%s", DefaultOutputStream.class.getName(), context.port().toString()));
     for (OutputConnectionContext connection : context.connections()) {
-      connections.add(new DefaultOutputConnection(vertx, connection));
+      connections.add(new DefaultOutputConnection(vertx, connection, pool));
     }
     this.selector = context.selector();
   }
@@ -83,18 +99,30 @@ public class DefaultOutputStream implements OutputStream {
     final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(connections.size()).setHandler(doneHandler);
     for (final OutputConnection connection : connections) {
       log.debug(String.format("%s - Opening connection to: %s", this, connection.context().target()));
+
+      // Lazily opened connections are opened in the background. They accept
+      // messages immediately and send them once the connection opens, so
+      // there's no need to wait for them to open.
+      final boolean lazy = connection.context().lazyOpen();
       connection.open(new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
           if (result.failed()) {
             log.error(String.format("%s - Failed to open connection to: %s", DefaultOutputStream.this, connection.context().target()));
-            counter.fail(result.cause());
+            if (!lazy) {
+              counter.fail(result.cause());
+            }
           } else {
             log.info(String.format("%s - Opened connection to: %s", DefaultOutputStream.this, connection.context().target()));
-            counter.succeed();
+            if (!lazy) {
+              counter.succeed();
+            }
           }
         }
       });
+      if (lazy) {
+        counter.succeed();
+      }
     }
     return this;
   }
@@ -207,17 +235,13 @@ public class DefaultOutputStream implements OutputStream {
 
   @Override
   public OutputStream send(Object message) {
-    for (OutputConnection connection : selector.select(message, connections)) {
-      connection.send(message);
-    }
+    send(message, selector.select(message, connections));
     return this;
   }
 
   @Override
   public OutputStream send(String message) {
-    for (OutputConnection connection : selector.select(message, connections)) {
-      connection.send(message);
-    }
+    send(message, selector.select(message, connections));
     return this;
   }
 
@@ -279,17 +303,13 @@ public class DefaultOutputStream implements OutputStream {
 
   @Override
   public OutputStream send(JsonObject message) {
-    for (OutputConnection connection : selector.select(message, connections)) {
-      connection.send(message);
-    }
+    send(message, selector.select(message, connections));
     return this;
   }
 
   @Override
   public OutputStream send(JsonArray message) {
-    for (OutputConnection connection : selector.select(message, connections)) {
-      connection.send(message);
-    }
+    send(message, selector.select(message, connections));
     return this;
   }
 
@@ -317,6 +337,157 @@ public class DefaultOutputStream implements OutputStream {
     return this;
   }
 
+  @Override
+  public OutputStream sendAll(Collection<?> messages) {
+    if (connections.isEmpty() || messages.isEmpty()) {
+      return this;
+    }
+
+    // Fair selection depends on the sizes of the connections' queues, which
+    // only change as messages are sent, so messages are selected one at a time.
+    if (selector instanceof FairSelector) {
+      for (Object message : messages) {
+        send(message, selector.select(message, connections));
+      }
+      return this;
+    }
+
+    // The all selector sends every message to every connection, so a single
+    // chunk of shared values is passed to each connection.
+    if (selector instanceof AllSelector) {
+      if (connections.size() == 1) {
+        connections.get(0).sendAll(messages);
+      } else {
+        List<Object> chunk = new ArrayList<>(messages.size());
+        for (Object message : messages) {
+          chunk.add(message instanceof LazyMessage ? message : new SharedValue(message));
+        }
+        for (OutputConnection connection : connections) {
+          ((SharedValueOutput) connection).sendAllShared(chunk);
+        }
+      }
+      return this;
+    }
+
+    // Otherwise select the targets for each message up front and partition
+    // the messages into one chunk for each selected connection.
+    Map<OutputConnection, List<Object>> chunks = new HashMap<>();
+    int capacity = messages.size() / connections.size() + 1;
+    for (Object message : messages) {
+      List<OutputConnection> targets = selector.select(message, connections);
+      Object value = targets.size() > 1 && !(message instanceof LazyMessage) ? new SharedValue(message) : message;
+      for (OutputConnection connection : targets) {
+        List<Object> chunk = chunks.get(connection);
+        if (chunk == null) {
+          chunk = new ArrayList<>(capacity);
+          chunks.put(connection, chunk);
+        }
+        chunk.add(value);
+      }
+    }
+    for (Map.Entry<OutputConnection, List<Object>> entry : chunks.entrySet()) {
+      ((SharedValueOutput) entry.getKey()).sendAllShared(entry.getValue());
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream sendAll(Object[] messages) {
+    return sendAll(Arrays.asList(messages));
+  }
+
+  @Override
+  public OutputStream send(byte message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(short message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(char message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(int message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(long message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(float message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(double message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  @Override
+  public OutputStream send(boolean message) {
+    for (OutputConnection connection : selector.select(selectsByValue() ? (Object) message : null, connections)) {
+      connection.send(message);
+    }
+    return this;
+  }
+
+  /**
+   * Indicates whether the stream's selector selects connections based on the
+   * message value. Primitive messages are only boxed for selection when the
+   * selector needs the value.
+   */
+  private boolean selectsByValue() {
+    return selector instanceof HashSelector || selector instanceof CustomSelector;
+  }
+
+  /**
+   * Sends a message on the selected connections. Messages sent on more than
+   * one connection are wrapped in a shared value so they're only serialized
+   * once rather than once for each connection. Lazy messages are already
+   * encoded so they're sent as is.
+   */
+  static void send(Object message, List<? extends OutputConnection> targets) {
+    if (targets.size() > 1 && !(message instanceof LazyMessage)) {
+      SharedValue shared = new SharedValue(message);
+      for (OutputConnection connection : targets) {
+        ((SharedValueOutput) connection).sendShared(shared);
+      }
+    } else {
+      for (OutputConnection connection : targets) {
+        connection.send(message);
+      }
+    }
+  }
+
   @Override
   public void close() {
     close(null);
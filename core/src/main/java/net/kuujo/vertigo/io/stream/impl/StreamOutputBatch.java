@@ -86,17 +86,13 @@ public class StreamOutputBatch implements OutputBatch {
 
   @Override
   public OutputBatch send(Object message) {
-    for (OutputConnection connection : stream.selector.select(message, batches)) {
-      connection.send(message);
-    }
+    DefaultOutputStream.send(message, stream.selector.select(message, batches));
     return this;
   }
 
   @Override
   public OutputBatch send(String message) {
-    for (OutputConnection connection : stream.selector.select(message, batches)) {
-      connection.send(message);
-    }
+    DefaultOutputStream.send(message, stream.selector.select(message, batches));
     return this;
   }
 
@@ -174,17 +170,13 @@ public class StreamOutputBatch implements OutputBatch {
 
   @Override
   public OutputBatch send(JsonArray message) {
-    for (OutputConnection connection : stream.selector.select(message, batches)) {
-      connection.send(message);
-    }
+    DefaultOutputStream.send(message, stream.selector.select(message, batches));
     return this;
   }
 
   @Override
   public OutputBatch send(JsonObject message) {
-    for (OutputConnection connection : stream.selector.select(message, batches)) {
-      connection.send(message);
-    }
+    DefaultOutputStream.send(message, stream.selector.select(message, batches));
     return this;
   }
 
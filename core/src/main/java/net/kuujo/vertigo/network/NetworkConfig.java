@@ -17,6 +17,7 @@ package net.kuujo.vertigo.network;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import net.kuujo.vertigo.Config;
 import net.kuujo.vertigo.component.ComponentConfig;
@@ -25,6 +26,7 @@ import net.kuujo.vertigo.component.VerticleConfig;
 import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.selector.Selector;
 import net.kuujo.vertigo.network.impl.DefaultNetworkConfig;
+import net.kuujo.vertigo.util.serialization.MessageCodec;
 
 import org.vertx.java.core.json.JsonObject;
 
@@ -68,6 +70,13 @@ public interface NetworkConfig extends Config<NetworkConfig> {
    */
   public static final String NETWORK_CONNECTIONS = "connections";
 
+  /**
+   * <code>codecs</code> is an object mapping message type class names to the
+   * class names of the {@link MessageCodec} with which to encode them on all
+   * connections in the network.
+   */
+  public static final String NETWORK_CODECS = "codecs";
+
   /**
    * Returns the network name.<p>
    *
@@ -437,4 +446,34 @@ public interface NetworkConfig extends Config<NetworkConfig> {
    */
   NetworkConfig destroyConnection(String source, String out, String target, String in);
 
+  /**
+   * Registers a message codec on all connections in the network.<p>
+   *
+   * Codecs registered on individual connections override codecs registered
+   * on the network. Network codecs are fixed once the network is deployed, so
+   * codecs registered on a configuration that's merged into a running network
+   * are ignored.
+   *
+   * @param type The message type.
+   * @param codec The codec with which to encode messages of the type.
+   * @return The network configuration.
+   */
+  @SuppressWarnings("rawtypes")
+  NetworkConfig addCodec(Class<?> type, Class<? extends MessageCodec> codec);
+
+  /**
+   * Removes a message codec from the network.
+   *
+   * @param type The message type.
+   * @return The network configuration.
+   */
+  NetworkConfig removeCodec(Class<?> type);
+
+  /**
+   * Returns the message codecs registered on the network.
+   *
+   * @return A map of message type class names to codec class names.
+   */
+  Map<String, String> getCodecs();
+
 }
@@ -35,6 +35,7 @@ import net.kuujo.vertigo.io.selector.Selector;
 import net.kuujo.vertigo.network.NetworkConfig;
 import net.kuujo.vertigo.util.Args;
 import net.kuujo.vertigo.util.ContextUri;
+import net.kuujo.vertigo.util.serialization.MessageCodec;
 
 import org.vertx.java.core.json.JsonObject;
 
@@ -47,6 +48,7 @@ public class DefaultNetworkConfig implements NetworkConfig {
   private String name;
   private Map<String, ComponentConfig<?>> components = new HashMap<String, ComponentConfig<?>>();
   private List<ConnectionConfig> connections = new ArrayList<>();
+  private Map<String, String> codecs = new HashMap<>();
 
   public DefaultNetworkConfig() {
     name = ContextUri.createUniqueScheme();
@@ -272,6 +274,26 @@ public class DefaultNetworkConfig implements NetworkConfig {
     return connections;
   }
 
+  @Override
+  @SuppressWarnings("rawtypes")
+  public NetworkConfig addCodec(Class<?> type, Class<? extends MessageCodec> codec) {
+    Args.checkNotNull(type, "codec type cannot be null");
+    Args.checkNotNull(codec, "codec cannot be null");
+    codecs.put(type.getName(), codec.getName());
+    return this;
+  }
+
+  @Override
+  public NetworkConfig removeCodec(Class<?> type) {
+    codecs.remove(type.getName());
+    return this;
+  }
+
+  @Override
+  public Map<String, String> getCodecs() {
+    return codecs;
+  }
+
   @Override
   public String toString() {
     return getName();
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.util.serialization;
+
+/**
+ * Message codec.<p>
+ *
+ * Codecs encode message values of a specific type to bytes for transmission
+ * over connections. Codecs are registered per type on a connection or network
+ * and are used in place of Java serialization for values of exactly that type.
+ * Codec implementations must provide a public no-argument constructor.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <T> The type of value encoded by the codec.
+ */
+public interface MessageCodec<T> {
+
+  /**
+   * Encodes a message value. If an error occurs during encoding, a
+   * {@link SerializationException} should be thrown.
+   *
+   * @param value The value to encode.
+   * @return The encoded value.
+   * @throws SerializationException If an error occurs during encoding.
+   */
+  byte[] encode(T value);
+
+  /**
+   * Decodes a message value. If an error occurs during decoding, a
+   * {@link DeserializationException} should be thrown.
+   *
+   * @param bytes The encoded value.
+   * @param type The type for which the codec was registered.
+   * @return The decoded value.
+   * @throws DeserializationException If an error occurs during decoding.
+   */
+  T decode(byte[] bytes, Class<T> type);
+
+}
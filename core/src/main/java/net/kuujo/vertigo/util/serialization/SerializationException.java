@@ -27,4 +27,8 @@ public class SerializationException extends RuntimeException {
     super(message);
   }
 
+  public SerializationException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.util.serialization.impl;
+
+import net.kuujo.vertigo.util.serialization.MessageCodec;
+import net.kuujo.vertigo.util.serialization.SerializerFactory;
+
+/**
+ * Jackson based message codec.<p>
+ *
+ * Encodes message values to JSON using the {@link SerializerFactory}
+ * serializer for the value type, so {@link net.kuujo.vertigo.util.serialization.JsonSerializable}
+ * types and any other Jackson serializable types can be sent without
+ * Java serialization.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class JacksonMessageCodec implements MessageCodec<Object> {
+
+  @Override
+  public byte[] encode(Object value) {
+    return SerializerFactory.getSerializer(value.getClass()).serializeToBytes(value);
+  }
+
+  @Override
+  public Object decode(byte[] bytes, Class<Object> type) {
+    return SerializerFactory.getSerializer(type).deserializeBytes(bytes, type);
+  }
+
+}
@@ -0,0 +1,894 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.integration.network;
+
+import static org.vertx.testtools.VertxAssert.assertEquals;
+import static org.vertx.testtools.VertxAssert.assertFalse;
+import static org.vertx.testtools.VertxAssert.assertTrue;
+import static org.vertx.testtools.VertxAssert.fail;
+import static org.vertx.testtools.VertxAssert.testComplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.kuujo.vertigo.impl.ContextBuilder;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.connection.InputConnection;
+import net.kuujo.vertigo.io.connection.InputConnectionContext;
+import net.kuujo.vertigo.io.connection.OutputConnection;
+import net.kuujo.vertigo.io.connection.impl.BinaryMessageEncoder;
+import net.kuujo.vertigo.io.connection.impl.DefaultConnectionContext;
+import net.kuujo.vertigo.io.connection.impl.DefaultInputConnection;
+import net.kuujo.vertigo.io.connection.impl.DefaultInputConnectionContext;
+import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnection;
+import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnectionContext;
+import net.kuujo.vertigo.io.connection.impl.DirectBufferPool;
+import net.kuujo.vertigo.io.connection.impl.JsonMessageEncoder;
+import net.kuujo.vertigo.io.connection.impl.MessageEncoder;
+import net.kuujo.vertigo.io.port.InputPortContext;
+import net.kuujo.vertigo.io.port.impl.DefaultInputPort;
+import net.kuujo.vertigo.io.port.impl.DefaultInputPortContext;
+import net.kuujo.vertigo.network.NetworkConfig;
+import net.kuujo.vertigo.network.impl.DefaultNetworkConfig;
+
+import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.TestVerticle;
+
+/**
+ * A connection protocol test.
+ *
+ * @author Jordan Halterman
+ */
+public class ConnectionTest extends TestVerticle {
+
+  @Test
+  public void testSelectiveRetransmission() {
+    testSelectiveRetransmission("test-json", new JsonMessageEncoder());
+  }
+
+  @Test
+  public void testSelectiveRetransmissionBinary() {
+    testSelectiveRetransmission("test-binary", new BinaryMessageEncoder());
+  }
+
+  /**
+   * Sends messages 1, 3, 4 and 6 and expects the input connection to request
+   * only messages 2 and 5 before handling all messages in order.
+   */
+  private void testSelectiveRetransmission(final String address, final MessageEncoder encoder) {
+    final InputConnection connection = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address)
+        .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+            .setComponent("sender").setPort("out").setInstance(1).build())
+        .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+            .setComponent("receiver").setPort("in").setInstance(1).build())
+        .setReorderWindow(16)
+        .build());
+
+    connection.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        assertEquals(++count, message.intValue());
+        if (count == 6) {
+          testComplete();
+        }
+      }
+    });
+
+    vertx.eventBus().registerHandler(String.format("%s.out", address), new Handler<Message<JsonObject>>() {
+      private int nacks;
+      @Override
+      public void handle(Message<JsonObject> message) {
+        if (message.body().getString("action").equals("nack")) {
+          JsonArray range = message.body().getArray("ranges").get(0);
+          long id = ((Number) range.get(0)).longValue();
+          assertEquals(id, ((Number) range.get(1)).longValue());
+          assertEquals(++nacks == 1 ? 2 : 5, id);
+          send(address, encoder, id);
+        }
+      }
+    });
+
+    connection.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        vertx.eventBus().send(String.format("%s.in", address), new JsonObject().putString("action", "connect"), new Handler<Message<Boolean>>() {
+          @Override
+          public void handle(Message<Boolean> message) {
+            assertTrue(message.body());
+            send(address, encoder, 1);
+            send(address, encoder, 3);
+            send(address, encoder, 4);
+            send(address, encoder, 6);
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testReadyAnnouncement() {
+    final String address = "test-ready-announcement";
+    final DefaultConnectionContext.DefaultSourceContext source = DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+        .setComponent("sender").setPort("out").setInstance(1).build();
+    final DefaultConnectionContext.DefaultTargetContext target = DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+        .setComponent("receiver").setPort("in").setInstance(1).build();
+    final InputConnection input = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address).setSource(source).setTarget(target).build());
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress(address).setSource(source).setTarget(target).build());
+    final long[] opened = new long[1];
+
+    output.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        // The output should connect as soon as the input announces itself
+        // rather than waiting for its next retry.
+        assertTrue(System.currentTimeMillis() - opened[0] < 250);
+        testComplete();
+      }
+    });
+
+    // Open the input between output retries.
+    vertx.setTimer(650, new Handler<Long>() {
+      @Override
+      public void handle(Long timerID) {
+        opened[0] = System.currentTimeMillis();
+        input.open();
+      }
+    });
+  }
+
+  @Test
+  public void testLazyOpen() {
+    final String address = "test-lazy-open";
+    final DefaultConnectionContext.DefaultSourceContext source = DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+        .setComponent("sender").setPort("out").setInstance(1).build();
+    final DefaultConnectionContext.DefaultTargetContext target = DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+        .setComponent("receiver").setPort("in").setInstance(1).build();
+    final InputConnection input = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address).setSource(source).setTarget(target).build());
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress(address).setSource(source).setTarget(target).setLazyOpen(true).setPreOpenBuffer(3).build());
+
+    input.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        assertEquals(++count, message.intValue());
+        if (count == 3) {
+          testComplete();
+        }
+      }
+    });
+
+    // Messages sent before the connection opens are held until it opens.
+    output.open();
+    output.send(1);
+    output.send(2);
+    assertFalse(output.sendQueueFull());
+    output.send(3);
+    assertTrue(output.sendQueueFull());
+
+    vertx.setTimer(300, new Handler<Long>() {
+      @Override
+      public void handle(Long timerID) {
+        input.open();
+      }
+    });
+  }
+
+  /**
+   * Sends messages 1, 3 and 2 on an at-most-once connection and expects the
+   * input connection to handle them as they arrive without any feedback.
+   */
+  @Test
+  public void testAtMostOnce() {
+    final String address = "test-at-most-once";
+    final MessageEncoder encoder = new JsonMessageEncoder();
+    final InputConnection connection = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address)
+        .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+            .setComponent("sender").setPort("out").setInstance(1).build())
+        .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+            .setComponent("receiver").setPort("in").setInstance(1).build())
+        .setDeliveryMode(ConnectionConfig.DeliveryMode.AT_MOST_ONCE)
+        .build());
+
+    final int[] expected = new int[]{1, 3, 2};
+    connection.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        assertEquals(expected[count++], message.intValue());
+        if (count == expected.length) {
+          // Give any feedback time to arrive before completing the test.
+          vertx.setTimer(1500, new Handler<Long>() {
+            @Override
+            public void handle(Long timerID) {
+              testComplete();
+            }
+          });
+        }
+      }
+    });
+
+    vertx.eventBus().registerHandler(String.format("%s.out", address), new Handler<Message<JsonObject>>() {
+      @Override
+      public void handle(Message<JsonObject> message) {
+        fail("Unexpected feedback " + message.body().encode());
+      }
+    });
+
+    connection.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        vertx.eventBus().send(String.format("%s.in", address), new JsonObject().putString("action", "connect"), new Handler<Message<Boolean>>() {
+          @Override
+          public void handle(Message<Boolean> message) {
+            assertTrue(message.body());
+            for (int id : expected) {
+              send(address, encoder, id);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Leaves a gap in two connections opened in the same context and expects the
+   * shared feedback timer to periodically re-request the missing message for both.
+   */
+  @Test
+  public void testSharedFeedbackTimer() {
+    final MessageEncoder encoder = new JsonMessageEncoder();
+    final String[] addresses = new String[]{"test-feedback-1", "test-feedback-2"};
+    final int[] renacks = new int[1];
+    for (final String address : addresses) {
+      final InputConnection connection = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+          .setAddress(address)
+          .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+              .setComponent("sender").setPort("out").setInstance(1).build())
+          .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+              .setComponent("receiver").setPort("in").setInstance(1).build())
+          .setReorderWindow(16)
+          .build());
+      connection.messageHandler(new Handler<Integer>() {
+        @Override
+        public void handle(Integer message) {
+        }
+      });
+
+      vertx.eventBus().registerHandler(String.format("%s.out", address), new Handler<Message<JsonObject>>() {
+        private int nacks;
+        @Override
+        public void handle(Message<JsonObject> message) {
+          if (message.body().getString("action").equals("nack")) {
+            JsonArray range = message.body().getArray("ranges").get(0);
+            assertEquals(2, ((Number) range.get(0)).longValue());
+            if (++nacks == 2 && ++renacks[0] == addresses.length) {
+              testComplete();
+            }
+          }
+        }
+      });
+
+      connection.open(new Handler<AsyncResult<Void>>() {
+        @Override
+        public void handle(AsyncResult<Void> result) {
+          assertTrue(result.succeeded());
+          vertx.eventBus().send(String.format("%s.in", address), new JsonObject().putString("action", "connect"), new Handler<Message<Boolean>>() {
+            @Override
+            public void handle(Message<Boolean> message) {
+              assertTrue(message.body());
+              send(address, encoder, 1);
+              send(address, encoder, 3);
+            }
+          });
+        }
+      });
+    }
+  }
+
+  /**
+   * Sends messages 1, 2 and 3, replays 2 and 3, and expects the input connection
+   * to suppress the replayed messages, including after it's reopened.
+   */
+  @Test
+  public void testDeduplication() {
+    final String address = "test-dedup";
+    final MessageEncoder encoder = new JsonMessageEncoder();
+    final InputConnectionContext context = DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address)
+        .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+            .setComponent("sender").setPort("out").setInstance(1).build())
+        .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+            .setComponent("receiver").setPort("in").setInstance(1).build())
+        .setDedupWindow(64)
+        .build();
+
+    final InputConnection connection = new DefaultInputConnection(vertx, context);
+    connection.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        assertEquals(++count, message.intValue());
+        if (count == 4) {
+          assertEquals(2, connection.duplicates());
+          connection.close(new Handler<AsyncResult<Void>>() {
+            @Override
+            public void handle(AsyncResult<Void> result) {
+              assertTrue(result.succeeded());
+              reopen(address, encoder, context);
+            }
+          });
+        }
+      }
+    });
+
+    connection.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        connect(address, "foo", new Handler<Void>() {
+          @Override
+          public void handle(Void _) {
+            send(address, encoder, 1);
+            send(address, encoder, 2);
+            send(address, encoder, 3);
+            send(address, encoder, 2);
+            send(address, encoder, 3);
+            send(address, encoder, 4);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Closes and reopens an in port and expects the dedup window of its connection
+   * to be kept, then removes the connection from the network and expects the
+   * window to be discarded.
+   */
+  @Test
+  public void testDedupWindowRemoved() {
+    NetworkConfig network = new DefaultNetworkConfig("test-dedup-removed");
+    network.addVerticle("sender", "sender.py");
+    network.addVerticle("receiver", "receiver.py");
+    network.createConnection("sender", "out", "receiver", "in").setDedupWindow(64);
+    final InputPortContext context = ContextBuilder.buildContext(network, "vertigo")
+        .component("receiver").instances().get(0).input().port("in");
+    final String address = context.connections().iterator().next().address();
+    final Map<String, Object> windows = vertx.sharedData().getMap("__vertigo.dedup");
+    final DefaultInputPort port = new DefaultInputPort(vertx, context);
+
+    port.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        assertTrue(windows.containsKey(address));
+        port.close(new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+            assertTrue(windows.containsKey(address));
+            port.open(new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                assertTrue(result.succeeded());
+                port.update(DefaultInputPortContext.Builder.newBuilder(context.copy())
+                    .setConnections(new ArrayList<InputConnectionContext>()).build());
+                vertx.runOnContext(new Handler<Void>() {
+                  @Override
+                  public void handle(Void _) {
+                    assertFalse(windows.containsKey(address));
+                    testComplete();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Sends messages 1, 2 and 3, restarts the source with a new session, and
+   * expects the input connection to handle the new session's messages 1 and 2
+   * even though a reorder window is configured.
+   */
+  @Test
+  public void testSourceRestart() {
+    final String address = "test-source-restart";
+    final MessageEncoder encoder = new JsonMessageEncoder();
+    final InputConnection connection = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address)
+        .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+            .setComponent("sender").setPort("out").setInstance(1).build())
+        .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+            .setComponent("receiver").setPort("in").setInstance(1).build())
+        .setReorderWindow(16)
+        .build());
+
+    connection.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        count++;
+        assertEquals(count <= 3 ? count : count - 3, message.intValue());
+        if (count == 3) {
+          connect(address, "bar", new Handler<Void>() {
+            @Override
+            public void handle(Void _) {
+              send(address, encoder, 1);
+              send(address, encoder, 2);
+            }
+          });
+        } else if (count == 5) {
+          testComplete();
+        }
+      }
+    });
+
+    connection.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        connect(address, "foo", new Handler<Void>() {
+          @Override
+          public void handle(Void _) {
+            send(address, encoder, 1);
+            send(address, encoder, 2);
+            send(address, encoder, 3);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Sends five messages on a connection with a send queue size of five and
+   * expects the output connection to hold all of them until credit is granted
+   * and then to send only the messages covered by the grant.
+   */
+  @Test
+  public void testCreditStall() {
+    final String address = "test-credit-stall";
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress(address)
+        .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+            .setComponent("sender").setPort("out").setInstance(1).build())
+        .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+            .setComponent("receiver").setPort("in").setInstance(1).build())
+        .setCreditWindow(5)
+        .build());
+    output.setSendQueueMaxSize(5);
+
+    final List<Long> received = new ArrayList<>();
+    vertx.eventBus().registerHandler(String.format("%s.in", address), new Handler<Message<JsonObject>>() {
+      @Override
+      public void handle(Message<JsonObject> message) {
+        String action = message.body().getString("action");
+        if (action.equals("connect")) {
+          message.reply(true);
+        } else if (action.equals("message")) {
+          received.add(message.body().getLong("id"));
+        }
+      }
+    });
+
+    output.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        for (int i = 1; i <= 5; i++) {
+          assertFalse(output.sendQueueFull());
+          output.send(i);
+        }
+        assertTrue(output.sendQueueFull());
+
+        vertx.setTimer(500, new Handler<Long>() {
+          @Override
+          public void handle(Long timerID) {
+            // No credit has been granted, so nothing can have been sent.
+            assertTrue(received.isEmpty());
+            assertTrue(output.sendQueueFull());
+            vertx.eventBus().send(String.format("%s.out", address), new JsonObject().putString("action", "credit").putNumber("id", 3));
+            vertx.setTimer(500, new Handler<Long>() {
+              @Override
+              public void handle(Long timerID) {
+                assertEquals(3, received.size());
+                for (int i = 0; i < received.size(); i++) {
+                  assertEquals(i + 1, received.get(i).longValue());
+                }
+                assertFalse(output.sendQueueFull());
+                testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Sends messages 1 to 5 through a relay which drops message 2 once, and
+   * expects the input connection to request message 2 by a NACK range and the
+   * output connection to resend it before all messages are handled in order.
+   */
+  @Test
+  public void testNackRecovery() {
+    final DefaultConnectionContext.DefaultSourceContext source = DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+        .setComponent("sender").setPort("out").setInstance(1).build();
+    final DefaultConnectionContext.DefaultTargetContext target = DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+        .setComponent("receiver").setPort("in").setInstance(1).build();
+    final InputConnection input = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress("test-nack-in").setSource(source).setTarget(target).setReorderWindow(16).build());
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress("test-nack-out").setSource(source).setTarget(target).build());
+
+    final Set<Long> drop = new HashSet<>(Arrays.asList(2L));
+    final List<JsonArray> nacks = new ArrayList<>();
+    relay("test-nack-out", "test-nack-in", drop, new Handler<JsonObject>() {
+      @Override
+      public void handle(JsonObject feedback) {
+        if (feedback.getString("action").equals("nack")) {
+          nacks.add(feedback.getArray("ranges"));
+        }
+      }
+    });
+
+    input.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        assertEquals(++count, message.intValue());
+        if (count == 5) {
+          assertTrue(drop.isEmpty());
+          assertFalse(nacks.isEmpty());
+          JsonArray range = nacks.get(0).get(0);
+          assertEquals(2, ((Number) range.get(0)).longValue());
+          assertEquals(2, ((Number) range.get(1)).longValue());
+          testComplete();
+        }
+      }
+    });
+
+    input.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        output.open(new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+            for (int i = 1; i <= 5; i++) {
+              output.send(i);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Drops a message on a JSON connection with direct replay storage and expects
+   * the input connection to accept the retransmission, which is sent in its
+   * encoded form straight from direct memory.
+   */
+  @Test
+  public void testDirectReplay() {
+    final DefaultConnectionContext.DefaultSourceContext source = DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+        .setComponent("sender").setPort("out").setInstance(1).build();
+    final DefaultConnectionContext.DefaultTargetContext target = DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+        .setComponent("receiver").setPort("in").setInstance(1).build();
+    final InputConnection input = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress("test-direct-in").setSource(source).setTarget(target).setReorderWindow(16).build());
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress("test-direct-out").setSource(source).setTarget(target)
+        .setReplayStorage(ConnectionConfig.Storage.DIRECT).build(), new DirectBufferPool(1024 * 1024));
+
+    final Set<Long> drop = new HashSet<>(Arrays.asList(2L));
+    relay("test-direct-out", "test-direct-in", drop, new Handler<JsonObject>() {
+      @Override
+      public void handle(JsonObject feedback) {
+      }
+    });
+
+    input.messageHandler(new Handler<String>() {
+      private int count;
+      @Override
+      public void handle(String message) {
+        assertEquals("message" + ++count, message);
+        if (count == 5) {
+          assertTrue(drop.isEmpty());
+          testComplete();
+        }
+      }
+    });
+
+    input.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        output.open(new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+            for (int i = 1; i <= 5; i++) {
+              output.send("message" + i);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Sends a message on a local connection with the reference copy policy and
+   * expects the input connection to handle the very same object, which it could
+   * only have received through the local channel rather than the event bus.
+   */
+  @Test
+  public void testLocalDelivery() {
+    final String address = "test-local";
+    final DefaultConnectionContext.DefaultSourceContext source = DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+        .setComponent("sender").setPort("out").setInstance(1).build();
+    final DefaultConnectionContext.DefaultTargetContext target = DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+        .setComponent("receiver").setPort("in").setInstance(1).build();
+    final InputConnection input = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress(address).setSource(source).setTarget(target).setLocalDelivery(true).build());
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress(address).setSource(source).setTarget(target).setLocalDelivery(true)
+        .setCopyPolicy(ConnectionConfig.CopyPolicy.REFERENCE).build());
+
+    final JsonObject sent = new JsonObject().putString("foo", "bar");
+    input.messageHandler(new Handler<JsonObject>() {
+      @Override
+      public void handle(JsonObject message) {
+        assertTrue(message == sent);
+        testComplete();
+      }
+    });
+
+    input.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        output.open(new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+            output.send(sent);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Sends more messages than an ack is sent for on an at-most-once connection
+   * and expects the input connection to handle all of them without sending a
+   * single ack to the output connection.
+   */
+  @Test
+  public void testAtMostOnceNoAcks() {
+    final DefaultConnectionContext.DefaultSourceContext source = DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+        .setComponent("sender").setPort("out").setInstance(1).build();
+    final DefaultConnectionContext.DefaultTargetContext target = DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+        .setComponent("receiver").setPort("in").setInstance(1).build();
+    final InputConnection input = new DefaultInputConnection(vertx, DefaultInputConnectionContext.Builder.newBuilder()
+        .setAddress("test-no-acks-in").setSource(source).setTarget(target)
+        .setDeliveryMode(ConnectionConfig.DeliveryMode.AT_MOST_ONCE).build());
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress("test-no-acks-out").setSource(source).setTarget(target)
+        .setDeliveryMode(ConnectionConfig.DeliveryMode.AT_MOST_ONCE).build());
+
+    relay("test-no-acks-out", "test-no-acks-in", new HashSet<Long>(), new Handler<JsonObject>() {
+      @Override
+      public void handle(JsonObject feedback) {
+        if (feedback.getString("action").equals("ack")) {
+          fail("Unexpected ack " + feedback.encode());
+        }
+      }
+    });
+
+    input.messageHandler(new Handler<Integer>() {
+      private int count;
+      @Override
+      public void handle(Integer message) {
+        assertEquals(++count, message.intValue());
+        if (count == 2500) {
+          // Give any periodic ack time to arrive before completing the test.
+          vertx.setTimer(1500, new Handler<Long>() {
+            @Override
+            public void handle(Long timerID) {
+              testComplete();
+            }
+          });
+        }
+      }
+    });
+
+    input.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        output.open(new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+            for (int i = 1; i <= 2500; i++) {
+              output.send(i);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Fills the send queue of a connection whose acks are lost and expects the
+   * stalled output connection to request feedback, and to drain once the
+   * requested ack is received.
+   */
+  @Test
+  public void testStalledFeedbackRequest() {
+    final String address = "test-stalled-feedback";
+    final OutputConnection output = new DefaultOutputConnection(vertx, DefaultOutputConnectionContext.Builder.newBuilder()
+        .setAddress(address)
+        .setSource(DefaultConnectionContext.DefaultSourceContext.Builder.newBuilder()
+            .setComponent("sender").setPort("out").setInstance(1).build())
+        .setTarget(DefaultConnectionContext.DefaultTargetContext.Builder.newBuilder()
+            .setComponent("receiver").setPort("in").setInstance(1).build())
+        .build());
+    output.setSendQueueMaxSize(3);
+
+    final long[] lastReceived = new long[1];
+    vertx.eventBus().registerHandler(String.format("%s.in", address), new Handler<Message<JsonObject>>() {
+      @Override
+      public void handle(Message<JsonObject> message) {
+        String action = message.body().getString("action");
+        if (action.equals("connect")) {
+          message.reply(true);
+        } else if (action.equals("message")) {
+          lastReceived[0] = message.body().getLong("id");
+        } else if (action.equals("feedback")) {
+          // Acks were never sent, so the connection can only be stalled.
+          assertEquals(3, lastReceived[0]);
+          assertTrue(output.sendQueueFull());
+          vertx.eventBus().send(String.format("%s.out", address), new JsonObject().putString("action", "ack").putNumber("id", lastReceived[0]));
+        }
+      }
+    });
+
+    output.drainHandler(new Handler<Void>() {
+      @Override
+      public void handle(Void _) {
+        assertFalse(output.sendQueueFull());
+        testComplete();
+      }
+    });
+
+    output.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        for (int i = 1; i <= 3; i++) {
+          output.send(i);
+        }
+        assertTrue(output.sendQueueFull());
+      }
+    });
+  }
+
+  /**
+   * Reopens the connection and replays messages 3 and 4 from the same session.
+   */
+  private void reopen(final String address, final MessageEncoder encoder, InputConnectionContext context) {
+    final InputConnection connection = new DefaultInputConnection(vertx, context);
+    connection.messageHandler(new Handler<Integer>() {
+      @Override
+      public void handle(Integer message) {
+        assertEquals(5, message.intValue());
+        assertEquals(4, connection.duplicates());
+        testComplete();
+      }
+    });
+
+    connection.open(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        connect(address, "foo", new Handler<Void>() {
+          @Override
+          public void handle(Void _) {
+            send(address, encoder, 3);
+            send(address, encoder, 4);
+            send(address, encoder, 5);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Relays messages between an output connection and an input connection opened
+   * on different addresses. Messages with IDs in the drop set are dropped once,
+   * and the feedback handler is called for each message from the input connection.
+   */
+  private void relay(final String outAddress, final String inAddress, final Set<Long> drop, final Handler<JsonObject> feedbackHandler) {
+    vertx.eventBus().registerHandler(String.format("%s.in", outAddress), new Handler<Message<Object>>() {
+      @Override
+      public void handle(final Message<Object> message) {
+        if (message.body() instanceof JsonObject) {
+          JsonObject body = (JsonObject) message.body();
+          String action = body.getString("action");
+          if (action.equals("message") && drop.remove(body.getLong("id"))) {
+            return;
+          } else if (action.equals("connect")) {
+            vertx.eventBus().send(String.format("%s.in", inAddress), body, new Handler<Message<Object>>() {
+              @Override
+              public void handle(Message<Object> reply) {
+                message.reply(reply.body());
+              }
+            });
+            return;
+          }
+        }
+        vertx.eventBus().send(String.format("%s.in", inAddress), message.body());
+      }
+    });
+
+    vertx.eventBus().registerHandler(String.format("%s.out", inAddress), new Handler<Message<JsonObject>>() {
+      @Override
+      public void handle(Message<JsonObject> message) {
+        feedbackHandler.handle(message.body());
+        vertx.eventBus().send(String.format("%s.out", outAddress), message.body());
+      }
+    });
+  }
+
+  private void connect(String address, String session, final Handler<Void> doneHandler) {
+    vertx.eventBus().send(String.format("%s.in", address), new JsonObject().putString("action", "connect").putString("session", session), new Handler<Message<Boolean>>() {
+      @Override
+      public void handle(Message<Boolean> message) {
+        assertTrue(message.body());
+        doneHandler.handle((Void) null);
+      }
+    });
+  }
+
+  private void send(String address, MessageEncoder encoder, long id) {
+    vertx.eventBus().send(String.format("%s.in", address), encoder.encodeMessage(id, (int) id));
+  }
+
+}
@@ -29,6 +29,7 @@ import net.kuujo.vertigo.Vertigo;
 import net.kuujo.vertigo.cluster.Cluster;
 import net.kuujo.vertigo.io.batch.InputBatch;
 import net.kuujo.vertigo.io.batch.OutputBatch;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.io.group.InputGroup;
 import net.kuujo.vertigo.io.group.OutputGroup;
 import net.kuujo.vertigo.java.ComponentVerticle;
@@ -643,6 +644,56 @@ public class GroupTest extends TestVerticle {
     });
   }
 
+  @Test
+  public void testBinaryNestedGroups() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestNestedGroupSender.class.getName());
+        network.addVerticle("receiver", TestNestedGroupReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").roundSelect().setFormat(ConnectionConfig.Format.BINARY);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testLocalNestedGroups() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestNestedGroupSender.class.getName());
+        network.addVerticle("receiver", TestNestedGroupReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").roundSelect().setLocalDelivery(true);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
   public static class TestNestedAsyncGroupSender extends ComponentVerticle {
     @Override
     public void start() {
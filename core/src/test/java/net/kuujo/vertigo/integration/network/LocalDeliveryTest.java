@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.integration.network;
+
+import static org.vertx.testtools.VertxAssert.assertEquals;
+import static org.vertx.testtools.VertxAssert.assertNotNull;
+import static org.vertx.testtools.VertxAssert.assertNull;
+import static org.vertx.testtools.VertxAssert.assertTrue;
+import static org.vertx.testtools.VertxAssert.testComplete;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import net.kuujo.vertigo.Vertigo;
+import net.kuujo.vertigo.cluster.Cluster;
+import net.kuujo.vertigo.io.connection.impl.LocalChannel;
+import net.kuujo.vertigo.java.ComponentVerticle;
+import net.kuujo.vertigo.network.ActiveNetwork;
+import net.kuujo.vertigo.network.NetworkConfig;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.InitializationError;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.testtools.JavaClassRunner;
+import org.vertx.testtools.TestVerticle;
+
+/**
+ * Local delivery tests.
+ *
+ * @author Jordan Halterman
+ */
+@RunWith(LocalDeliveryTest.LocalDeliveryClassRunner.class)
+public class LocalDeliveryTest extends TestVerticle {
+
+  public static class LocalDeliveryClassRunner extends JavaClassRunner {
+    static {
+      System.setProperty("vertx.mods", "src/test/resources/test-mods");
+    }
+    public LocalDeliveryClassRunner(Class<?> klass) throws InitializationError {
+      super(klass);
+    }
+  }
+
+  /**
+   * Sender deployed as the main of the net.kuujo~test-local-1~1.0 module.
+   */
+  public static class TestModuleSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      for (int i = 1; i <= 10; i++) {
+        output.port("out").send(new JsonObject().putNumber("count", i));
+      }
+    }
+  }
+
+  public static class TestReceiver extends ComponentVerticle {
+    private int count;
+
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<JsonObject>() {
+        @Override
+        public void handle(JsonObject message) {
+          assertEquals(++count, message.getInteger("count").intValue());
+          if (count == 10) {
+            testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * The module is loaded by its own class loader, so the sender must fall back
+   * to the event bus rather than handing its messages to the receiver directly.
+   */
+  @Test
+  public void testModuleSender() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addModule("sender", "net.kuujo~test-local-1~1.0");
+        network.addVerticle("receiver", TestReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setLocalDelivery(true);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testLookupClassLoader() {
+    Handler<Object> handler = new Handler<Object>() {
+      @Override
+      public void handle(Object message) {
+      }
+    };
+
+    // A channel registered from the current class loader is found.
+    LocalChannel channel = LocalChannel.register(vertx, "test-lookup-1", handler);
+    assertNotNull(LocalChannel.lookup(vertx, "test-lookup-1"));
+    channel.close(vertx, "test-lookup-1");
+    assertNull(LocalChannel.lookup(vertx, "test-lookup-1"));
+
+    // A channel registered from an unrelated class loader is not found.
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], null));
+    try {
+      LocalChannel.register(vertx, "test-lookup-2", handler);
+    } finally {
+      Thread.currentThread().setContextClassLoader(loader);
+    }
+    assertNull(LocalChannel.lookup(vertx, "test-lookup-2"));
+
+    // Nor is anything registered under the channel key by another copy of Vertigo.
+    vertx.sharedData().getMap("__vertigo.local").put("test-lookup-3", "foo");
+    assertNull(LocalChannel.lookup(vertx, "test-lookup-3"));
+    testComplete();
+  }
+
+  @AfterClass
+  public static void after() {
+    System.clearProperty("vertx.mods");
+  }
+
+}
@@ -16,23 +16,36 @@
 package net.kuujo.vertigo.integration.network;
 
 import static org.vertx.testtools.VertxAssert.assertEquals;
+import static org.vertx.testtools.VertxAssert.assertFalse;
 import static org.vertx.testtools.VertxAssert.assertTrue;
 import static org.vertx.testtools.VertxAssert.testComplete;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import net.kuujo.vertigo.Vertigo;
 import net.kuujo.vertigo.cluster.Cluster;
+import net.kuujo.vertigo.io.DoubleHandler;
+import net.kuujo.vertigo.io.LazyMessage;
+import net.kuujo.vertigo.io.LongHandler;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
 import net.kuujo.vertigo.java.ComponentVerticle;
 import net.kuujo.vertigo.network.ActiveNetwork;
 import net.kuujo.vertigo.network.NetworkConfig;
+import net.kuujo.vertigo.util.serialization.JsonSerializable;
+import net.kuujo.vertigo.util.serialization.impl.JacksonMessageCodec;
 
 import org.junit.Test;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Future;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonObject;
 import org.vertx.testtools.TestVerticle;
 
 /**
@@ -125,6 +138,663 @@ public class PortTest extends TestVerticle {
     });
   }
 
+  @Test
+  public void testOneToOneBinary() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestSender.class.getName());
+        network.addVerticle("receiver", TestReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setFormat(ConnectionConfig.Format.BINARY);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestCoalescedSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      for (int i = 0; i < 1000; i++) {
+        output.port("out").send(i);
+      }
+    }
+  }
+
+  public static class TestCoalescedReceiver extends ComponentVerticle {
+    private int count;
+
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<Integer>() {
+        @Override
+        public void handle(Integer message) {
+          assertEquals(count++, message.intValue());
+          if (count == 1000) {
+            testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOneCoalesced() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestCoalescedSender.class.getName());
+        network.addVerticle("receiver", TestCoalescedReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setCoalesceSize(64);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestBulkReceiver extends ComponentVerticle {
+    private int count;
+    private int largest;
+
+    @Override
+    public void start() {
+      input.port("in").bulkMessageHandler(50, new Handler<List<Integer>>() {
+        @Override
+        public void handle(List<Integer> messages) {
+          assertTrue(messages.size() <= 50);
+          largest = Math.max(largest, messages.size());
+          for (Integer message : messages) {
+            assertEquals(count++, message.intValue());
+          }
+          if (count == 1000) {
+            assertTrue(largest > 1);
+            testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOneBulk() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestCoalescedSender.class.getName());
+        network.addVerticle("receiver", TestBulkReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setCoalesceSize(64);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestSendAllSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      List<Integer> messages = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        messages.add(i);
+      }
+      output.port("out").sendAll(messages);
+    }
+  }
+
+  @Test
+  public void testOneToOneSendAll() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestSendAllSender.class.getName());
+        network.addVerticle("receiver", TestCoalescedReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setCoalesceSize(64);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testOneToOneCoalescedBinary() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestCoalescedSender.class.getName());
+        network.addVerticle("receiver", TestCoalescedReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in")
+            .setFormat(ConnectionConfig.Format.BINARY)
+            .setCoalesceSize(64)
+            .setCoalesceDelay(0);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestRawBinarySender extends ComponentVerticle {
+    @Override
+    public void start() {
+      vertx.setTimer(100, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (int i = 0; i < 100; i++) {
+            if (i % 2 == 0) {
+              output.port("out").send(new Buffer("message" + i));
+            } else {
+              output.port("out").send(("message" + i).getBytes());
+            }
+            output.port("out").send(i);
+          }
+        }
+      });
+    }
+  }
+
+  public static class TestRawBinaryReceiver extends ComponentVerticle {
+    private int count;
+
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<Object>() {
+        @Override
+        public void handle(Object message) {
+          int i = count++ / 2;
+          if (count % 2 == 1) {
+            if (i % 2 == 0) {
+              assertEquals("message" + i, ((Buffer) message).toString());
+            } else {
+              assertEquals("message" + i, new String((byte[]) message));
+            }
+          } else {
+            assertEquals(i, ((Integer) message).intValue());
+          }
+          if (count == 200) {
+            testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOneRawBinary() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestRawBinarySender.class.getName());
+        network.addVerticle("receiver", TestRawBinaryReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in")
+            .setCoalesceSize(16);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestCodecMessage implements JsonSerializable {
+    private int value;
+
+    public TestCodecMessage() {
+    }
+
+    public TestCodecMessage(int value) {
+      this.value = value;
+    }
+  }
+
+  public static class TestCodecSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      vertx.setTimer(100, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (int i = 0; i < 100; i++) {
+            output.port("json").send(new TestCodecMessage(i));
+            output.port("binary").send(new TestCodecMessage(i));
+          }
+        }
+      });
+    }
+  }
+
+  public static class TestCodecReceiver extends ComponentVerticle {
+    private int json;
+    private int binary;
+
+    @Override
+    public void start() {
+      input.port("json").messageHandler(new Handler<TestCodecMessage>() {
+        @Override
+        public void handle(TestCodecMessage message) {
+          assertEquals(json++, message.value);
+          checkComplete();
+        }
+      });
+      input.port("binary").messageHandler(new Handler<TestCodecMessage>() {
+        @Override
+        public void handle(TestCodecMessage message) {
+          assertEquals(binary++, message.value);
+          checkComplete();
+        }
+      });
+    }
+
+    private void checkComplete() {
+      if (json == 100 && binary == 100) {
+        testComplete();
+      }
+    }
+  }
+
+  @Test
+  public void testOneToOneCodec() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestCodecSender.class.getName());
+        network.addVerticle("receiver", TestCodecReceiver.class.getName());
+        network.addCodec(TestCodecMessage.class, JacksonMessageCodec.class);
+        network.createConnection("sender", "json", "receiver", "json");
+        network.createConnection("sender", "binary", "receiver", "binary")
+            .setFormat(ConnectionConfig.Format.BINARY);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestSpillSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      output.port("out").setSendQueueMaxSize(100);
+      for (int i = 0; i < 250; i++) {
+        assertFalse(output.port("out").sendQueueFull());
+        output.port("out").send(i);
+      }
+    }
+  }
+
+  public static class TestSpillReceiver extends ComponentVerticle {
+    private int count;
+
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<Integer>() {
+        @Override
+        public void handle(Integer message) {
+          assertEquals(count++, message.intValue());
+          if (count == 250) {
+            testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOneSpill() throws Exception {
+    final File directory = Files.createTempDirectory("vertigo-spill").toFile();
+    directory.deleteOnExit();
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestSpillSender.class.getName());
+        network.addVerticle("receiver", TestSpillReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in")
+            .setFormat(ConnectionConfig.Format.BINARY)
+            .setSpillDirectory(directory.getAbsolutePath());
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testOneToOneCompressedBinary() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestCoalescedSender.class.getName());
+        network.addVerticle("receiver", TestCoalescedReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in")
+            .setFormat(ConnectionConfig.Format.BINARY)
+            .setCoalesceSize(64)
+            .setCompression(ConnectionConfig.Compression.DEFLATE)
+            .setCompressionThreshold(256);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestTcpSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      // Messages sent over a socket can beat the receiver's own start
+      // event, so give the receiver time to register its handler.
+      vertx.setTimer(100, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (int i = 0; i < 1000; i++) {
+            output.port("out").send(i);
+          }
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOneTcp() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestTcpSender.class.getName());
+        network.addVerticle("receiver", TestCoalescedReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in")
+            .setCoalesceSize(16)
+            .setTransport(ConnectionConfig.Transport.TCP);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testOneToOneTcpBinary() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestTcpSender.class.getName());
+        network.addVerticle("receiver", TestCoalescedReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in")
+            .setFormat(ConnectionConfig.Format.BINARY)
+            .setTransport(ConnectionConfig.Transport.TCP);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestMultiplexSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      vertx.setTimer(100, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (int i = 0; i < 100; i++) {
+            output.port("json").send(i);
+            output.port("binary").send(i);
+          }
+        }
+      });
+    }
+  }
+
+  public static class TestMultiplexReceiver extends ComponentVerticle {
+    private int json;
+    private int binary;
+
+    @Override
+    public void start() {
+      input.port("json").messageHandler(new Handler<Integer>() {
+        @Override
+        public void handle(Integer message) {
+          assertEquals(json++, message.intValue());
+          checkComplete();
+        }
+      });
+      input.port("binary").messageHandler(new Handler<Integer>() {
+        @Override
+        public void handle(Integer message) {
+          assertEquals(binary++, message.intValue());
+          checkComplete();
+        }
+      });
+    }
+
+    private void checkComplete() {
+      if (json == 100 && binary == 100) {
+        testComplete();
+      }
+    }
+  }
+
+  @Test
+  public void testOneToOneMultiplexed() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestMultiplexSender.class.getName());
+        network.addVerticle("receiver", TestMultiplexReceiver.class.getName());
+        network.createConnection("sender", "json", "receiver", "json")
+            .setMultiplex(true);
+        network.createConnection("sender", "binary", "receiver", "binary")
+            .setFormat(ConnectionConfig.Format.BINARY)
+            .setMultiplex(true);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestLocalSender extends ComponentVerticle {
+    private static final JsonObject MESSAGE = new JsonObject().putString("foo", "bar");
+
+    @Override
+    public void start() {
+      output.port("out").send(MESSAGE);
+    }
+  }
+
+  public static class TestLocalReferenceReceiver extends ComponentVerticle {
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<JsonObject>() {
+        @Override
+        public void handle(JsonObject message) {
+          assertTrue(message == TestLocalSender.MESSAGE);
+          testComplete();
+        }
+      });
+    }
+  }
+
+  public static class TestLocalCopyReceiver extends ComponentVerticle {
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<JsonObject>() {
+        @Override
+        public void handle(JsonObject message) {
+          assertFalse(message == TestLocalSender.MESSAGE);
+          assertEquals("bar", message.getString("foo"));
+          testComplete();
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOneLocalReference() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestLocalSender.class.getName());
+        network.addVerticle("receiver", TestLocalReferenceReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setLocalDelivery(true).setCopyPolicy(ConnectionConfig.CopyPolicy.REFERENCE);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Test
+  public void testOneToOneLocalCopy() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestLocalSender.class.getName());
+        network.addVerticle("receiver", TestLocalCopyReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setLocalDelivery(true).setCopyPolicy(ConnectionConfig.CopyPolicy.COPY);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
   public static class TestOneToManySender extends ComponentVerticle {
     private final int count = 4;
     private final Set<String> received = new HashSet<>();
@@ -189,6 +859,273 @@ public class PortTest extends TestVerticle {
     });
   }
 
+  public static class TestOneToAllSender extends ComponentVerticle {
+    private final Set<String> received = new HashSet<>();
+
+    @Override
+    public void start() {
+      vertx.eventBus().registerHandler("test", new Handler<Message<String>>() {
+        @Override
+        public void handle(Message<String> message) {
+          received.add(message.body());
+          if (received.size() == 4) {
+            testComplete();
+          }
+        }
+      }, new Handler<AsyncResult<Void>>() {
+        @Override
+        public void handle(AsyncResult<Void> result) {
+          assertTrue(result.succeeded());
+          vertx.setTimer(100, new Handler<Long>() {
+            @Override
+            public void handle(Long timerID) {
+              output.port("out").send(new TestSerializable("Hello world!"));
+            }
+          });
+        }
+      });
+    }
+  }
+
+  public static class TestOneToAllReceiver extends ComponentVerticle {
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<TestSerializable>() {
+        @Override
+        public void handle(TestSerializable message) {
+          assertEquals("Hello world!", message.value);
+          vertx.eventBus().send("test", context.address());
+        }
+      });
+    }
+  }
+
+  @SuppressWarnings("serial")
+  public static class TestSerializable implements java.io.Serializable {
+    private final String value;
+
+    public TestSerializable(String value) {
+      this.value = value;
+    }
+  }
+
+  @Test
+  public void testOneToAll() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestOneToAllSender.class.getName());
+        network.addVerticle("receiver", TestOneToAllReceiver.class.getName(), 4);
+        network.createConnection("sender", "out", "receiver", "in").allSelect();
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestLazySender extends ComponentVerticle {
+    @Override
+    public void start() {
+      vertx.setTimer(100, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (int i = 0; i < 10; i++) {
+            output.port("out").send(new TestSerializable("Hello world!"));
+          }
+        }
+      });
+    }
+  }
+
+  public static class TestLazyForwarder extends ComponentVerticle {
+    @Override
+    public void start() {
+      input.port("in").lazyMessageHandler(new Handler<LazyMessage>() {
+        @Override
+        public void handle(LazyMessage message) {
+          assertFalse(message.isDecoded());
+          output.port("out").send(message);
+        }
+      });
+    }
+  }
+
+  public static class TestLazyReceiver extends ComponentVerticle {
+    private int count;
+
+    @Override
+    public void start() {
+      input.port("in").messageHandler(new Handler<TestSerializable>() {
+        @Override
+        public void handle(TestSerializable message) {
+          assertEquals("Hello world!", message.value);
+          if (++count == 10) {
+            testComplete();
+          }
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testLazyForwarding() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestLazySender.class.getName());
+        network.addVerticle("forwarder", TestLazyForwarder.class.getName());
+        network.addVerticle("receiver", TestLazyReceiver.class.getName());
+        network.createConnection("sender", "out", "forwarder", "in").setFormat(ConnectionConfig.Format.BINARY);
+        network.createConnection("forwarder", "out", "receiver", "in");
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestPrimitiveSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      vertx.setTimer(100, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (long i = 1; i <= 100; i++) {
+            output.port("out").send(i);
+          }
+          output.port("out").send(1.5);
+        }
+      });
+    }
+  }
+
+  public static class TestPrimitiveReceiver extends ComponentVerticle {
+    private long sum;
+
+    @Override
+    public void start() {
+      input.port("in").longHandler(new LongHandler() {
+        @Override
+        public void handle(long message) {
+          sum += message;
+        }
+      });
+      input.port("in").doubleHandler(new DoubleHandler() {
+        @Override
+        public void handle(double message) {
+          assertEquals(1.5, message, 0);
+          assertEquals(5050, sum);
+          testComplete();
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToOnePrimitive() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestPrimitiveSender.class.getName());
+        network.addVerticle("receiver", TestPrimitiveReceiver.class.getName());
+        network.createConnection("sender", "out", "receiver", "in").setFormat(ConnectionConfig.Format.BINARY);
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public static class TestOneToManySendAllSender extends ComponentVerticle {
+    private final Set<String> received = new HashSet<>();
+    private int count;
+
+    @Override
+    public void start() {
+      vertx.eventBus().registerHandler("test", new Handler<Message<String>>() {
+        @Override
+        public void handle(Message<String> message) {
+          received.add(message.body());
+          if (++count == 100) {
+            assertEquals(4, received.size());
+            testComplete();
+          }
+        }
+      }, new Handler<AsyncResult<Void>>() {
+        @Override
+        public void handle(AsyncResult<Void> result) {
+          assertTrue(result.succeeded());
+          vertx.setTimer(100, new Handler<Long>() {
+            @Override
+            public void handle(Long timerID) {
+              Object[] messages = new Object[100];
+              for (int i = 0; i < messages.length; i++) {
+                messages[i] = "Hello world!";
+              }
+              output.port("out").sendAll(messages);
+            }
+          });
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testOneToManySendAll() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork();
+        network.addVerticle("sender", TestOneToManySendAllSender.class.getName());
+        network.addVerticle("receiver", TestOneToManyReceiver.class.getName(), 4);
+        network.createConnection("sender", "out", "receiver", "in").roundSelect();
+        result.result().deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
   public static class TestManyToOneSender extends ComponentVerticle {
     @Override
     public void start() {
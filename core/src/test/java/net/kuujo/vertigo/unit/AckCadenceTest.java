@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.connection.impl.AckCadence;
+
+import org.junit.Test;
+
+/**
+ * Ack cadence tests.
+ *
+ * @author Jordan Halterman
+ */
+public class AckCadenceTest {
+
+  @Test
+  public void testFixedCadence() {
+    AckCadence cadence = new AckCadence(ConnectionConfig.AckPolicy.FIXED);
+    cadence.setWindow(100000);
+    cadence.sampleRate(1000, 0);
+    cadence.sampleRate(1100, 100000);
+    assertEquals(1000, cadence.ackSize());
+    assertEquals(1000, cadence.ackDelay());
+  }
+
+  @Test
+  public void testAdaptiveLowRate() {
+    AckCadence cadence = new AckCadence(ConnectionConfig.AckPolicy.ADAPTIVE);
+    cadence.setWindow(1000);
+    cadence.sampleRate(1000, 0);
+    cadence.sampleRate(2000, 10);
+    assertEquals(499, cadence.ackSize());
+    assertEquals(100, cadence.ackDelay());
+  }
+
+  @Test
+  public void testAdaptiveHighRate() {
+    AckCadence cadence = new AckCadence(ConnectionConfig.AckPolicy.ADAPTIVE);
+    cadence.setWindow(1000);
+    cadence.sampleRoundTrip(5);
+    long size = cadence.ackSize();
+    cadence.sampleRate(1000, 0);
+    cadence.sampleRate(1100, 100000);
+    assertTrue(cadence.rate() > 0);
+    assertTrue(cadence.ackSize() < size);
+    assertTrue(cadence.ackSize() >= 1);
+  }
+
+  @Test
+  public void testAdaptiveLargeWindow() {
+    AckCadence cadence = new AckCadence(ConnectionConfig.AckPolicy.ADAPTIVE);
+    cadence.setWindow(100000);
+    cadence.sampleRate(1000, 0);
+    cadence.sampleRate(1100, 100000);
+    assertTrue(cadence.ackSize() > 1000);
+  }
+
+  @Test
+  public void testAdaptiveDelayFollowsRoundTrip() {
+    AckCadence cadence = new AckCadence(ConnectionConfig.AckPolicy.ADAPTIVE);
+    for (int i = 0; i < 20; i++) {
+      cadence.sampleRoundTrip(100);
+    }
+    assertTrue(cadence.ackDelay() > 100);
+    for (int i = 0; i < 100; i++) {
+      cadence.sampleRoundTrip(5000);
+    }
+    assertEquals(1000, cadence.ackDelay());
+  }
+
+}
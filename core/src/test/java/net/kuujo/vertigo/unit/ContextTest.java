@@ -18,15 +18,28 @@ package net.kuujo.vertigo.unit;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import net.kuujo.vertigo.component.InstanceContext;
 import net.kuujo.vertigo.component.ModuleConfig;
 import net.kuujo.vertigo.component.ModuleContext;
 import net.kuujo.vertigo.component.VerticleConfig;
 import net.kuujo.vertigo.component.VerticleContext;
 import net.kuujo.vertigo.impl.ContextBuilder;
+import net.kuujo.vertigo.io.connection.InputConnectionContext;
+import net.kuujo.vertigo.io.connection.OutputConnectionContext;
+import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnectionContext;
 import net.kuujo.vertigo.network.NetworkConfig;
 import net.kuujo.vertigo.network.NetworkContext;
 import net.kuujo.vertigo.network.impl.DefaultNetworkConfig;
+import net.kuujo.vertigo.util.Configs;
+import net.kuujo.vertigo.util.Contexts;
+import net.kuujo.vertigo.util.serialization.MessageCodec;
+import net.kuujo.vertigo.util.serialization.impl.JacksonMessageCodec;
 
 import org.junit.Test;
 import org.vertx.java.core.json.JsonObject;
@@ -242,6 +255,103 @@ public class ContextTest {
     assertNotNull(verticleContext.instances().get(0).component());
   }
 
+  @Test
+  public void testMultiplexedConnectionContext() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("sender", "sender.py", 2);
+    network.addVerticle("receiver", "receiver.py", 2);
+    network.createConnection("sender", "out1", "receiver", "in1").setMultiplex(true);
+    network.createConnection("sender", "out2", "receiver", "in2").setMultiplex(true);
+    network.createConnection("sender", "out3", "receiver", "in3");
+    NetworkContext context = ContextBuilder.buildContext(network, "vertigo");
+    InstanceContext sender = context.component("sender").instances().get(0);
+    InstanceContext receiver = context.component("receiver").instances().get(1);
+    Set<Integer> channelIds = new HashSet<>();
+    for (String port : new String[]{"1", "2"}) {
+      OutputConnectionContext output = sender.output().port("out" + port).streams().iterator().next().connections().get(1);
+      assertEquals("mux:vertigo.test.sender-1->vertigo.test.receiver-2", output.channel());
+      assertTrue(channelIds.add(output.channelId()));
+      for (InputConnectionContext input : receiver.input().port("in" + port).connections()) {
+        assertEquals(String.format("mux:vertigo.test.sender-%d->vertigo.test.receiver-2", input.source().instance()), input.channel());
+        if (input.source().instance() == 1) {
+          assertEquals(output.channelId(), input.channelId());
+        }
+      }
+    }
+    assertNull(sender.output().port("out3").streams().iterator().next().connections().get(1).channel());
+    for (InputConnectionContext input : receiver.input().port("in3").connections()) {
+      assertNull(input.channel());
+    }
+  }
+
+  @Test
+  public void testMultiplexedChannelIdsOnUpdate() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("sender", "sender.py");
+    network.addVerticle("receiver", "receiver.py");
+    network.createConnection("sender", "out1", "receiver", "in1").setMultiplex(true);
+    NetworkContext context = Contexts.<NetworkContext>deserialize(Contexts.serialize(ContextBuilder.buildContext(network, "vertigo")));
+
+    // Give the running connection the ID that the new connection's address maps to.
+    String address = "out:out2@vertigo.test.sender[1]->in:in2@vertigo.test.receiver[1]";
+    OutputConnectionContext running = context.component("sender").instances().get(0).output().port("out1").streams().iterator().next().connections().get(0);
+    DefaultOutputConnectionContext.Builder.newBuilder(running).setChannelId(address.hashCode()).build();
+
+    NetworkConfig update = new DefaultNetworkConfig("test");
+    update.createConnection("sender", "out2", "receiver", "in2").setMultiplex(true);
+    NetworkContext merged = ContextBuilder.buildContext(Configs.mergeNetworks(context.config(), update), "vertigo", context);
+    InstanceContext sender = merged.component("sender").instances().get(0);
+    InstanceContext receiver = merged.component("receiver").instances().get(0);
+    OutputConnectionContext output1 = sender.output().port("out1").streams().iterator().next().connections().get(0);
+    OutputConnectionContext output2 = sender.output().port("out2").streams().iterator().next().connections().get(0);
+    assertEquals(address, output2.address());
+    assertEquals(output1.channel(), output2.channel());
+    assertEquals(address.hashCode(), output1.channelId());
+    assertFalse(output1.channelId() == output2.channelId());
+    assertEquals(output1.channelId(), receiver.input().port("in1").connections().iterator().next().channelId());
+    assertEquals(output2.channelId(), receiver.input().port("in2").connections().iterator().next().channelId());
+
+    // Removing the new connection doesn't change the running connection's ID.
+    NetworkContext unmerged = ContextBuilder.buildContext(Configs.unmergeNetworks(merged.config(), update), "vertigo", merged);
+    OutputConnectionContext output = unmerged.component("sender").instances().get(0).output().port("out1").streams().iterator().next().connections().get(0);
+    assertEquals(address.hashCode(), output.channelId());
+  }
+
+  @Test
+  public void testConnectionCodecsContext() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("sender", "sender.py", 2);
+    network.addVerticle("receiver", "receiver.py", 2);
+    network.addCodec(String.class, JacksonMessageCodec.class);
+    network.addCodec(Integer.class, JacksonMessageCodec.class);
+    network.createConnection("sender", "out1", "receiver", "in1");
+    network.createConnection("sender", "out2", "receiver", "in2").addCodec(Integer.class, TestCodec.class);
+    NetworkContext context = Contexts.<NetworkContext>deserialize(Contexts.serialize(ContextBuilder.buildContext(network, "vertigo")));
+    InstanceContext sender = context.component("sender").instances().get(0);
+    InstanceContext receiver = context.component("receiver").instances().get(1);
+    OutputConnectionContext output1 = sender.output().port("out1").streams().iterator().next().connections().get(1);
+    assertEquals(JacksonMessageCodec.class.getName(), output1.codecs().get(String.class.getName()));
+    assertEquals(JacksonMessageCodec.class.getName(), output1.codecs().get(Integer.class.getName()));
+    OutputConnectionContext output2 = sender.output().port("out2").streams().iterator().next().connections().get(1);
+    assertEquals(JacksonMessageCodec.class.getName(), output2.codecs().get(String.class.getName()));
+    assertEquals(TestCodec.class.getName(), output2.codecs().get(Integer.class.getName()));
+    for (InputConnectionContext input : receiver.input().port("in2").connections()) {
+      assertEquals(output2.codecs(), input.codecs());
+    }
+  }
+
+  public static class TestCodec implements MessageCodec<Integer> {
+    @Override
+    public byte[] encode(Integer value) {
+      return new byte[]{value.byteValue()};
+    }
+
+    @Override
+    public Integer decode(byte[] bytes, Class<Integer> type) {
+      return (int) bytes[0];
+    }
+  }
+
   @Test
   public void testUpdateContext() {
     NetworkConfig network = new DefaultNetworkConfig("test");
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import net.kuujo.vertigo.io.connection.impl.DedupWindow;
+
+import org.junit.Test;
+
+/**
+ * Deduplication window tests.
+ *
+ * @author Jordan Halterman
+ */
+public class DedupWindowTest {
+
+  @Test
+  public void testSuppressDuplicates() {
+    DedupWindow window = new DedupWindow(64);
+    for (long i = 1; i <= 10; i++) {
+      assertTrue(window.add(i));
+    }
+    assertFalse(window.add(5));
+    assertFalse(window.add(10));
+    assertTrue(window.add(11));
+    assertEquals(2, window.suppressed());
+  }
+
+  @Test
+  public void testOutOfOrder() {
+    DedupWindow window = new DedupWindow(64);
+    assertTrue(window.add(1));
+    assertTrue(window.add(3));
+    assertTrue(window.add(2));
+    assertFalse(window.add(3));
+    assertFalse(window.add(2));
+    assertEquals(2, window.suppressed());
+  }
+
+  @Test
+  public void testWindowAdvances() {
+    DedupWindow window = new DedupWindow(64);
+    for (long i = 1; i <= 200; i++) {
+      assertTrue(window.add(i));
+    }
+    // IDs older than the window can't be checked.
+    assertTrue(window.add(100));
+    assertFalse(window.add(199));
+    // Skipped IDs are not considered handled.
+    assertTrue(window.add(210));
+    assertTrue(window.add(205));
+    assertFalse(window.add(205));
+  }
+
+  @Test
+  public void testSessionReset() {
+    DedupWindow window = new DedupWindow(64);
+    window.session("foo");
+    assertTrue(window.add(1));
+    assertTrue(window.add(2));
+    window.session("foo");
+    assertFalse(window.add(2));
+    window.session("bar");
+    assertTrue(window.add(1));
+    assertTrue(window.add(2));
+    assertEquals(1, window.suppressed());
+  }
+
+}
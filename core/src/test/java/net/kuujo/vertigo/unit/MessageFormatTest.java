@@ -0,0 +1,612 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import net.kuujo.vertigo.io.LongHandler;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.connection.impl.BinaryMessageDecoder;
+import net.kuujo.vertigo.io.connection.impl.BinaryMessageEncoder;
+import net.kuujo.vertigo.io.connection.impl.FrameCompressor;
+import net.kuujo.vertigo.io.connection.impl.JsonMessageEncoder;
+import net.kuujo.vertigo.io.impl.CodecRegistry;
+import net.kuujo.vertigo.io.impl.DefaultLazyMessage;
+import net.kuujo.vertigo.io.impl.InputDeserializer;
+import net.kuujo.vertigo.io.impl.OutputSerializer;
+import net.kuujo.vertigo.io.impl.SharedValue;
+import net.kuujo.vertigo.util.serialization.JsonSerializable;
+import net.kuujo.vertigo.util.serialization.MessageCodec;
+import net.kuujo.vertigo.util.serialization.SerializationException;
+import net.kuujo.vertigo.util.serialization.impl.JacksonMessageCodec;
+
+import org.junit.Test;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Connection message format tests.
+ *
+ * @author Jordan Halterman
+ */
+public class MessageFormatTest {
+
+  @Test
+  public void testBinaryMessageValues() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    List<Object> values = new ArrayList<>();
+    values.add("Hello world!");
+    values.add(true);
+    values.add('a');
+    values.add((byte) 1);
+    values.add((short) 2);
+    values.add(3);
+    values.add(4L);
+    values.add(5.0f);
+    values.add(6.0);
+    values.add(new JsonObject().putString("foo", "bar"));
+    values.add(new JsonArray().add("foo").add("bar"));
+    values.add(new SomeSerializable("baz"));
+    long id = 1;
+    for (Object value : values) {
+      Buffer frame = encoder.encodeMessage(id, value);
+      assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame));
+      assertEquals(id, decoder.readVarLong());
+      assertEquals(value, decoder.readValue());
+      id += 1000;
+    }
+  }
+
+  @Test
+  public void testBinaryMessageBytes() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    Buffer frame = encoder.encodeMessage(1, new byte[]{1, 2, 3});
+    assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame));
+    assertEquals(1, decoder.readVarLong());
+    assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) decoder.readValue());
+
+    frame = encoder.encodeMessage(2, new Buffer("foo"));
+    decoder.readFrame(frame);
+    decoder.readVarLong();
+    assertEquals("foo", decoder.readValue().toString());
+
+    frame = encoder.encodeMessage(3, null);
+    decoder.readFrame(frame);
+    decoder.readVarLong();
+    assertNull(decoder.readValue());
+  }
+
+  @Test
+  public void testBinaryGroupFrames() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+
+    assertEquals(BinaryMessageEncoder.BATCH_START, decoder.readFrame(encoder.encodeBatchStart(1, "batch", null)));
+    assertEquals(1, decoder.readVarLong());
+    assertEquals("batch", decoder.readIntern());
+    assertNull(decoder.readValue());
+
+    assertEquals(BinaryMessageEncoder.GROUP_START, decoder.readFrame(encoder.encodeGroupStart(2, "group", "name", "batch", "args")));
+    assertEquals(2, decoder.readVarLong());
+    assertEquals("group", decoder.readIntern());
+    assertEquals("name", decoder.readString());
+    assertEquals("batch", decoder.readInterned());
+    assertEquals("args", decoder.readValue());
+
+    Buffer frame = encoder.encodeGroupMessage(3, "group", "Hello world!");
+    assertTrue(frame.length() < 20);
+    assertEquals(BinaryMessageEncoder.GROUP_MESSAGE, decoder.readFrame(frame));
+    assertEquals(3, decoder.readVarLong());
+    assertEquals("group", decoder.readInterned());
+    assertEquals("Hello world!", decoder.readValue());
+
+    assertEquals(BinaryMessageEncoder.GROUP_END, decoder.readFrame(encoder.encodeGroupEnd(4, "group", null)));
+    assertEquals(4, decoder.readVarLong());
+    assertEquals("group", decoder.readReleased());
+
+    assertEquals(BinaryMessageEncoder.BATCH_END, decoder.readFrame(encoder.encodeBatchEnd(5, "batch", null)));
+    assertEquals(5, decoder.readVarLong());
+    assertEquals("batch", decoder.readReleased());
+  }
+
+  @Test
+  public void testBinaryCoalescedFrame() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    List<Object> messages = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      messages.add(encoder.encodeMessage(i, "message" + i));
+    }
+    Buffer frame = encoder.encodeFrame(messages);
+    assertEquals(BinaryMessageEncoder.FRAME, frame.getByte(0));
+    int position = 1;
+    for (int i = 1; i <= 3; i++) {
+      int length = frame.getInt(position);
+      position += 4;
+      assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame, position, position + length));
+      assertEquals(i, decoder.readVarLong());
+      assertEquals("message" + i, decoder.readValue());
+      position += length;
+    }
+    assertEquals(frame.length(), position);
+  }
+
+  @Test
+  public void testJsonCoalescedFrame() {
+    JsonMessageEncoder encoder = new JsonMessageEncoder();
+    List<Object> messages = new ArrayList<>();
+    messages.add(encoder.encodeMessage(1, "foo"));
+    messages.add(encoder.encodeMessage(2, "bar"));
+    JsonObject frame = encoder.encodeFrame(messages);
+    assertEquals("frame", frame.getString("action"));
+    JsonArray array = frame.getArray("messages");
+    assertEquals(2, array.size());
+    assertEquals(1, ((JsonObject) array.get(0)).getLong("id").longValue());
+    assertEquals(2, ((JsonObject) array.get(1)).getLong("id").longValue());
+  }
+
+  @Test
+  public void testJsonRawBinaryMessage() {
+    JsonMessageEncoder encoder = new JsonMessageEncoder();
+    byte[] bytes = new byte[1024];
+    new Random(1).nextBytes(bytes);
+    Object message = encoder.encodeGroupMessage(1, "foo", new Buffer(bytes));
+    assertTrue(message instanceof Buffer);
+    Buffer frame = (Buffer) message;
+    assertEquals(BinaryMessageEncoder.RAW, frame.getByte(0));
+    int length = frame.getInt(1);
+    JsonObject header = new JsonObject(frame.getString(5, 5 + length, "UTF-8"));
+    assertEquals("group", header.getString("action"));
+    assertEquals("foo", header.getString("group"));
+    assertEquals("buffer", header.getString("type"));
+    assertEquals(1, header.getLong("id").longValue());
+    assertFalse(header.containsField("value"));
+    assertArrayEquals(bytes, frame.getBytes(5 + length, frame.length()));
+    assertTrue(encoder.encodeMessage(2, "bar") instanceof JsonObject);
+  }
+
+  @Test
+  public void testJsonForwardLazyBinaryMessage() {
+    byte[] bytes = new byte[1024];
+    new Random(1).nextBytes(bytes);
+
+    // Buffers received on a lazy handler are wrapped once decoded, and buffers
+    // received on a binary connection are held in their encoded form.
+    Buffer encoded = new BinaryMessageEncoder().encodeMessage(1, new Buffer(bytes));
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(encoded));
+    assertEquals(1, decoder.readVarLong());
+    JsonMessageEncoder encoder = new JsonMessageEncoder();
+    for (Object lazy : new Object[]{new DefaultLazyMessage(new Buffer(bytes)), decoder.readLazyValue()}) {
+      Buffer frame = (Buffer) encoder.encodeMessage(2, lazy);
+      assertEquals(BinaryMessageEncoder.RAW, frame.getByte(0));
+      int length = frame.getInt(1);
+      JsonObject header = new JsonObject(frame.getString(5, 5 + length, "UTF-8"));
+      assertEquals("buffer", header.getString("type"));
+      assertFalse(header.containsField("value"));
+      assertArrayEquals(bytes, frame.getBytes(5 + length, frame.length()));
+    }
+
+    // Codec encoded values are sent raw by their codec.
+    Map<String, String> codecs = new HashMap<>();
+    codecs.put(SomeSerializable.class.getName(), SomeCodec.class.getName());
+    decoder = new BinaryMessageDecoder(new InputDeserializer(new CodecRegistry(codecs)));
+    assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(new BinaryMessageEncoder(new OutputSerializer(new CodecRegistry(codecs))).encodeMessage(1, new SomeSerializable("foo"))));
+    assertEquals(1, decoder.readVarLong());
+    Buffer frame = (Buffer) new JsonMessageEncoder(new OutputSerializer(new CodecRegistry(codecs))).encodeMessage(2, decoder.readLazyValue());
+    assertEquals(BinaryMessageEncoder.RAW, frame.getByte(0));
+    int length = frame.getInt(1);
+    JsonObject header = new JsonObject(frame.getString(5, 5 + length, "UTF-8"));
+    assertEquals("codec", header.getString("type"));
+    InputDeserializer deserializer = new InputDeserializer(new CodecRegistry(codecs));
+    assertEquals(new SomeSerializable("foo"), deserializer.decode(header.getInteger("codec"), frame.getBytes(5 + length, frame.length())));
+  }
+
+  @Test
+  public void testBinaryCodecMessage() {
+    Map<String, String> codecs = new HashMap<>();
+    codecs.put(SomeSerializable.class.getName(), SomeCodec.class.getName());
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder(new OutputSerializer(new CodecRegistry(codecs)));
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder(new InputDeserializer(new CodecRegistry(codecs)));
+    Buffer frame = encoder.encodeMessage(1, new SomeSerializable("foo"));
+    assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame));
+    assertEquals(1, decoder.readVarLong());
+    assertEquals(new SomeSerializable("foo"), decoder.readValue());
+    assertTrue(frame.length() < new BinaryMessageEncoder().encodeMessage(1, new SomeSerializable("foo")).length());
+  }
+
+  @Test
+  public void testJsonCodecMessage() {
+    Map<String, String> codecs = new HashMap<>();
+    codecs.put(SomeSerializable.class.getName(), SomeCodec.class.getName());
+    codecs.put(SomePojo.class.getName(), JacksonMessageCodec.class.getName());
+    JsonMessageEncoder encoder = new JsonMessageEncoder(new OutputSerializer(new CodecRegistry(codecs)));
+    Buffer frame = (Buffer) encoder.encodeMessage(1, new SomeSerializable("foo"));
+    assertEquals(BinaryMessageEncoder.RAW, frame.getByte(0));
+    int length = frame.getInt(1);
+    JsonObject header = new JsonObject(frame.getString(5, 5 + length, "UTF-8"));
+    assertEquals("codec", header.getString("type"));
+    InputDeserializer deserializer = new InputDeserializer(new CodecRegistry(codecs));
+    assertEquals(new SomeSerializable("foo"), deserializer.decode(header.getInteger("codec"), frame.getBytes(5 + length, frame.length())));
+
+    SomePojo pojo = new SomePojo();
+    pojo.value = "bar";
+    JsonObject message = new OutputSerializer(new CodecRegistry(codecs)).serialize(pojo);
+    assertEquals("codec", message.getString("type"));
+    assertEquals("bar", ((SomePojo) deserializer.deserialize(message)).value);
+  }
+
+  @Test
+  public void testSessionSerializedMessage() {
+    OutputSerializer serializer = new OutputSerializer(null, ConnectionConfig.SerializationMode.SESSION);
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder(serializer);
+    InputDeserializer deserializer = new InputDeserializer();
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder(deserializer);
+    ArrayList<Object> value = new ArrayList<>();
+    value.add(new SomeSerializable("foo"));
+    value.add(new int[]{1, 2, 3});
+    value.add(ConnectionConfig.SerializationMode.SESSION);
+    int length = 0;
+    for (int i = 1; i <= 2; i++) {
+      Buffer frame = encoder.encodeMessage(i, value);
+      // Class descriptors are only written in full by the first message.
+      if (i > 1) {
+        assertTrue(frame.length() < length);
+        assertTrue(frame.length() < new BinaryMessageEncoder().encodeMessage(i, value).length());
+      }
+      length = frame.length();
+      assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame));
+      assertEquals(i, decoder.readVarLong());
+      List<?> result = (List<?>) decoder.readValue();
+      assertEquals(value.get(0), result.get(0));
+      assertArrayEquals((int[]) value.get(1), (int[]) result.get(1));
+      assertEquals(value.get(2), result.get(2));
+    }
+
+    JsonObject message = serializer.serialize(new SomeSerializable("bar"));
+    assertEquals("session", message.getString("type"));
+    assertEquals(new SomeSerializable("bar"), deserializer.deserialize(message));
+
+    // The descriptor was defined by an earlier message, so it can't be
+    // read without that message.
+    try {
+      new InputDeserializer().deserialize(message);
+      fail("Expected unknown class descriptor");
+    } catch (SerializationException e) {
+    }
+  }
+
+  @Test
+  public void testSessionFieldLayoutMismatch() throws Exception {
+    // The receiver loads a version of the class with different fields but
+    // the same serial version UID, so fields must be matched by name.
+    OutputSerializer serializer = new OutputSerializer(null, ConnectionConfig.SerializationMode.SESSION);
+    InputDeserializer deserializer = new InputDeserializer();
+    Thread thread = Thread.currentThread();
+    ClassLoader loader = thread.getContextClassLoader();
+    thread.setContextClassLoader(new VersionLoader());
+    try {
+      for (int i = 1; i <= 2; i++) {
+        Object result = deserializer.deserialize(serializer.serialize(new VersionedA("foo", i)));
+        assertEquals(VersionedA.class.getName(), result.getClass().getName());
+        assertFalse(result.getClass() == VersionedA.class);
+        assertEquals("foo", field(result, "name"));
+        assertEquals(i, field(result, "count"));
+        assertNull(field(result, "label"));
+      }
+    } finally {
+      thread.setContextClassLoader(loader);
+    }
+  }
+
+  /**
+   * Returns the value of a field of an object loaded by another class loader.
+   */
+  private static Object field(Object object, String name) throws Exception {
+    Field field = object.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    return field.get(object);
+  }
+
+  @Test
+  public void testSessionSerialVersionMismatch() {
+    OutputSerializer serializer = new OutputSerializer(null, ConnectionConfig.SerializationMode.SESSION);
+    JsonObject message = serializer.serialize(new SomeSerializable("foo"));
+    byte[] bytes = message.getBinary("value");
+
+    // Rewrite the serial version UID that follows the class name.
+    byte[] name = SomeSerializable.class.getName().getBytes();
+    int position = 0;
+    while (!new String(bytes, position, name.length).equals(SomeSerializable.class.getName())) {
+      position++;
+    }
+    position += name.length;
+    long serialVersionUID = ObjectStreamClass.lookup(SomeSerializable.class).getSerialVersionUID();
+    assertEquals(serialVersionUID, ByteBuffer.wrap(bytes, position, 8).getLong());
+    ByteBuffer.wrap(bytes, position, 8).putLong(serialVersionUID + 1);
+
+    try {
+      new InputDeserializer().deserialize(message.putBinary("value", bytes));
+      fail("Expected serial version mismatch");
+    } catch (SerializationException e) {
+      assertTrue(e.getCause() instanceof InvalidClassException);
+    }
+  }
+
+  @Test
+  public void testSharedValueSerializedOnce() {
+    CountingSerializable.count = 0;
+    SharedValue shared = new SharedValue(new CountingSerializable("foo"));
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    for (int i = 1; i <= 3; i++) {
+      Buffer frame = new BinaryMessageEncoder().encodeMessage(i, shared);
+      assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame));
+      assertEquals(i, decoder.readVarLong());
+      assertEquals(new CountingSerializable("foo"), decoder.readValue());
+    }
+    for (int i = 1; i <= 3; i++) {
+      JsonObject message = (JsonObject) new JsonMessageEncoder().encodeMessage(i, shared);
+      assertEquals(i, message.getLong("id").longValue());
+      assertEquals(new CountingSerializable("foo"), new InputDeserializer().deserialize(message));
+    }
+    assertEquals(2, CountingSerializable.count);
+  }
+
+  @Test
+  public void testLazyMessagePassThrough() {
+    CountingSerializable.count = 0;
+    Buffer frame = new BinaryMessageEncoder().encodeMessage(1, new CountingSerializable("foo"));
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(frame));
+    assertEquals(1, decoder.readVarLong());
+    DefaultLazyMessage message = decoder.readLazyValue();
+    assertFalse(message.isDecoded());
+
+    Buffer forwarded = new BinaryMessageEncoder().encodeMessage(1, message);
+    assertArrayEquals(frame.getBytes(), forwarded.getBytes());
+    JsonObject json = (JsonObject) new JsonMessageEncoder().encodeMessage(2, message);
+    assertEquals("serialized", json.getString("type"));
+    assertFalse(message.isDecoded());
+    assertEquals(1, CountingSerializable.count);
+
+    DefaultLazyMessage lazy = DefaultLazyMessage.create(json, new InputDeserializer());
+    assertEquals(BinaryMessageEncoder.MESSAGE, decoder.readFrame(new BinaryMessageEncoder().encodeMessage(3, lazy)));
+    assertEquals(3, decoder.readVarLong());
+    assertEquals(new CountingSerializable("foo"), decoder.readValue());
+    assertFalse(lazy.isDecoded());
+    assertEquals(new CountingSerializable("foo"), message.value());
+    assertTrue(message.isDecoded());
+    assertEquals(1, CountingSerializable.count);
+
+    assertNull(DefaultLazyMessage.create((JsonObject) new JsonMessageEncoder().encodeMessage(4, null), new InputDeserializer()));
+  }
+
+  @Test
+  public void testPrimitiveMessages() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    assertArrayEquals(encoder.encodeMessage(1, (Object) (byte) 1).getBytes(), encoder.encodeMessage(1, (byte) 1).getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) (short) 2).getBytes(), encoder.encodeMessage(1, (short) 2).getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) 'c').getBytes(), encoder.encodeMessage(1, 'c').getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) 3).getBytes(), encoder.encodeMessage(1, 3).getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) 4L).getBytes(), encoder.encodeMessage(1, 4L).getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) 5.5f).getBytes(), encoder.encodeMessage(1, 5.5f).getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) 6.5).getBytes(), encoder.encodeMessage(1, 6.5).getBytes());
+    assertArrayEquals(encoder.encodeMessage(1, (Object) true).getBytes(), encoder.encodeMessage(1, true).getBytes());
+
+    final long[] received = new long[1];
+    LongHandler handler = new LongHandler() {
+      @Override
+      public void handle(long message) {
+        received[0] = message;
+      }
+    };
+    BinaryMessageDecoder decoder = new BinaryMessageDecoder();
+    decoder.readFrame(encoder.encodeMessage(2, 10L));
+    decoder.readVarLong();
+    assertTrue(decoder.readPrimitive(null, handler, null, null));
+    assertEquals(10L, received[0]);
+    decoder.readFrame(encoder.encodeMessage(3, 10.5));
+    decoder.readVarLong();
+    assertFalse(decoder.readPrimitive(null, handler, null, null));
+    assertEquals(10.5, decoder.readValue());
+  }
+
+  @Test
+  public void testCompressedBinaryFrame() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    List<Object> messages = new ArrayList<>();
+    for (int i = 1; i <= 100; i++) {
+      messages.add(encoder.encodeMessage(i, "message" + i));
+    }
+    Buffer frame = encoder.encodeFrame(messages);
+    FrameCompressor compressor = new FrameCompressor(256);
+    Buffer compressed = (Buffer) compressor.compress(frame);
+    assertEquals(BinaryMessageEncoder.COMPRESSED, compressed.getByte(0));
+    assertTrue(compressed.length() < frame.length());
+    assertArrayEquals(frame.getBytes(), compressor.decompress(compressed).getBytes());
+    compressor.close();
+  }
+
+  @Test
+  public void testCompressedJsonFrame() {
+    JsonMessageEncoder encoder = new JsonMessageEncoder();
+    List<Object> messages = new ArrayList<>();
+    for (int i = 1; i <= 100; i++) {
+      messages.add(encoder.encodeMessage(i, "message" + i));
+    }
+    JsonObject frame = encoder.encodeFrame(messages);
+    FrameCompressor compressor = new FrameCompressor(256);
+    Buffer compressed = (Buffer) compressor.compress(frame);
+    assertEquals(BinaryMessageEncoder.COMPRESSED, compressed.getByte(0));
+    assertEquals(frame.encode(), compressor.decompress(compressed).toString("UTF-8"));
+    compressor.close();
+  }
+
+  @Test
+  public void testCompressionThreshold() {
+    BinaryMessageEncoder encoder = new BinaryMessageEncoder();
+    Buffer message = encoder.encodeMessage(1, "Hello world!");
+    FrameCompressor compressor = new FrameCompressor(256);
+    assertTrue(compressor.compress(message) == message);
+    JsonObject json = (JsonObject) new JsonMessageEncoder().encodeMessage(1, "Hello world!");
+    assertTrue(compressor.compress(json) == json);
+    compressor.close();
+  }
+
+  @Test
+  public void testIncompressibleFrame() {
+    byte[] bytes = new byte[1024];
+    new Random(1).nextBytes(bytes);
+    Buffer frame = new Buffer(bytes);
+    FrameCompressor compressor = new FrameCompressor();
+    assertTrue(compressor.compress(frame) == frame);
+    compressor.close();
+  }
+
+  @SuppressWarnings("serial")
+  public static class SomeSerializable implements java.io.Serializable {
+    private final String value;
+
+    public SomeSerializable(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof SomeSerializable && ((SomeSerializable) other).value.equals(value);
+    }
+
+    @Override
+    public int hashCode() {
+      return value.hashCode();
+    }
+  }
+
+  @SuppressWarnings("serial")
+  public static class CountingSerializable implements java.io.Serializable {
+    private static int count;
+    private final String value;
+
+    public CountingSerializable(String value) {
+      this.value = value;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      count++;
+      out.defaultWriteObject();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CountingSerializable && ((CountingSerializable) other).value.equals(value);
+    }
+
+    @Override
+    public int hashCode() {
+      return value.hashCode();
+    }
+  }
+
+  public static class VersionedA implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String name;
+    private final int count;
+
+    public VersionedA(String name, int count) {
+      this.name = name;
+      this.count = count;
+    }
+  }
+
+  public static class VersionedB implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+    private int count;
+    private String label;
+    private String name;
+  }
+
+  /**
+   * Class loader that loads {@link VersionedB} under the name of {@link VersionedA}.
+   */
+  private static class VersionLoader extends ClassLoader {
+    private Class<?> versioned;
+
+    private VersionLoader() {
+      super(MessageFormatTest.class.getClassLoader());
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(VersionedA.class.getName())) {
+        return super.loadClass(name, resolve);
+      }
+      if (versioned == null) {
+        try (InputStream in = MessageFormatTest.class.getResourceAsStream("MessageFormatTest$VersionedB.class")) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte[] buffer = new byte[1024];
+          int length;
+          while ((length = in.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+          }
+          // Both names have the same length, so the constant pool is unchanged.
+          byte[] bytes = new String(out.toByteArray(), "ISO-8859-1").replace("VersionedB", "VersionedA").getBytes("ISO-8859-1");
+          versioned = defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+      return versioned;
+    }
+  }
+
+  public static class SomeCodec implements MessageCodec<SomeSerializable> {
+    @Override
+    public byte[] encode(SomeSerializable value) {
+      return value.value.getBytes();
+    }
+
+    @Override
+    public SomeSerializable decode(byte[] bytes, Class<SomeSerializable> type) {
+      return new SomeSerializable(new String(bytes));
+    }
+  }
+
+  public static class SomePojo implements JsonSerializable {
+    private String value;
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.kuujo.vertigo.io.connection.impl.DirectBufferPool;
+import net.kuujo.vertigo.io.connection.impl.DirectReplayBuffer;
+import net.kuujo.vertigo.io.connection.impl.ReplayBuffer;
+
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Replay buffer tests.
+ *
+ * @author Jordan Halterman
+ */
+public class ReplayBufferTest {
+
+  @Test
+  public void testAppendAndGet() {
+    ReplayBuffer buffer = new ReplayBuffer(4);
+    for (long i = 1; i <= 100; i++) {
+      buffer.append(i, "message" + i);
+    }
+    assertEquals(100, buffer.size());
+    assertEquals(1, buffer.first());
+    assertEquals(101, buffer.next());
+    for (long i = 1; i <= 100; i++) {
+      assertEquals("message" + i, buffer.get(i));
+    }
+    assertNull(buffer.get(0));
+    assertNull(buffer.get(101));
+  }
+
+  @Test
+  public void testTrim() {
+    ReplayBuffer buffer = new ReplayBuffer(4);
+    for (long i = 1; i <= 100; i++) {
+      buffer.append(i, "message" + i);
+    }
+    buffer.trim(50);
+    assertEquals(50, buffer.size());
+    assertEquals(51, buffer.first());
+    assertNull(buffer.get(50));
+    assertEquals("message51", buffer.get(51));
+
+    // Trimming an already acked ID should have no effect.
+    buffer.trim(10);
+    assertEquals(50, buffer.size());
+
+    buffer.trim(98);
+    assertEquals(2, buffer.size());
+    assertEquals("message99", buffer.get(99));
+    assertEquals("message100", buffer.get(100));
+
+    // Trimming beyond the last message clears the buffer.
+    buffer.trim(1000);
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void testWrapAround() {
+    ReplayBuffer buffer = new ReplayBuffer(4);
+    long id = 1;
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 3; i++) {
+        buffer.append(id, id);
+        id++;
+      }
+      buffer.trim(id - 2);
+      assertEquals(1, buffer.size());
+      assertEquals(id - 1, buffer.get(id - 1));
+    }
+  }
+
+  @Test
+  public void testRestartWhenEmpty() {
+    ReplayBuffer buffer = new ReplayBuffer();
+    buffer.append(1, "foo");
+    buffer.clear();
+    buffer.append(10, "bar");
+    assertEquals(10, buffer.first());
+    assertEquals("bar", buffer.get(10));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testAppendOutOfSequence() {
+    ReplayBuffer buffer = new ReplayBuffer();
+    buffer.append(1, "foo");
+    buffer.append(3, "bar");
+  }
+
+  @Test
+  public void testDirectAppendAndReplay() {
+    DirectBufferPool pool = new DirectBufferPool(0, 256);
+    DirectReplayBuffer buffer = new DirectReplayBuffer(pool);
+    for (long i = 1; i <= 100; i++) {
+      if (i % 2 == 0) {
+        buffer.append(i, new JsonObject().putNumber("id", i).putString("body", "message" + i));
+      } else {
+        buffer.append(i, new Buffer("message" + i));
+      }
+    }
+    assertTrue(buffer.directBytes() > 0);
+    assertEquals("message51", buffer.get(51).toString());
+    // JSON messages are read back in their encoded form.
+    assertTrue(buffer.get(52) instanceof Buffer);
+    assertEquals("message52", new JsonObject(buffer.get(52).toString()).getString("body"));
+
+    // Slabs holding only acked messages should be released on trim.
+    long bytes = buffer.directBytes();
+    buffer.trim(60);
+    assertTrue(buffer.directBytes() < bytes);
+    assertEquals("message61", buffer.get(61).toString());
+    final List<Object> messages = new ArrayList<>();
+    buffer.replay(new Handler<Object>() {
+      @Override
+      public void handle(Object message) {
+        messages.add(message);
+      }
+    });
+    assertEquals(40, messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      long id = i + 61;
+      if (id % 2 == 0) {
+        assertEquals(id, new JsonObject(messages.get(i).toString()).getLong("id").longValue());
+      } else {
+        assertEquals("message" + id, messages.get(i).toString());
+      }
+    }
+  }
+
+  @Test
+  public void testDirectReleasesSlabs() {
+    DirectBufferPool pool = new DirectBufferPool(0, 256);
+    DirectReplayBuffer buffer = new DirectReplayBuffer(pool);
+    for (long i = 1; i <= 100; i++) {
+      buffer.append(i, new Buffer("message" + i));
+    }
+    long allocated = pool.allocatedBytes();
+    buffer.trim(100);
+    assertEquals(0, buffer.directBytes());
+
+    // Released slabs should be reused by subsequent appends.
+    for (long i = 101; i <= 200; i++) {
+      buffer.append(i, new Buffer("message" + i));
+    }
+    assertEquals(allocated, pool.allocatedBytes());
+
+    // Clearing the pool frees released slabs but not slabs still in use.
+    buffer.trim(150);
+    pool.clear();
+    assertEquals(buffer.directBytes(), pool.allocatedBytes());
+    buffer.trim(200);
+    pool.clear();
+    assertEquals(0, pool.allocatedBytes());
+  }
+
+  @Test
+  public void testDirectBudgetFallsBackToHeap() {
+    DirectBufferPool pool = new DirectBufferPool(512, 256);
+    DirectReplayBuffer buffer = new DirectReplayBuffer(pool, 256);
+    for (long i = 1; i <= 100; i++) {
+      buffer.append(i, new Buffer("message" + i));
+    }
+    assertEquals(256, buffer.directBytes());
+    assertEquals(256, pool.allocatedBytes());
+    final List<Object> messages = new ArrayList<>();
+    buffer.replay(new Handler<Object>() {
+      @Override
+      public void handle(Object message) {
+        messages.add(message);
+      }
+    });
+    assertEquals(100, messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      assertEquals("message" + (i + 1), messages.get(i).toString());
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import net.kuujo.vertigo.io.connection.impl.SpillLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Spill log tests.
+ *
+ * @author Jordan Halterman
+ */
+public class SpillLogTest {
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("vertigo-spill").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void testAppendAndPoll() {
+    SpillLog log = new SpillLog(directory.getAbsolutePath(), 256);
+    for (long i = 1; i <= 100; i++) {
+      if (i % 2 == 0) {
+        log.append(i, new JsonObject().putNumber("id", i));
+      } else {
+        log.append(i, new Buffer("message" + i));
+      }
+    }
+    assertEquals(100, log.size());
+    assertTrue(log.segments() > 1);
+    assertEquals(log.segments(), directory.listFiles().length);
+
+    for (long i = 1; i <= 100; i++) {
+      assertEquals(i, log.first());
+      Object message = log.poll();
+      if (i % 2 == 0) {
+        assertEquals(i, ((JsonObject) message).getLong("id").longValue());
+      } else {
+        assertEquals("message" + i, message.toString());
+      }
+    }
+    assertTrue(log.isEmpty());
+    assertNull(log.poll());
+    assertEquals(0, log.segments());
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test
+  public void testSegmentsDeletedAsRead() {
+    SpillLog log = new SpillLog(directory.getAbsolutePath(), 256);
+    for (long i = 1; i <= 100; i++) {
+      log.append(i, new Buffer("message" + i));
+    }
+    int segments = log.segments();
+    for (int i = 0; i < 50; i++) {
+      log.poll();
+    }
+    assertTrue(log.segments() < segments);
+    assertEquals(log.segments(), directory.listFiles().length);
+  }
+
+  @Test
+  public void testLargeMessage() {
+    SpillLog log = new SpillLog(directory.getAbsolutePath(), 16);
+    byte[] bytes = new byte[1024];
+    bytes[1023] = 1;
+    log.append(1, new Buffer(bytes));
+    assertEquals(1, ((Buffer) log.poll()).getByte(1023));
+  }
+
+  @Test
+  public void testClear() {
+    SpillLog log = new SpillLog(directory.getAbsolutePath(), 256);
+    for (long i = 1; i <= 100; i++) {
+      log.append(i, new Buffer("message" + i));
+    }
+    log.clear();
+    assertTrue(log.isEmpty());
+    assertEquals(0, directory.listFiles().length);
+  }
+
+}
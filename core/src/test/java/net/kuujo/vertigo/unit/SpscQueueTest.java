@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import net.kuujo.vertigo.io.connection.impl.SpscQueue;
+
+import org.junit.Test;
+
+/**
+ * Single-producer/single-consumer queue tests.
+ *
+ * @author Jordan Halterman
+ */
+public class SpscQueueTest {
+
+  @Test
+  public void testOfferPoll() {
+    SpscQueue<String> queue = new SpscQueue<>();
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+    queue.offer("foo");
+    queue.offer("bar");
+    assertEquals("foo", queue.poll());
+    assertEquals("bar", queue.poll());
+    assertNull(queue.poll());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testConcurrentProducer() throws Exception {
+    final SpscQueue<Integer> queue = new SpscQueue<>();
+    final int count = 100000;
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < count; i++) {
+          queue.offer(i);
+        }
+      }
+    });
+    producer.start();
+    int expected = 0;
+    while (expected < count) {
+      Integer value = queue.poll();
+      if (value != null) {
+        assertEquals(expected++, value.intValue());
+      }
+    }
+    producer.join();
+    assertTrue(queue.isEmpty());
+  }
+
+}